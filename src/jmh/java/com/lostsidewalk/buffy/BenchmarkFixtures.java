@@ -0,0 +1,285 @@
+package com.lostsidewalk.buffy;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.lostsidewalk.buffy.importer.Importer.ImportResult;
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.rule.Rule.MatchType;
+import com.lostsidewalk.buffy.rule.RuleAction.ActionType;
+import com.lostsidewalk.buffy.rule.RuleCondition.ComparisonType;
+import com.lostsidewalk.buffy.rule.RuleCondition.FieldName;
+import com.lostsidewalk.buffy.rule.RuleSet;
+import com.lostsidewalk.buffy.subscription.SubscriptionDefinition;
+import com.lostsidewalk.buffy.subscription.SubscriptionMetrics;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.function.Function;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+
+/**
+ * Synthetic data for the benchmarks.  The domain objects are built from JSON, in the same shape in which they are
+ * serialized (e.g., in web hook payloads), and the DAOs are faked in memory.
+ */
+@SuppressWarnings("unused")
+public final class BenchmarkFixtures {
+
+    private static final Gson GSON = new GsonBuilder()
+            // (dates as epoch millis, both ways)
+            .registerTypeAdapter(Date.class, (JsonSerializer<Date>) (src, type, ctx) -> new JsonPrimitive(src.getTime()))
+            .registerTypeAdapter(Date.class, (JsonDeserializer<Date>) (json, type, ctx) -> new Date(json.getAsLong()))
+            .create();
+
+    // deterministic, so that runs are comparable
+    private static final long SEED = 0x5eed_cafeL;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Build recently published staging posts spread evenly across the given number of subscriptions, each with a
+     * title, a description and contents of (about) the given size.
+     *
+     * @param postCt         The number of posts.
+     * @param subscriptionCt The number of subscriptions (and users).
+     * @param contentSize    The size of the post contents, in characters.
+     * @return The staging posts.
+     */
+    public static List<StagingPost> stagingPosts(int postCt, int subscriptionCt, int contentSize) {
+        Random random = new Random(SEED);
+        List<StagingPost> stagingPosts = new ArrayList<>(postCt);
+        for (int i = 0; i < postCt; i++) {
+            long subscriptionId = 1L + (i % subscriptionCt);
+            stagingPosts.add(stagingPost(random, subscriptionId, "user" + subscriptionId, i, contentSize));
+        }
+        return stagingPosts;
+    }
+
+    /**
+     * Build a recently published staging post of the given subscription, with a title, a description and contents
+     * of (about) the given size.
+     *
+     * @param random         The source of the post's hash and text.
+     * @param subscriptionId The subscription Id (also used as the queue Id).
+     * @param username       The username.
+     * @param seq            The sequence number of the post, within its subscription.
+     * @param contentSize    The size of the post contents, in characters.
+     * @return The staging post.
+     */
+    public static StagingPost stagingPost(Random random, long subscriptionId, String username, long seq, int contentSize) {
+        long now = System.currentTimeMillis();
+        JsonObject post = new JsonObject();
+        post.addProperty("postHash", Long.toHexString(random.nextLong()) + Long.toHexString(seq));
+        post.addProperty("username", username);
+        post.addProperty("subscriptionId", subscriptionId);
+        post.addProperty("queueId", subscriptionId);
+        post.addProperty("importerDesc", "benchmark");
+        post.addProperty("postUrl", "https://example.com/" + subscriptionId + "/posts/" + seq);
+        post.add("postTitle", contentObject("Post " + seq + ' ' + words(random, 64)));
+        post.add("postDesc", contentObject(words(random, 256)));
+        JsonArray postContents = new JsonArray();
+        postContents.add(contentObject(words(random, contentSize)));
+        post.add("postContents", postContents);
+        post.addProperty("publishTimestamp", now - HOURS.toMillis(random.nextInt(48)));
+        post.addProperty("importTimestamp", now);
+        return GSON.fromJson(post, StagingPost.class);
+    }
+
+    /**
+     * Build a rule set of the given number of single-condition rules, which compare the given field of each post
+     * against a value that (mostly) does not match, so that every rule is evaluated.  Matching rules mark the post
+     * as read, i.e., no web hooks are fired.
+     *
+     * @param ruleCt         The number of rules.
+     * @param fieldName      The field compared by each rule.
+     * @param comparisonType The comparison made by each rule.
+     * @return The rule set.
+     */
+    public static RuleSet ruleSet(int ruleCt, FieldName fieldName, ComparisonType comparisonType) {
+        JsonArray rules = new JsonArray();
+        for (int i = 0; i < ruleCt; i++) {
+            JsonObject condition = new JsonObject();
+            condition.addProperty("fieldName", fieldName.name());
+            condition.addProperty("comparisonType", comparisonType.name());
+            condition.addProperty("fieldValue", comparisonType == ComparisonType.EQ_REGEXP ? ".*keyword" + i + "\\b.*" : "keyword" + i);
+            JsonArray conditions = new JsonArray();
+            conditions.add(condition);
+            JsonObject action = new JsonObject();
+            action.addProperty("sequence", 1);
+            action.addProperty("actionType", ActionType.MARK_AS_READ.name());
+            action.add("parameters", new JsonArray());
+            JsonArray actions = new JsonArray();
+            actions.add(action);
+            JsonObject rule = new JsonObject();
+            rule.addProperty("id", i + 1L);
+            rule.addProperty("name", "rule" + i);
+            rule.addProperty("matchType", MatchType.ALL.name());
+            rule.add("conditions", conditions);
+            rule.add("actions", actions);
+            rules.add(rule);
+        }
+        JsonObject ruleSet = new JsonObject();
+        ruleSet.addProperty("id", 1L);
+        ruleSet.addProperty("name", "benchmark");
+        ruleSet.add("rules", rules);
+        return GSON.fromJson(ruleSet, RuleSet.class);
+    }
+
+    /**
+     * Build the hourly import history of a subscription, most recent first, in which only the most recent imports
+     * have persisted nothing.
+     *
+     * @param subscriptionId The subscription Id.
+     * @param metricsCt      The number of imports.
+     * @param importSchedule The schedule of each import.
+     * @param missCt         The number of most recent imports that persisted nothing.
+     * @return The subscription metrics.
+     */
+    public static List<SubscriptionMetrics> subscriptionMetrics(long subscriptionId, int metricsCt, String importSchedule, int missCt) {
+        long now = System.currentTimeMillis();
+        List<SubscriptionMetrics> subscriptionMetrics = new ArrayList<>(metricsCt);
+        for (int i = 0; i < metricsCt; i++) {
+            JsonObject metrics = new JsonObject();
+            metrics.addProperty("subscriptionId", subscriptionId);
+            metrics.addProperty("importCt", 10);
+            metrics.addProperty("persistCt", i < missCt ? 0 : 1);
+            metrics.addProperty("importSchedule", importSchedule);
+            metrics.addProperty("importTimestamp", now - HOURS.toMillis(i));
+            subscriptionMetrics.add(GSON.fromJson(metrics, SubscriptionMetrics.class));
+        }
+        return subscriptionMetrics;
+    }
+
+    /**
+     * Build the import results of the given posts, one per subscription, as an importer would return them.
+     *
+     * @param stagingPosts The staging posts.
+     * @return The import results.
+     */
+    public static List<ImportResult> importResults(Collection<StagingPost> stagingPosts) {
+        Map<Long, List<StagingPost>> postsBySubscriptionId = new TreeMap<>();
+        stagingPosts.forEach(p -> postsBySubscriptionId.computeIfAbsent(p.getSubscriptionId(), s -> new ArrayList<>()).add(p));
+        Date now = new Date();
+        List<ImportResult> importResults = new ArrayList<>(postsBySubscriptionId.size());
+        postsBySubscriptionId.forEach((subscriptionId, posts) -> importResults.add(importResult(
+                posts, List.of(subscriptionMetric(subscriptionId, posts.size(), "A", now)))));
+        return importResults;
+    }
+
+    /**
+     * Build an import result, as an importer would return it.
+     *
+     * @param importSet           The imported staging posts.
+     * @param subscriptionMetrics The metrics of each imported subscription.
+     * @return The import result.
+     */
+    public static ImportResult importResult(Collection<StagingPost> importSet, Collection<SubscriptionMetrics> subscriptionMetrics) {
+        JsonObject importResult = new JsonObject();
+        importResult.add("importSet", GSON.toJsonTree(importSet));
+        importResult.add("subscriptionMetrics", GSON.toJsonTree(subscriptionMetrics));
+        return GSON.fromJson(importResult, ImportResult.class);
+    }
+
+    /**
+     * Build the metrics of a single import of a subscription (i.e., before the import is processed).
+     *
+     * @param subscriptionId  The subscription Id.
+     * @param importCt        The number of posts imported.
+     * @param importSchedule  The schedule of the import.
+     * @param importTimestamp The time of the import.
+     * @return The subscription metrics.
+     */
+    public static SubscriptionMetrics subscriptionMetric(long subscriptionId, int importCt, String importSchedule, Date importTimestamp) {
+        JsonObject metrics = new JsonObject();
+        metrics.addProperty("subscriptionId", subscriptionId);
+        metrics.addProperty("importCt", importCt);
+        metrics.addProperty("importSchedule", importSchedule);
+        metrics.addProperty("importTimestamp", importTimestamp.getTime());
+        return GSON.fromJson(metrics, SubscriptionMetrics.class);
+    }
+
+    /**
+     * Build active subscriptions, each of a distinct user, on the given schedule.
+     *
+     * @param subscriptionCt The number of subscriptions.
+     * @param importSchedule The import schedule of each subscription.
+     * @return The subscription definitions.
+     */
+    public static List<SubscriptionDefinition> subscriptionDefinitions(int subscriptionCt, String importSchedule) {
+        List<SubscriptionDefinition> subscriptionDefinitions = new ArrayList<>(subscriptionCt);
+        for (long id = 1L; id <= subscriptionCt; id++) {
+            JsonObject subscription = new JsonObject();
+            subscription.addProperty("id", id);
+            subscription.addProperty("username", "user" + id);
+            subscription.addProperty("url", "https://example.com/" + id + "/feed");
+            subscription.addProperty("importSchedule", importSchedule);
+            subscriptionDefinitions.add(GSON.fromJson(subscription, SubscriptionDefinition.class));
+        }
+        return subscriptionDefinitions;
+    }
+
+    /**
+     * Fake an interface (e.g., a DAO) in memory: the given methods are answered by the given functions (of the call
+     * arguments), and every other method returns null (or false, or zero).
+     *
+     * @param type    The interface.
+     * @param answers The functions answering the interface methods, by method name.
+     * @param <T>     The interface type.
+     * @return The fake.
+     */
+    public static <T> T fake(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "Fake" + type.getSimpleName();
+                };
+            }
+            Function<Object[], Object> answer = answers.get(method.getName());
+            return answer != null ? answer.apply(args) : defaultValue(method);
+        }));
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType == boolean.class) {
+            return false;
+        } else if (returnType == int.class) {
+            return 0;
+        } else if (returnType == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    private static JsonObject contentObject(String value) {
+        JsonObject contentObject = new JsonObject();
+        contentObject.addProperty("type", "text");
+        contentObject.add("value", new JsonPrimitive(value));
+        return contentObject;
+    }
+
+    //
+    // pseudo-random lower-case text of (about) the given length
+    //
+    private static String words(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            int wordLength = 2 + random.nextInt(9);
+            for (int i = 0; i < wordLength; i++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            sb.append(' ');
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,226 @@
+package com.lostsidewalk.buffy.cluster;
+
+import com.lostsidewalk.buffy.cluster.ClusterCoordinator.Lease;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Multi-node test of {@link ClusterCoordinator}: several coordinators run in this process against a real (local)
+ * PostgreSQL database, each as its own node, and the harness checks that
+ * <ul>
+ *     <li>every subscription is owned by exactly one live node, and a node that stops heartbeating drops out of the
+ *     ring once its TTL has passed;</li>
+ *     <li>a singleton job never runs on two nodes at once, however many nodes try to run it;</li>
+ *     <li>a lease left behind by a crashed node is taken over once its TTL has passed, and not before;</li>
+ *     <li>a job whose lease is taken over sees that it no longer holds it, within a renewal interval.</li>
+ * </ul>
+ * The harness uses its own node Ids and lease names (prefixed {@code harness}), and removes its rows when done, but
+ * it is meant for a scratch database.  Exits with a non-zero status if any check fails.
+ * <p>
+ * Configured by system properties (run with {@code gradle clusterHarness -Dcluster.jdbcUrl=... -Dcluster.nodeCt=5}):
+ * <ul>
+ *     <li>{@code cluster.jdbcUrl} (jdbc:postgresql://localhost:5432/newsgears): the database;</li>
+ *     <li>{@code cluster.username} (postgres) and {@code cluster.password} (postgres): the database credentials;</li>
+ *     <li>{@code cluster.nodeCt} (3): the number of nodes;</li>
+ *     <li>{@code cluster.heartbeatIntervalMs} (500), {@code cluster.nodeTtlMs} (1500) and {@code cluster.leaseTtlMs}
+ *     (1500): the coordinator timings, shortened so that the run takes seconds.</li>
+ * </ul>
+ */
+public final class ClusterHarness {
+
+    // the subscription Ids over which ring ownership is checked
+    private static final int SUBSCRIPTION_CT = 10_000;
+
+    // how long the nodes contend for the exclusive job
+    private static final long CONTENTION_MS = 3_000L;
+
+    private static final String CRASHED_NODE_ID = "harness-crashed";
+
+    private static final String THIEF_NODE_ID = "harness-thief";
+
+    private static int failureCt;
+
+    private ClusterHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String jdbcUrl = System.getProperty("cluster.jdbcUrl", "jdbc:postgresql://localhost:5432/newsgears");
+        int nodeCt = Integer.getInteger("cluster.nodeCt", 3);
+        long heartbeatIntervalMs = Long.getLong("cluster.heartbeatIntervalMs", 500L);
+        long nodeTtlMs = Long.getLong("cluster.nodeTtlMs", 1500L);
+        long leaseTtlMs = Long.getLong("cluster.leaseTtlMs", 1500L);
+        System.out.printf("Cluster harness: jdbcUrl=%s, nodeCt=%d, heartbeatIntervalMs=%d, nodeTtlMs=%d, leaseTtlMs=%d%n",
+                jdbcUrl, nodeCt, heartbeatIntervalMs, nodeTtlMs, leaseTtlMs);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(jdbcUrl,
+                System.getProperty("cluster.username", "postgres"), System.getProperty("cluster.password", "postgres")));
+        List<ClusterCoordinator> nodes = new ArrayList<>(nodeCt);
+        ClusterLeaseDao clusterLeaseDao = new ClusterLeaseDao(jdbcTemplate);
+        try {
+            for (int i = 0; i < nodeCt; i++) {
+                nodes.add(newNode(jdbcTemplate, "harness-node-" + i, heartbeatIntervalMs, nodeTtlMs, leaseTtlMs));
+            }
+            // (every node sees every other at its next heartbeat)
+            Thread.sleep(2L * heartbeatIntervalMs);
+            checkRingOwnership(nodes, "after startup");
+            checkLeaseExclusivity(nodes);
+            checkLeaseTakeover(nodes.get(0), clusterLeaseDao, leaseTtlMs);
+            checkLostLease(nodes.get(0), clusterLeaseDao, leaseTtlMs);
+            checkDeadNodeLeavesRing(nodes, clusterLeaseDao, heartbeatIntervalMs, nodeTtlMs);
+        } finally {
+            nodes.forEach(ClusterCoordinator::preDestroy);
+            clusterLeaseDao.deleteNode(CRASHED_NODE_ID);
+        }
+        System.out.printf("Cluster harness %s, failureCt=%d%n", failureCt == 0 ? "passed" : "FAILED", failureCt);
+        System.exit(failureCt == 0 ? 0 : 1);
+    }
+
+    //
+    // wires up a coordinator outside of Spring, as a node with the given Id
+    //
+    private static ClusterCoordinator newNode(JdbcTemplate jdbcTemplate, String nodeId, long heartbeatIntervalMs, long nodeTtlMs, long leaseTtlMs) {
+        ClusterCoordinator clusterCoordinator = new ClusterCoordinator();
+        clusterCoordinator.configProps = new ClusterConfigProps();
+        clusterCoordinator.configProps.setEnabled(true);
+        clusterCoordinator.configProps.setNodeId(nodeId);
+        clusterCoordinator.configProps.setHeartbeatIntervalMs(heartbeatIntervalMs);
+        clusterCoordinator.configProps.setNodeTtlMs(nodeTtlMs);
+        clusterCoordinator.configProps.setLeaseTtlMs(leaseTtlMs);
+        // (a scratch database may not have the cluster tables yet)
+        clusterCoordinator.configProps.setCreateSchema(true);
+        clusterCoordinator.jdbcTemplate = jdbcTemplate;
+        clusterCoordinator.postConstruct();
+        return clusterCoordinator;
+    }
+
+    //
+    // every subscription is owned by exactly one of the given nodes
+    //
+    private static void checkRingOwnership(List<ClusterCoordinator> nodes, String when) {
+        int[] ownedCts = new int[nodes.size()];
+        int unownedCt = 0;
+        int sharedCt = 0;
+        for (long subscriptionId = 1L; subscriptionId <= SUBSCRIPTION_CT; subscriptionId++) {
+            int ownerCt = 0;
+            for (int n = 0; n < nodes.size(); n++) {
+                if (nodes.get(n).isOwner(subscriptionId)) {
+                    ownedCts[n]++;
+                    ownerCt++;
+                }
+            }
+            unownedCt += ownerCt == 0 ? 1 : 0;
+            sharedCt += ownerCt > 1 ? 1 : 0;
+        }
+        check(unownedCt == 0 && sharedCt == 0, "ring ownership " + when,
+                String.format("ownedCts=%s, unownedCt=%d, sharedCt=%d", Arrays.toString(ownedCts), unownedCt, sharedCt));
+    }
+
+    //
+    // every node runs the same singleton job in a loop; no two runs may overlap
+    //
+    private static void checkLeaseExclusivity(List<ClusterCoordinator> nodes) throws Exception {
+        AtomicInteger runningCt = new AtomicInteger();
+        AtomicInteger maxRunningCt = new AtomicInteger();
+        AtomicInteger runCt = new AtomicInteger();
+        ExecutorService nodeThreads = Executors.newFixedThreadPool(nodes.size());
+        long endNanos = nanoTime() + MILLISECONDS.toNanos(CONTENTION_MS);
+        List<Future<?>> futures = new ArrayList<>(nodes.size());
+        for (ClusterCoordinator node : nodes) {
+            futures.add(nodeThreads.submit(() -> {
+                while (nanoTime() - endNanos < 0L) {
+                    node.runSingleton("harness.exclusive", lease -> {
+                        maxRunningCt.accumulateAndGet(runningCt.incrementAndGet(), Math::max);
+                        runCt.incrementAndGet();
+                        Thread.sleep(50L);
+                        runningCt.decrementAndGet();
+                        return null;
+                    });
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        nodeThreads.shutdown();
+        check(maxRunningCt.get() == 1 && runCt.get() > 0, "lease exclusivity",
+                String.format("runCt=%d, maxRunningCt=%d", runCt.get(), maxRunningCt.get()));
+    }
+
+    //
+    // a lease held by a node that has gone away blocks the job until its TTL has passed, and no longer
+    //
+    private static void checkLeaseTakeover(ClusterCoordinator node, ClusterLeaseDao clusterLeaseDao, long leaseTtlMs) throws Exception {
+        String leaseName = "harness.takeover";
+        clusterLeaseDao.acquireLease(leaseName, CRASHED_NODE_ID, leaseTtlMs);
+        Optional<Boolean> beforeTtl = node.runSingleton(leaseName, lease -> true);
+        Thread.sleep(leaseTtlMs + 250L);
+        Optional<Boolean> afterTtl = node.runSingleton(leaseName, lease -> true);
+        check(beforeTtl.isEmpty() && afterTtl.isPresent(), "lease takeover after TTL",
+                String.format("ranBeforeTtl=%s, ranAfterTtl=%s", beforeTtl.isPresent(), afterTtl.isPresent()));
+    }
+
+    //
+    // a job whose lease is taken over (here, by the harness) sees that it no longer holds it, within a renewal
+    // interval (a third of the TTL)
+    //
+    private static void checkLostLease(ClusterCoordinator node, ClusterLeaseDao clusterLeaseDao, long leaseTtlMs) throws Exception {
+        String leaseName = "harness.stolen";
+        String nodeId = node.configProps.getNodeId();
+        Optional<Long> detectedMs = node.runSingleton(leaseName, lease -> {
+            clusterLeaseDao.releaseLease(leaseName, nodeId);
+            clusterLeaseDao.acquireLease(leaseName, THIEF_NODE_ID, leaseTtlMs);
+            long stolenNanos = nanoTime();
+            awaitLoss(lease, 3L * leaseTtlMs);
+            return NANOSECONDS.toMillis(nanoTime() - stolenNanos);
+        });
+        clusterLeaseDao.releaseLease(leaseName, THIEF_NODE_ID);
+        long detectedInMs = detectedMs.orElse(Long.MAX_VALUE);
+        check(detectedInMs <= leaseTtlMs / 3L + 250L, "lost lease detected",
+                String.format("detectedInMs=%d, renewIntervalMs=%d", detectedInMs, leaseTtlMs / 3L));
+    }
+
+    private static void awaitLoss(Lease lease, long timeoutMs) throws InterruptedException {
+        long endNanos = nanoTime() + MILLISECONDS.toNanos(timeoutMs);
+        while (lease.isHeld() && nanoTime() - endNanos < 0L) {
+            Thread.sleep(10L);
+        }
+    }
+
+    //
+    // a node that heartbeats once and then stops (i.e., crashes) joins the ring, so that the live nodes no longer own
+    // every subscription, and drops out of it once its TTL has passed
+    //
+    private static void checkDeadNodeLeavesRing(List<ClusterCoordinator> nodes, ClusterLeaseDao clusterLeaseDao, long heartbeatIntervalMs, long nodeTtlMs) throws InterruptedException {
+        clusterLeaseDao.heartbeat(CRASHED_NODE_ID);
+        Thread.sleep(2L * heartbeatIntervalMs);
+        long ownedByLiveNodesCt = 0L;
+        for (long subscriptionId = 1L; subscriptionId <= SUBSCRIPTION_CT; subscriptionId++) {
+            long id = subscriptionId;
+            ownedByLiveNodesCt += nodes.stream().anyMatch(n -> n.isOwner(id)) ? 1L : 0L;
+        }
+        check(ownedByLiveNodesCt < SUBSCRIPTION_CT, "crashed node joins ring",
+                String.format("ownedByLiveNodesCt=%d, subscriptionCt=%d", ownedByLiveNodesCt, SUBSCRIPTION_CT));
+        Thread.sleep(nodeTtlMs + 2L * heartbeatIntervalMs);
+        checkRingOwnership(nodes, "after node TTL");
+    }
+
+    private static void check(boolean isPassed, String name, String detail) {
+        if (!isPassed) {
+            failureCt++;
+        }
+        System.out.printf("%s: %s (%s)%n", isPassed ? "PASS" : "FAIL", name, detail);
+    }
+}
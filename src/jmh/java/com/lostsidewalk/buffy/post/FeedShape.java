@@ -0,0 +1,30 @@
+package com.lostsidewalk.buffy.post;
+
+/**
+ * The shape of the synthetic feeds served by {@link SyntheticImporter}.
+ *
+ * @param postCt          The number of posts in each feed, on each import.
+ * @param duplicatePct    The percentage of each feed's posts carried over from its previous import (i.e., which the
+ *                        importer has already seen).
+ * @param contentSize     The size of the post contents, in characters.
+ * @param latencyMedianMs The median latency of a feed fetch, in milliseconds.
+ * @param latencySigma    The spread (i.e., the sigma of the underlying normal distribution) of the log-normal fetch
+ *                        latency; 0 for a constant latency.
+ * @param failurePct      The percentage of feed fetches that fail (i.e., which import no posts).
+ */
+record FeedShape(int postCt, int duplicatePct, int contentSize, int latencyMedianMs, double latencySigma, int failurePct) {
+
+    //
+    // the feed shape given by the load.* system properties (see ImportLoadHarness)
+    //
+    static FeedShape fromSystemProperties() {
+        return new FeedShape(
+                Integer.getInteger("load.postCt", 20),
+                Integer.getInteger("load.duplicatePct", 80),
+                Integer.getInteger("load.contentSize", 4096),
+                Integer.getInteger("load.latencyMedianMs", 200),
+                Double.parseDouble(System.getProperty("load.latencySigma", "0.5")),
+                Integer.getInteger("load.failurePct", 2)
+        );
+    }
+}
@@ -0,0 +1,175 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.DataConflictException;
+import com.lostsidewalk.buffy.DataUpdateException;
+import com.lostsidewalk.buffy.importer.Importer;
+import com.lostsidewalk.buffy.rule.RuleCondition.ComparisonType;
+import com.lostsidewalk.buffy.rule.RuleCondition.FieldName;
+import com.lostsidewalk.buffy.rule.RuleSet;
+import com.lostsidewalk.buffy.subscription.SubscriptionDefinition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.collect.Lists.partition;
+import static com.lostsidewalk.buffy.BenchmarkFixtures.ruleSet;
+import static com.lostsidewalk.buffy.BenchmarkFixtures.subscriptionDefinitions;
+import static com.lostsidewalk.buffy.rule.RuleEngines.newRuleSetExecutor;
+import static java.lang.System.nanoTime;
+import static java.lang.management.MemoryType.HEAP;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * End-to-end load test of {@link PostImporter#doImport(List)}: synthetic importers (see {@link SyntheticImporter})
+ * feed the post importer, which persists to in-memory DAOs, for the given number of import runs over all of the
+ * subscriptions.  Reports the sustained import rate, the bundle latency percentiles and the heap high-water mark.
+ * <p>
+ * Configured by system properties (run with {@code gradle importLoadTest -Dload.subscriptionCt=5000 ...}):
+ * <ul>
+ *     <li>{@code load.subscriptionCt} (1000): the number of subscriptions;</li>
+ *     <li>{@code load.importerCt} (2): the number of importers;</li>
+ *     <li>{@code load.runCt} (10): the number of import runs, the first of which is a warm-up;</li>
+ *     <li>{@code load.ruleCt} (10): the number of rules applied to each subscription;</li>
+ *     <li>{@code load.recordingDir} (none): the directory to which the import results are recorded, for replay by
+ *     {@link ImportReplayHarness};</li>
+ *     <li>{@code load.bundleHeapBudgetBytes} (as configured by default): the heap budget of a bundle;</li>
+ *     <li>the feed shape, per {@link FeedShape#fromSystemProperties()}.</li>
+ * </ul>
+ */
+public final class ImportLoadHarness {
+
+    // the bundle size of the post importer
+    private static final int BUNDLE_SIZE = 100;
+
+    private ImportLoadHarness() {
+    }
+
+    public static void main(String[] args) throws DataAccessException, DataUpdateException, DataConflictException {
+        int subscriptionCt = Integer.getInteger("load.subscriptionCt", 1000);
+        int importerCt = Integer.getInteger("load.importerCt", 2);
+        int runCt = Integer.getInteger("load.runCt", 10);
+        int ruleCt = Integer.getInteger("load.ruleCt", 10);
+        FeedShape feedShape = FeedShape.fromSystemProperties();
+        System.out.printf("Load test: subscriptionCt=%d, importerCt=%d, runCt=%d, ruleCt=%d, feedShape=%s%n",
+                subscriptionCt, importerCt, runCt, ruleCt, feedShape);
+        //
+        // wire up the post importer
+        //
+        InMemoryStagingPostDao stagingPostDao = new InMemoryStagingPostDao();
+        InMemorySubscriptionMetricsDao subscriptionMetricsDao = new InMemorySubscriptionMetricsDao();
+        List<RuleSet> ruleSets = ruleCt > 0 ? List.of(ruleSet(ruleCt, FieldName.CONTENTS, ComparisonType.CONTAINS)) : List.of();
+        InMemoryRuleSetDao ruleSetDao = new InMemoryRuleSetDao(ruleSets);
+        List<SyntheticImporter> syntheticImporters = new ArrayList<>(importerCt);
+        for (int i = 0; i < importerCt; i++) {
+            syntheticImporters.add(new SyntheticImporter("synthetic-" + i, feedShape));
+        }
+        PostImporter postImporter = newPostImporter(stagingPostDao, subscriptionMetricsDao, ruleSetDao,
+                syntheticImporters.stream().map(SyntheticImporter::asImporter).toList());
+        List<SubscriptionDefinition> subscriptionDefinitions = subscriptionDefinitions(subscriptionCt, "A");
+        List<List<SubscriptionDefinition>> bundles = partition(subscriptionDefinitions, BUNDLE_SIZE);
+        //
+        // run the imports (the first run is a warm-up, and populates the feeds)
+        //
+        try {
+            for (List<SubscriptionDefinition> bundle : bundles) {
+                postImporter.doImport(bundle);
+            }
+            long warmUpImportedCt = importedCt(syntheticImporters);
+            long warmUpAddCt = stagingPostDao.addCt.sum();
+            resetPeakHeapUsage();
+            long[] bundleLatencyNanos = new long[(runCt - 1) * bundles.size()];
+            int bundleIdx = 0;
+            long startNanos = nanoTime();
+            for (int run = 1; run < runCt; run++) {
+                for (List<SubscriptionDefinition> bundle : bundles) {
+                    long bundleStartNanos = nanoTime();
+                    postImporter.doImport(bundle);
+                    bundleLatencyNanos[bundleIdx++] = nanoTime() - bundleStartNanos;
+                }
+            }
+            long elapsedNanos = nanoTime() - startNanos;
+            //
+            // report
+            //
+            long importedCt = importedCt(syntheticImporters) - warmUpImportedCt;
+            long persistedCt = stagingPostDao.addCt.sum() - warmUpAddCt;
+            double elapsedSecs = elapsedNanos / 1.0e9;
+            Arrays.sort(bundleLatencyNanos);
+            System.out.printf("Imported %d posts (%d persisted) in %.1f s: %.0f posts/s (%.0f persisted/s)%n",
+                    importedCt, persistedCt, elapsedSecs, importedCt / elapsedSecs, persistedCt / elapsedSecs);
+            System.out.printf("Bundle latency (ms): p50=%d, p99=%d, max=%d, bundleCt=%d%n",
+                    percentileMs(bundleLatencyNanos, 50), percentileMs(bundleLatencyNanos, 99),
+                    percentileMs(bundleLatencyNanos, 100), bundleLatencyNanos.length);
+            System.out.printf("Heap high-water mark: %d MiB%n", peakHeapUsage() >> 20);
+            System.out.printf("Stores: %s, %s%n", stagingPostDao, subscriptionMetricsDao);
+        } finally {
+            postImporter.importRecorder.preDestroy();
+            postImporter.preDestroy();
+        }
+    }
+
+    //
+    // wires up a post importer outside of Spring (per the load.recordingDir and load.bundleHeapBudgetBytes properties)
+    //
+    static PostImporter newPostImporter(InMemoryStagingPostDao stagingPostDao, InMemorySubscriptionMetricsDao subscriptionMetricsDao,
+                                        InMemoryRuleSetDao ruleSetDao, List<Importer> importers)
+    {
+        PostImporter postImporter = new PostImporter();
+        postImporter.stagingPostDao = stagingPostDao.asDao();
+        postImporter.subscriptionMetricsDao = subscriptionMetricsDao.asDao();
+        postImporter.ruleSetDao = ruleSetDao.asDao();
+        postImporter.importers = importers;
+        postImporter.ruleSetExecutor = newRuleSetExecutor();
+        postImporter.configProps = new PostImporterConfigProps();
+        postImporter.configProps.setRecordingDir(System.getProperty("load.recordingDir"));
+        postImporter.configProps.setBundleHeapBudgetBytes(Long.getLong("load.bundleHeapBudgetBytes", postImporter.configProps.getBundleHeapBudgetBytes()));
+        postImporter.maintenanceLocks = new MaintenanceLocks();
+        postImporter.importMetrics = new ImportMetrics();
+        postImporter.importMetrics.meterRegistry = new SimpleMeterRegistry();
+        postImporter.importMetrics.postConstruct();
+        postImporter.freshnessTracker = new FreshnessTracker();
+        postImporter.freshnessTracker.importMetrics = postImporter.importMetrics;
+        postImporter.importRecorder = new ImportRecorder();
+        postImporter.importRecorder.configProps = postImporter.configProps;
+        postImporter.importRecorder.postConstruct();
+        postImporter.postConstruct();
+        return postImporter;
+    }
+
+    private static long importedCt(List<SyntheticImporter> syntheticImporters) {
+        return syntheticImporters.stream().mapToLong(i -> i.importedCt.sum()).sum();
+    }
+
+    //
+    // the given percentile of the given (sorted) latencies, in milliseconds
+    //
+    private static long percentileMs(long[] sortedNanos, int percentile) {
+        if (sortedNanos.length == 0) {
+            return 0L;
+        }
+        int idx = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+        return NANOSECONDS.toMillis(sortedNanos[Math.max(0, idx)]);
+    }
+
+    private static void resetPeakHeapUsage() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == HEAP)
+                .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    //
+    // the sum of the peak usage of each heap pool (an upper bound, since the pools may peak at different times)
+    //
+    private static long peakHeapUsage() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == HEAP)
+                .mapToLong(p -> p.getPeakUsage().getUsed())
+                .sum();
+    }
+}
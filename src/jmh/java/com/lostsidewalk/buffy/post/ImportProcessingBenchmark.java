@@ -0,0 +1,104 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.DataConflictException;
+import com.lostsidewalk.buffy.DataUpdateException;
+import com.lostsidewalk.buffy.importer.Importer;
+import com.lostsidewalk.buffy.importer.Importer.ImportResult;
+import com.lostsidewalk.buffy.rule.RuleCondition.ComparisonType;
+import com.lostsidewalk.buffy.rule.RuleCondition.FieldName;
+import com.lostsidewalk.buffy.rule.RuleSet;
+import com.lostsidewalk.buffy.rule.RuleSetDao;
+import com.lostsidewalk.buffy.subscription.SubscriptionMetricsDao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.*;
+import static com.lostsidewalk.buffy.rule.RuleEngines.newRuleSetExecutor;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Measures {@link PostImporter#processImportResults} (grouping, dedup, rule evaluation and persistence) over a bundle
+ * of import results, against in-memory DAOs, with a varying share of posts that already exist and a varying number
+ * of rules per subscription.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportProcessingBenchmark {
+
+    private static final int SUBSCRIPTION_CT = 50;
+
+    @Param({"1000", "10000"})
+    int postCt;
+
+    @Param({"0", "50"})
+    int existingPct;
+
+    @Param({"0", "10"})
+    int ruleCt;
+
+    private final LongAdder persistedCt = new LongAdder();
+
+    private PostImporter postImporter;
+
+    private List<ImportResult> importResults;
+
+    @Setup
+    public void setup() {
+        List<StagingPost> stagingPosts = stagingPosts(postCt, SUBSCRIPTION_CT, 2048);
+        importResults = importResults(stagingPosts);
+        Set<String> existingHashes = stagingPosts.stream()
+                .limit((long) postCt * existingPct / 100)
+                .map(StagingPost::getPostHash)
+                .collect(toSet());
+        List<RuleSet> ruleSets = ruleCt > 0 ? List.of(ruleSet(ruleCt, FieldName.TITLE, ComparisonType.CONTAINS)) : List.of();
+
+        postImporter = new PostImporter();
+        postImporter.stagingPostDao = fake(StagingPostDao.class, Map.of(
+                "checkExists", args -> existingHashes.contains((String) args[0]),
+                "add", args -> {
+                    persistedCt.increment();
+                    return null;
+                }
+        ));
+        postImporter.ruleSetDao = fake(RuleSetDao.class, Map.of(
+                "findBySubscriptionId", args -> ruleSets
+        ));
+        postImporter.subscriptionMetricsDao = fake(SubscriptionMetricsDao.class, Map.of(
+                "add", args -> 1L
+        ));
+        // (the importers are not called here, but size the importer thread pool)
+        postImporter.importers = List.of(fake(Importer.class, Map.of()));
+        postImporter.ruleSetExecutor = newRuleSetExecutor();
+        postImporter.configProps = new PostImporterConfigProps();
+        postImporter.maintenanceLocks = new MaintenanceLocks();
+        postImporter.importMetrics = new ImportMetrics();
+        postImporter.importMetrics.meterRegistry = new SimpleMeterRegistry();
+        postImporter.importMetrics.postConstruct();
+        postImporter.freshnessTracker = new FreshnessTracker();
+        postImporter.freshnessTracker.importMetrics = postImporter.importMetrics;
+        postImporter.postConstruct();
+    }
+
+    @TearDown
+    public void tearDown() {
+        postImporter.preDestroy();
+    }
+
+    @Benchmark
+    public long processImportResults() throws DataAccessException, DataUpdateException, DataConflictException {
+        postImporter.processImportResults(importResults);
+        return persistedCt.sum();
+    }
+}
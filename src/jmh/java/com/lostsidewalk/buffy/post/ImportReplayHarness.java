@@ -0,0 +1,60 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.DataConflictException;
+import com.lostsidewalk.buffy.DataUpdateException;
+import com.lostsidewalk.buffy.importer.Importer;
+import com.lostsidewalk.buffy.post.ImportReplayer.ReplayPacing;
+import com.lostsidewalk.buffy.post.ImportReplayer.ReplaySummary;
+import com.lostsidewalk.buffy.rule.RuleCondition.ComparisonType;
+import com.lostsidewalk.buffy.rule.RuleCondition.FieldName;
+import com.lostsidewalk.buffy.rule.RuleSet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.fake;
+import static com.lostsidewalk.buffy.BenchmarkFixtures.ruleSet;
+import static com.lostsidewalk.buffy.post.ImportLoadHarness.newPostImporter;
+
+/**
+ * Replays a recording of import results (see {@link ImportRecorder}) through {@link PostImporter#processImportResults}
+ * against in-memory DAOs, and reports the replay rate.
+ * <p>
+ * Configured by system properties (run with {@code gradle importReplay -Dload.recording=... ...}):
+ * <ul>
+ *     <li>{@code load.recording} (required): the recording to replay;</li>
+ *     <li>{@code load.pacing} (FULL_SPEED): FULL_SPEED, or REAL_TIME to replay the bundles as they were captured;</li>
+ *     <li>{@code load.ruleCt} (10): the number of rules applied to each subscription (rules are not recorded).</li>
+ * </ul>
+ */
+public final class ImportReplayHarness {
+
+    private ImportReplayHarness() {
+    }
+
+    public static void main(String[] args)
+            throws IOException, DataAccessException, DataUpdateException, DataConflictException, InterruptedException
+    {
+        Path recordingPath = Path.of(System.getProperty("load.recording"));
+        ReplayPacing pacing = ReplayPacing.valueOf(System.getProperty("load.pacing", ReplayPacing.FULL_SPEED.name()));
+        int ruleCt = Integer.getInteger("load.ruleCt", 10);
+        List<RuleSet> ruleSets = ruleCt > 0 ? List.of(ruleSet(ruleCt, FieldName.CONTENTS, ComparisonType.CONTAINS)) : List.of();
+        InMemoryStagingPostDao stagingPostDao = new InMemoryStagingPostDao();
+        PostImporter postImporter = newPostImporter(stagingPostDao, new InMemorySubscriptionMetricsDao(), new InMemoryRuleSetDao(ruleSets),
+                // (the importers are not called here, but size the importer thread pool)
+                List.of(fake(Importer.class, Map.of())));
+        ImportReplayer importReplayer = new ImportReplayer(postImporter);
+        try {
+            ReplaySummary summary = importReplayer.replay(recordingPath, pacing);
+            double elapsedSecs = summary.elapsedMs() / 1000.0;
+            System.out.printf("Replayed %d bundles, %d posts (%d persisted) in %.1f s: %.0f posts/s%n",
+                    summary.bundleCt(), summary.postCt(), stagingPostDao.addCt.sum(), elapsedSecs, summary.postCt() / elapsedSecs);
+        } finally {
+            postImporter.importRecorder.preDestroy();
+            postImporter.preDestroy();
+        }
+    }
+}
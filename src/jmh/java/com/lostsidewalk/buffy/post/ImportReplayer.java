@@ -0,0 +1,103 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.DataConflictException;
+import com.lostsidewalk.buffy.DataUpdateException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static java.lang.System.nanoTime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Replays recorded import results (see {@link ImportRecorder}) through {@link PostImporter#processImportResults}, so
+ * that changes to dedup, rule evaluation or persistence can be measured against a production workload.
+ * <p>
+ * This is a harness class, not a component: a replay runs every rule action (web hooks included) as the original
+ * import did, so it must only be pointed at a post importer wired to throwaway DAOs and rule sets, as
+ * {@link ImportReplayHarness} does.
+ */
+final class ImportReplayer {
+
+    /**
+     * How recorded bundles are paced on replay.
+     */
+    enum ReplayPacing {
+        /**
+         * Each bundle is processed as soon as the previous one completes.
+         */
+        FULL_SPEED,
+        /**
+         * Each bundle is processed no sooner than it was captured, relative to the first bundle.
+         */
+        REAL_TIME,
+    }
+
+    /**
+     * The outcome of a replay.
+     *
+     * @param bundleCt  The number of bundles replayed.
+     * @param postCt    The number of staging posts replayed.
+     * @param elapsedMs The time taken by the replay, in milliseconds.
+     */
+    record ReplaySummary(long bundleCt, long postCt, long elapsedMs) {
+    }
+
+    private final PostImporter postImporter;
+
+    ImportReplayer(PostImporter postImporter) {
+        this.postImporter = postImporter;
+    }
+
+    /**
+     * Replay the given recording.  Note that the replayed posts are persisted (or skipped, if they already exist) like
+     * any other import.
+     *
+     * @param recordingPath The recording to replay.
+     * @param pacing        How the recorded bundles are paced.
+     * @return The outcome of the replay.
+     * @throws IOException           If the recording cannot be read.
+     * @throws DataAccessException   If there is an issue accessing the data.
+     * @throws DataUpdateException   If there is an issue updating the data.
+     * @throws DataConflictException If there is a duplicate key.
+     * @throws InterruptedException  If the replay is interrupted while pacing.
+     */
+    ReplaySummary replay(Path recordingPath, ReplayPacing pacing)
+            throws IOException, DataAccessException, DataUpdateException, DataConflictException, InterruptedException
+    {
+        long bundleCt = 0L;
+        long postCt = 0L;
+        long startNanos = nanoTime();
+        long firstCapturedAtMillis = -1L;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(recordingPath)), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isBlank(line)) {
+                    continue;
+                }
+                RecordedBundle recordedBundle = RecordedBundle.fromJson(line);
+                if (firstCapturedAtMillis < 0L) {
+                    firstCapturedAtMillis = recordedBundle.capturedAtMillis();
+                }
+                if (pacing == ReplayPacing.REAL_TIME) {
+                    long dueNanos = startNanos + (recordedBundle.capturedAtMillis() - firstCapturedAtMillis) * 1_000_000L;
+                    long waitNanos = dueNanos - nanoTime();
+                    if (waitNanos > 0L) {
+                        NANOSECONDS.sleep(waitNanos);
+                    }
+                }
+                postImporter.processImportResults(recordedBundle.importResults());
+                bundleCt++;
+                postCt += recordedBundle.postCt();
+            }
+        }
+        return new ReplaySummary(bundleCt, postCt, NANOSECONDS.toMillis(nanoTime() - startNanos));
+    }
+}
@@ -0,0 +1,48 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.post.ImportScheduler.ImportSchedule;
+import com.lostsidewalk.buffy.subscription.SubscriptionMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.subscriptionMetrics;
+
+/**
+ * Measures {@link ImportScheduler#reschedule} of a single subscription over import histories of varying length, in
+ * which either the most recent import persisted something (i.e., the scan stops at once), or no import ever did
+ * (i.e., the whole history is scanned).  The history is handed over unsorted, as the DAO returns it.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportScheduleBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int historyLength;
+
+    @Param({"0", "100"})
+    int missPct;
+
+    private List<SubscriptionMetrics> history;
+
+    @Setup
+    public void setup() {
+        history = subscriptionMetrics(1L, historyLength, ImportSchedule.A.name, historyLength * missPct / 100);
+        Collections.shuffle(history, new Random(historyLength));
+    }
+
+    @Benchmark
+    public ImportSchedule reschedule() {
+        // (reschedule sorts in place, so each call gets its own unsorted copy)
+        return ImportScheduler.reschedule(1L, ImportSchedule.A, new ArrayList<>(history));
+    }
+}
@@ -0,0 +1,69 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.subscription.SubscriptionMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.stagingPosts;
+import static com.lostsidewalk.buffy.BenchmarkFixtures.subscriptionMetrics;
+
+/**
+ * Measures the grouping of a bundle's posts by subscription (with in-bundle dedup), keyed on the post objects (i.e.,
+ * hashing and comparing every field, contents included) versus keyed on the post hash, on content-heavy feeds.  Every
+ * post is imported twice, as when several importers return the same posts.  Run with {@code -prof gc} (the default in
+ * this build) for the allocation rate.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportSetGroupingBenchmark {
+
+    private static final int POST_CT = 2000;
+
+    private static final int SUBSCRIPTION_CT = 50;
+
+    @Param({"1024", "65536"})
+    int contentSize;
+
+    private List<StagingPost> bundle;
+
+    private Map<Long, List<SubscriptionMetrics>> metricsBySubscriptionId;
+
+    @Setup
+    public void setup() {
+        List<StagingPost> stagingPosts = stagingPosts(POST_CT, SUBSCRIPTION_CT, contentSize);
+        bundle = new ArrayList<>(2 * POST_CT);
+        bundle.addAll(stagingPosts);
+        bundle.addAll(stagingPosts);
+        metricsBySubscriptionId = new HashMap<>(SUBSCRIPTION_CT);
+        for (long subscriptionId = 1L; subscriptionId <= SUBSCRIPTION_CT; subscriptionId++) {
+            metricsBySubscriptionId.put(subscriptionId, subscriptionMetrics(subscriptionId, 1, "A", 0));
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Set<StagingPost>> groupByPost() {
+        Map<Long, Set<StagingPost>> importSetBySubscriptionId = new HashMap<>(SUBSCRIPTION_CT);
+        for (StagingPost stagingPost : bundle) {
+            importSetBySubscriptionId.computeIfAbsent(stagingPost.getSubscriptionId(), v -> new HashSet<>(32)).add(stagingPost);
+        }
+        return importSetBySubscriptionId;
+    }
+
+    @Benchmark
+    public Map<Long, SubscriptionImportSet> groupByPostHash() {
+        Map<Long, SubscriptionImportSet> importSetsBySubscriptionId = new HashMap<>(SUBSCRIPTION_CT);
+        for (StagingPost stagingPost : bundle) {
+            Long subscriptionId = stagingPost.getSubscriptionId();
+            importSetsBySubscriptionId.computeIfAbsent(subscriptionId, v -> new SubscriptionImportSet(metricsBySubscriptionId.get(v), List.of()))
+                    .add(stagingPost);
+        }
+        return importSetsBySubscriptionId;
+    }
+}
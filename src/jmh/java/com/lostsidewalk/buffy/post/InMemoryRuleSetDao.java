@@ -0,0 +1,49 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.rule.RuleSet;
+import com.lostsidewalk.buffy.rule.RuleSetDao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.fake;
+
+/**
+ * In-memory rule set store, for load tests: every subscription has the default rule sets, unless given its own.
+ */
+class InMemoryRuleSetDao {
+
+    private final List<RuleSet> defaultRuleSets;
+
+    private final Map<Long, List<RuleSet>> ruleSetsBySubscriptionId = new ConcurrentHashMap<>(64);
+
+    InMemoryRuleSetDao(List<RuleSet> defaultRuleSets) {
+        this.defaultRuleSets = defaultRuleSets;
+    }
+
+    //
+    // the store, as seen by the post importer (methods other than these answer null, or zero)
+    //
+    final RuleSetDao asDao() {
+        return fake(RuleSetDao.class, Map.of(
+                "findBySubscriptionId", args -> findBySubscriptionId((Long) args[1])
+        ));
+    }
+
+    final void put(Long subscriptionId, List<RuleSet> ruleSets) {
+        ruleSetsBySubscriptionId.put(subscriptionId, ruleSets);
+    }
+
+    final List<RuleSet> findBySubscriptionId(Long subscriptionId) {
+        return ruleSetsBySubscriptionId.getOrDefault(subscriptionId, defaultRuleSets);
+    }
+
+    @Override
+    public final String toString() {
+        return "InMemoryRuleSetDao{" +
+                "defaultRuleSetCt=" + defaultRuleSets.size() +
+                ", ruleSetsBySubscriptionId=" + ruleSetsBySubscriptionId.keySet() +
+                '}';
+    }
+}
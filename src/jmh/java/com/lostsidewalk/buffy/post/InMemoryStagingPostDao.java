@@ -0,0 +1,57 @@
+package com.lostsidewalk.buffy.post;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.fake;
+
+/**
+ * In-memory staging post store, for load tests.  Only the post hashes are kept (i.e., enough to deduplicate), so that
+ * the heap reflects the import process rather than the store.
+ */
+class InMemoryStagingPostDao {
+
+    private final Set<String> postHashes = ConcurrentHashMap.newKeySet(1 << 16);
+
+    final LongAdder addCt = new LongAdder();
+
+    final LongAdder checkExistsCt = new LongAdder();
+
+    //
+    // the store, as seen by the post importer (methods other than these answer null, or zero)
+    //
+    final StagingPostDao asDao() {
+        return fake(StagingPostDao.class, Map.of(
+                "checkExists", args -> checkExists((String) args[0]),
+                "add", args -> {
+                    add((StagingPost) args[0]);
+                    return null;
+                }
+        ));
+    }
+
+    final boolean checkExists(String postHash) {
+        checkExistsCt.increment();
+        return postHashes.contains(postHash);
+    }
+
+    final void add(StagingPost stagingPost) {
+        postHashes.add(stagingPost.getPostHash());
+        addCt.increment();
+    }
+
+    final int size() {
+        return postHashes.size();
+    }
+
+    @Override
+    public final String toString() {
+        return "InMemoryStagingPostDao{" +
+                "size=" + postHashes.size() +
+                ", addCt=" + addCt +
+                ", checkExistsCt=" + checkExistsCt +
+                '}';
+    }
+}
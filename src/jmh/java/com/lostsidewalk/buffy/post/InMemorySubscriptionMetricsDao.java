@@ -0,0 +1,60 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.subscription.SubscriptionMetrics;
+import com.lostsidewalk.buffy.subscription.SubscriptionMetricsDao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.fake;
+
+/**
+ * In-memory subscription metrics store, for load tests.
+ */
+class InMemorySubscriptionMetricsDao {
+
+    // subscription Id -> import history, oldest first
+    private final Map<Long, List<SubscriptionMetrics>> metricsBySubscriptionId = new ConcurrentHashMap<>(1024);
+
+    private final AtomicLong idSeq = new AtomicLong();
+
+    //
+    // the store, as seen by the post importer and scheduler (methods other than these answer null, or zero)
+    //
+    final SubscriptionMetricsDao asDao() {
+        return fake(SubscriptionMetricsDao.class, Map.of(
+                "add", args -> add((SubscriptionMetrics) args[0]),
+                "findBySubscriptionId", args -> findBySubscriptionId((Long) args[1])
+        ));
+    }
+
+    final long add(SubscriptionMetrics subscriptionMetrics) {
+        List<SubscriptionMetrics> history = metricsBySubscriptionId.computeIfAbsent(subscriptionMetrics.getSubscriptionId(), s -> new ArrayList<>(64));
+        synchronized (history) {
+            history.add(subscriptionMetrics);
+        }
+        return idSeq.incrementAndGet();
+    }
+
+    final List<SubscriptionMetrics> findBySubscriptionId(Long subscriptionId) {
+        List<SubscriptionMetrics> history = metricsBySubscriptionId.getOrDefault(subscriptionId, List.of());
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    final long size() {
+        return idSeq.get();
+    }
+
+    @Override
+    public final String toString() {
+        return "InMemorySubscriptionMetricsDao{" +
+                "subscriptionCt=" + metricsBySubscriptionId.size() +
+                ", size=" + idSeq.get() +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.importer.Importer;
+import com.lostsidewalk.buffy.importer.Importer.ImportResult;
+import com.lostsidewalk.buffy.subscription.SubscriptionDefinition;
+import com.lostsidewalk.buffy.subscription.SubscriptionMetrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.*;
+import static java.lang.Math.exp;
+import static java.lang.Math.max;
+import static java.lang.Math.round;
+
+/**
+ * An importer serving synthetic feeds of the given shape.  The feeds of a bundle are fetched in parallel, i.e., each
+ * call takes as long as the slowest feed of the bundle.  On each import, the given share of a feed's posts are the
+ * posts of its previous import (a feed is a sliding window), and the rest are new.
+ */
+class SyntheticImporter {
+
+    private final String importerId;
+
+    private final FeedShape feedShape;
+
+    // subscription Id -> the posts of the previous import
+    private final Map<Long, List<StagingPost>> previousPostsBySubscriptionId = new ConcurrentHashMap<>(1024);
+
+    private final AtomicLong postSeq = new AtomicLong();
+
+    final LongAdder importedCt = new LongAdder();
+
+    final LongAdder failedFetchCt = new LongAdder();
+
+    SyntheticImporter(String importerId, FeedShape feedShape) {
+        this.importerId = importerId;
+        this.feedShape = feedShape;
+    }
+
+    //
+    // the importer, as seen by the post importer
+    //
+    final Importer asImporter() {
+        return fake(Importer.class, Map.of(
+                "getImporterId", args -> importerId,
+                "doImport", args -> {
+                    @SuppressWarnings("unchecked")
+                    List<SubscriptionDefinition> subscriptionDefinitions = (List<SubscriptionDefinition>) args[0];
+                    return doImport(subscriptionDefinitions);
+                }
+        ));
+    }
+
+    final ImportResult doImport(List<SubscriptionDefinition> subscriptionDefinitions) {
+        Random random = ThreadLocalRandom.current();
+        Date importTimestamp = new Date();
+        Set<StagingPost> importSet = new HashSet<>(subscriptionDefinitions.size() * feedShape.postCt());
+        List<SubscriptionMetrics> subscriptionMetrics = new ArrayList<>(subscriptionDefinitions.size());
+        long maxLatencyMs = 0L;
+        for (SubscriptionDefinition subscriptionDefinition : subscriptionDefinitions) {
+            maxLatencyMs = max(maxLatencyMs, sampleLatencyMs(random));
+            if (random.nextInt(100) < feedShape.failurePct()) {
+                failedFetchCt.increment();
+                subscriptionMetrics.add(subscriptionMetric(subscriptionDefinition.getId(), 0, subscriptionDefinition.getImportSchedule(), importTimestamp));
+                continue;
+            }
+            List<StagingPost> posts = fetch(random, subscriptionDefinition);
+            importSet.addAll(posts);
+            subscriptionMetrics.add(subscriptionMetric(subscriptionDefinition.getId(), posts.size(), subscriptionDefinition.getImportSchedule(), importTimestamp));
+        }
+        sleep(maxLatencyMs);
+        importedCt.add(importSet.size());
+        return importResult(importSet, subscriptionMetrics);
+    }
+
+    private List<StagingPost> fetch(Random random, SubscriptionDefinition subscriptionDefinition) {
+        long subscriptionId = subscriptionDefinition.getId();
+        List<StagingPost> previousPosts = previousPostsBySubscriptionId.getOrDefault(subscriptionId, List.of());
+        int carriedOverCt = Math.min(previousPosts.size(), feedShape.postCt() * feedShape.duplicatePct() / 100);
+        List<StagingPost> posts = new ArrayList<>(feedShape.postCt());
+        posts.addAll(previousPosts.subList(0, carriedOverCt));
+        while (posts.size() < feedShape.postCt()) {
+            posts.add(stagingPost(random, subscriptionId, subscriptionDefinition.getUsername(), postSeq.incrementAndGet(), feedShape.contentSize()));
+        }
+        previousPostsBySubscriptionId.put(subscriptionId, posts);
+        return posts;
+    }
+
+    private long sampleLatencyMs(Random random) {
+        return round(feedShape.latencyMedianMs() * exp(feedShape.latencySigma() * random.nextGaussian()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "SyntheticImporter{" +
+                "importerId='" + importerId + '\'' +
+                ", feedShape=" + feedShape +
+                ", importedCt=" + importedCt +
+                ", failedFetchCt=" + failedFetchCt +
+                '}';
+    }
+}
@@ -0,0 +1,72 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.post.StagingPostHistoryDao;
+import com.lostsidewalk.buffy.post.StagingPostPage;
+import com.lostsidewalk.buffy.rule.RuleCondition.ComparisonType;
+import com.lostsidewalk.buffy.rule.RuleCondition.FieldName;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.fake;
+import static com.lostsidewalk.buffy.BenchmarkFixtures.ruleSet;
+import static com.lostsidewalk.buffy.BenchmarkFixtures.stagingPosts;
+
+/**
+ * Measures {@link RuleBacktester#backtest} of a rule set against stored posts, read a page at a time from memory (so
+ * that only the evaluation is measured).  The rules compare the post contents, and do not match, so that every rule
+ * is evaluated against every post.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleBacktestBenchmark {
+
+    private static final int POST_CT = 100_000;
+
+    @Param({"10", "100"})
+    int ruleCt;
+
+    @Param({"CONTAINS", "EQ_REGEXP"})
+    ComparisonType comparisonType;
+
+    @Param({"1000", "10000"})
+    int pageSize;
+
+    private RuleBacktester ruleBacktester;
+
+    private RuleSet ruleSet;
+
+    @Setup
+    public void setup() {
+        List<StagingPost> stagingPosts = stagingPosts(POST_CT, 1, 1024);
+        // (the key of each post is its index, plus one)
+        Map<String, Function<Object[], Object>> answers = Map.of("findPosts", args -> {
+            int from = (int) Math.min((long) args[3], POST_CT);
+            int to = Math.min(from + (int) args[4], POST_CT);
+            return new StagingPostPage(stagingPosts.subList(from, to), to);
+        });
+        ruleBacktester = RuleEngines.newRuleBacktester(fake(StagingPostHistoryDao.class, answers), pageSize);
+        ruleSet = ruleSet(ruleCt, FieldName.CONTENTS, comparisonType);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ruleBacktester.preDestroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POST_CT)
+    public RuleBacktester.BacktestResult backtest() throws DataAccessException {
+        return ruleBacktester.backtest(ruleSet, "user1", 1L, 1L, 10);
+    }
+}
@@ -0,0 +1,50 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.lostsidewalk.buffy.post.StagingPostHistoryDao;
+
+/**
+ * Wires up the rules engine outside of Spring, for the benchmarks.  Rule actions are limited to post status updates,
+ * i.e., the web hook dispatcher is not wired.
+ */
+public final class RuleEngines {
+
+    private RuleEngines() {
+    }
+
+    /**
+     * Create a rule set executor, along with its own condition matcher and action handler.
+     *
+     * @return The rule set executor.
+     */
+    public static RuleSetExecutor newRuleSetExecutor() {
+        RuleSetExecutor ruleSetExecutor = new RuleSetExecutor();
+        ruleSetExecutor.ruleConditionMatcher = newRuleConditionMatcher();
+        ruleSetExecutor.ruleActionHandler = new RuleActionHandler();
+        return ruleSetExecutor;
+    }
+
+    /**
+     * Create a (started) rule backtester, along with its own condition matcher, reading stored posts from the given
+     * DAO.
+     *
+     * @param stagingPostHistoryDao The source of the stored posts.
+     * @param pageSize The number of posts read at a time.
+     * @return The rule backtester.
+     */
+    public static RuleBacktester newRuleBacktester(StagingPostHistoryDao stagingPostHistoryDao, int pageSize) {
+        RuleBacktester ruleBacktester = new RuleBacktester();
+        ruleBacktester.ruleConditionMatcher = newRuleConditionMatcher();
+        ruleBacktester.stagingPostHistoryDao = stagingPostHistoryDao;
+        ruleBacktester.configProps = new RuleBacktesterConfigProps();
+        ruleBacktester.configProps.setPageSize(pageSize);
+        ruleBacktester.postConstruct();
+        return ruleBacktester;
+    }
+
+    private static RuleConditionMatcher newRuleConditionMatcher() {
+        RuleConditionMatcher ruleConditionMatcher = new RuleConditionMatcher();
+        ruleConditionMatcher.ruleComparator = new RuleComparator();
+        ruleConditionMatcher.ruleConditionPlanner = new RuleConditionPlanner();
+        return ruleConditionMatcher;
+    }
+}
@@ -0,0 +1,76 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.rule.RuleCondition.ComparisonType;
+import com.lostsidewalk.buffy.rule.RuleCondition.FieldName;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.ruleSet;
+import static com.lostsidewalk.buffy.BenchmarkFixtures.stagingPosts;
+
+/**
+ * Measures {@link RuleSetExecutor#execute} of a rule set against a batch of posts, across rule counts, comparison
+ * types and post content sizes.  The rules compare the post contents, and do not match, so that every rule is
+ * evaluated against every post.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleSetExecutionBenchmark {
+
+    private static final int POST_CT = 100;
+
+    @Param({"1", "10", "100"})
+    int ruleCt;
+
+    @Param({"EQ_LITERAL", "CONTAINS", "EQ_REGEXP"})
+    ComparisonType comparisonType;
+
+    @Param({"256", "16384"})
+    int contentSize;
+
+    private RuleSetExecutor ruleSetExecutor;
+
+    private RuleSet ruleSet;
+
+    private List<StagingPost> stagingPosts;
+
+    @Setup
+    public void setup() {
+        ruleSetExecutor = RuleEngines.newRuleSetExecutor();
+        ruleSet = ruleSet(ruleCt, FieldName.CONTENTS, comparisonType);
+        stagingPosts = stagingPosts(POST_CT, 1, contentSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POST_CT)
+    public void execute() {
+        for (StagingPost stagingPost : stagingPosts) {
+            ruleSetExecutor.execute(ruleSet, stagingPost);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POST_CT)
+    public void executeMemoized() {
+        // (one memo per import run, as in the import pipeline)
+        RuleEvaluationMemo ruleEvaluationMemo = new RuleEvaluationMemo();
+        for (StagingPost stagingPost : stagingPosts) {
+            ruleSetExecutor.execute(ruleSet, stagingPost, ruleEvaluationMemo);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POST_CT)
+    public void executeBatch() {
+        // (the whole batch at once, as in the rule evaluation stage of the import pipeline)
+        ruleSetExecutor.execute(ruleSet, stagingPosts, null);
+    }
+}
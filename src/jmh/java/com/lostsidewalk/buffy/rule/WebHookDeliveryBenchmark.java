@@ -0,0 +1,89 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.lostsidewalk.buffy.rule.WebHookUtils.newHttpClient;
+import static com.lostsidewalk.buffy.rule.WebHookUtils.postWebHook;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+/**
+ * Measures web hook delivery through the shared HTTP client against a local stub server, with a varying number of
+ * requests in flight at once (one at a time being the old, blocking behavior).
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebHookDeliveryBenchmark {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    @Param({"1", "16", "128"})
+    int inFlightCt;
+
+    @Param({"1024", "65536"})
+    int payloadSize;
+
+    private HttpServer stubServer;
+
+    private ExecutorService stubServerPool;
+
+    private ExecutorService clientPool;
+
+    private HttpClient httpClient;
+
+    private WebHookRequest webHookRequest;
+
+    @Setup
+    public void setup() throws IOException {
+        stubServerPool = newFixedThreadPool(8);
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        stubServer.createContext("/hook", exchange -> {
+            try (InputStream requestBody = exchange.getRequestBody()) {
+                requestBody.transferTo(OutputStream.nullOutputStream());
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        stubServer.setExecutor(stubServerPool);
+        stubServer.start();
+        clientPool = newFixedThreadPool(4);
+        httpClient = newHttpClient(Duration.ofSeconds(5), clientPool);
+        String url = "http://127.0.0.1:" + stubServer.getAddress().getPort() + "/hook";
+        webHookRequest = new WebHookRequest(url, WebHookPayload.ofJson(("\"" + "x".repeat(payloadSize - 2) + "\"").getBytes(UTF_8)), null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stubServer.stop(0);
+        stubServerPool.shutdownNow();
+        clientPool.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(128)
+    public void delivery() {
+        CompletableFuture<?>[] inFlight = new CompletableFuture<?>[inFlightCt];
+        for (int i = 0; i < 128; i += inFlightCt) {
+            for (int j = 0; j < inFlightCt; j++) {
+                inFlight[j] = postWebHook(httpClient, webHookRequest, "benchmark", REQUEST_TIMEOUT, 0, false);
+            }
+            CompletableFuture.allOf(inFlight).join();
+        }
+    }
+}
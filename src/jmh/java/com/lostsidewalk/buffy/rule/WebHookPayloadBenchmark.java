@@ -0,0 +1,60 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.google.gson.Gson;
+import com.lostsidewalk.buffy.post.StagingPost;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.lostsidewalk.buffy.BenchmarkFixtures.stagingPosts;
+
+/**
+ * Measures the serialization of web hook payloads: encoding a post as JSON, compressing it, and joining the payloads
+ * of a batch into a single JSON array.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebHookPayloadBenchmark {
+
+    private static final Gson GSON = new Gson();
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"256", "16384"})
+    int contentSize;
+
+    private StagingPost stagingPost;
+
+    private List<WebHookPayload> batch;
+
+    @Setup
+    public void setup() {
+        List<StagingPost> stagingPosts = stagingPosts(BATCH_SIZE, 1, contentSize);
+        stagingPost = stagingPosts.get(0);
+        batch = stagingPosts.stream()
+                .map(p -> WebHookPayload.toJson(GSON, p))
+                .toList();
+    }
+
+    @Benchmark
+    public WebHookPayload toJson() {
+        return WebHookPayload.toJson(GSON, stagingPost);
+    }
+
+    @Benchmark
+    public Object toJsonGzipped() {
+        // (a new payload each time, since the compressed form is computed once per payload)
+        return WebHookPayload.toJson(GSON, stagingPost).gzipBodyPublisher();
+    }
+
+    @Benchmark
+    public WebHookPayload ofJsonArray() {
+        return WebHookPayload.ofJsonArray(batch);
+    }
+}
@@ -0,0 +1,189 @@
+package com.lostsidewalk.buffy.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+
+/**
+ * Configuration properties class for configuring cluster coordination settings.
+ * This class is used to enable sharding of imports (and single-node maintenance) across several importer nodes, and
+ * to time the heartbeats and leases that coordinate them.
+ */
+@Slf4j
+@Configuration
+@ConfigurationProperties("newsgears.cluster")
+public class ClusterConfigProps {
+
+    boolean enabled;
+
+    String nodeId;
+
+    long heartbeatIntervalMs = 10_000L;
+
+    long nodeTtlMs = 30_000L;
+
+    long leaseTtlMs = 60_000L;
+
+    int virtualNodeCt = 64;
+
+    boolean createSchema;
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    ClusterConfigProps() {
+    }
+
+    /**
+     * Whether cluster coordination is enabled; when disabled (the default), this node imports every subscription and
+     * runs every singleton job.
+     *
+     * @return True if cluster coordination is enabled.
+     */
+    public final boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set whether cluster coordination is enabled.
+     *
+     * @param enabled True to enable cluster coordination.
+     */
+    @SuppressWarnings("unused")
+    public final void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Identifier of this node, unique in the cluster; blank (the default) generates one at startup.
+     *
+     * @return The node Id.
+     */
+    public final String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Set the identifier of this node, unique in the cluster; blank generates one at startup.
+     *
+     * @param nodeId The node Id.
+     */
+    @SuppressWarnings("unused")
+    public final void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Interval (in milliseconds) between heartbeats, which renew this node's membership and refresh the set of live
+     * nodes.
+     *
+     * @return The heartbeat interval.
+     */
+    public final long getHeartbeatIntervalMs() {
+        return heartbeatIntervalMs;
+    }
+
+    /**
+     * Set the interval (in milliseconds) between heartbeats.
+     *
+     * @param heartbeatIntervalMs The heartbeat interval.
+     */
+    @SuppressWarnings("unused")
+    public final void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+    }
+
+    /**
+     * Time (in milliseconds) after its last heartbeat that a node is considered gone, and its share of the
+     * subscriptions is taken over by the remaining nodes.
+     *
+     * @return The node TTL.
+     */
+    public final long getNodeTtlMs() {
+        return nodeTtlMs;
+    }
+
+    /**
+     * Set the time (in milliseconds) after its last heartbeat that a node is considered gone.
+     *
+     * @param nodeTtlMs The node TTL.
+     */
+    @SuppressWarnings("unused")
+    public final void setNodeTtlMs(long nodeTtlMs) {
+        this.nodeTtlMs = nodeTtlMs;
+    }
+
+    /**
+     * Time (in milliseconds) for which a singleton job lease is held without renewal; leases are renewed while the
+     * job runs, so this only bounds how long a crashed node keeps the job.
+     *
+     * @return The lease TTL.
+     */
+    public final long getLeaseTtlMs() {
+        return leaseTtlMs;
+    }
+
+    /**
+     * Set the time (in milliseconds) for which a singleton job lease is held without renewal.
+     *
+     * @param leaseTtlMs The lease TTL.
+     */
+    @SuppressWarnings("unused")
+    public final void setLeaseTtlMs(long leaseTtlMs) {
+        this.leaseTtlMs = leaseTtlMs;
+    }
+
+    /**
+     * Number of points each node occupies on the consistent hash ring over subscription Ids.
+     *
+     * @return The virtual node count.
+     */
+    public final int getVirtualNodeCt() {
+        return virtualNodeCt;
+    }
+
+    /**
+     * Set the number of points each node occupies on the consistent hash ring over subscription Ids.
+     *
+     * @param virtualNodeCt The virtual node count.
+     */
+    @SuppressWarnings("unused")
+    public final void setVirtualNodeCt(int virtualNodeCt) {
+        this.virtualNodeCt = virtualNodeCt;
+    }
+
+    /**
+     * Whether the coordinator creates the cluster membership, lease and job cursor tables on startup, if they do not
+     * exist; when disabled (the default), they must have been created beforehand.
+     *
+     * @return True if the coordinator creates its tables.
+     */
+    public final boolean isCreateSchema() {
+        return createSchema;
+    }
+
+    /**
+     * Set whether the coordinator creates the cluster membership, lease and job cursor tables on startup, if they do
+     * not exist.
+     *
+     * @param createSchema True to create the tables.
+     */
+    @SuppressWarnings("unused")
+    public final void setCreateSchema(boolean createSchema) {
+        this.createSchema = createSchema;
+    }
+
+    @Override
+    public final String toString() {
+        return "ClusterConfigProps{" +
+                "enabled=" + enabled +
+                ", nodeId='" + nodeId + '\'' +
+                ", heartbeatIntervalMs=" + heartbeatIntervalMs +
+                ", nodeTtlMs=" + nodeTtlMs +
+                ", leaseTtlMs=" + leaseTtlMs +
+                ", virtualNodeCt=" + virtualNodeCt +
+                ", createSchema=" + createSchema +
+                '}';
+    }
+}
@@ -0,0 +1,351 @@
+package com.lostsidewalk.buffy.cluster;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Component responsible for coordinating several importer nodes through the database.  Each node heartbeats a
+ * membership row; subscriptions are sharded across the live nodes by a consistent hash ring over subscription Ids,
+ * and singleton jobs (such as rescheduling and purging) run under a lease row, so that exactly one node runs each at
+ * a time.  When cluster coordination is disabled, this node owns every subscription and runs every job.
+ * <p>
+ * A change in membership is seen by each node at its next heartbeat, so for up to one heartbeat interval a
+ * subscription may be imported by two nodes (the second import finds the posts already staged) or by none.
+ * <p>
+ * Leases are renewed on their own threads, apart from the heartbeat, so that a slow heartbeat cannot let a lease
+ * lapse.  A job is handed its {@link Lease}, and should check that it is still held between units of work (e.g.,
+ * between chunks), stopping once it is not: a lease that could not be renewed within its TTL may already have been
+ * taken over by another node.  A chunked job keeps its cursor in the database (see {@link #getJobCursor(String)}),
+ * saved only while its lease is held, so that whichever node runs the job next resumes where it left off.
+ */
+@Slf4j
+@Component
+public class ClusterCoordinator {
+
+    @Autowired
+    ClusterConfigProps configProps;
+
+    @Autowired(required = false)
+    JdbcTemplate jdbcTemplate;
+
+    private ClusterLeaseDao clusterLeaseDao;
+
+    private String nodeId;
+
+    private volatile ConsistentHashRing ring;
+
+    private volatile Set<String> ringNodeIds = Set.of();
+
+    private volatile long lastHeartbeatMs;
+
+    private ScheduledExecutorService heartbeatScheduler;
+
+    private ScheduledExecutorService leaseRenewalScheduler;
+
+    // the number of lease renewal threads (singleton jobs may run concurrently, on the maintenance threads)
+    private static final int LEASE_RENEWAL_THREAD_CT = 2;
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    ClusterCoordinator() {
+    }
+
+    /**
+     * Initializes the ClusterCoordinator after construction.
+     * When cluster coordination is enabled, it creates the membership, lease and job cursor tables if so configured,
+     * joins the cluster and starts heartbeating.
+     */
+    @PostConstruct
+    protected final void postConstruct() {
+        if (!configProps.isEnabled()) {
+            log.info("Cluster coordination disabled, this node imports every subscription and runs every job");
+            return;
+        }
+        if (jdbcTemplate == null) {
+            throw new IllegalStateException("Cluster coordination is enabled, but no JdbcTemplate is available");
+        }
+        nodeId = isBlank(configProps.getNodeId()) ? generateNodeId() : configProps.getNodeId();
+        clusterLeaseDao = new ClusterLeaseDao(jdbcTemplate);
+        if (configProps.isCreateSchema()) {
+            clusterLeaseDao.createSchema();
+        }
+        heartbeat();
+        heartbeatScheduler = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("cluster-heartbeat-%d").setDaemon(true).build());
+        heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, configProps.getHeartbeatIntervalMs(), configProps.getHeartbeatIntervalMs(), MILLISECONDS);
+        leaseRenewalScheduler = newScheduledThreadPool(LEASE_RENEWAL_THREAD_CT, new ThreadFactoryBuilder().setNameFormat("cluster-lease-renewal-%d").setDaemon(true).build());
+        log.info("Joined cluster, nodeId={}, ring={}", nodeId, ring);
+    }
+
+    @PreDestroy
+    final void preDestroy() {
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.shutdownNow();
+            leaseRenewalScheduler.shutdownNow();
+            try {
+                // leave gracefully, so that the other nodes take over this node's share at their next heartbeat
+                clusterLeaseDao.deleteNode(nodeId);
+            } catch (RuntimeException e) {
+                log.warn("Unable to leave cluster, nodeId={}: {}", nodeId, e.getMessage());
+            }
+        }
+    }
+
+    private static String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + '-' + UUID.randomUUID();
+    }
+
+    //
+    // renews this node's membership, and rebuilds the ring from the live nodes; on failure, the previous ring is kept
+    //
+    private void heartbeat() {
+        try {
+            clusterLeaseDao.heartbeat(nodeId);
+            clusterLeaseDao.purgeDeadNodes(10L * configProps.getNodeTtlMs());
+            Set<String> liveNodeIds = new TreeSet<>(clusterLeaseDao.findLiveNodes(configProps.getNodeTtlMs()));
+            liveNodeIds.add(nodeId);
+            ConsistentHashRing newRing = new ConsistentHashRing(liveNodeIds, configProps.getVirtualNodeCt());
+            if (!liveNodeIds.equals(ringNodeIds)) {
+                log.info("Cluster membership changed, nodeId={}, liveNodeIds={}", nodeId, liveNodeIds);
+            }
+            ring = newRing;
+            ringNodeIds = liveNodeIds;
+            lastHeartbeatMs = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            log.error("Cluster heartbeat failed, nodeId={}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Determine whether cluster coordination is enabled.
+     *
+     * @return True if this node has joined a cluster.
+     */
+    public final boolean isEnabled() {
+        return clusterLeaseDao != null;
+    }
+
+    /**
+     * Determine whether this node is responsible for importing the given subscription.
+     *
+     * @param subscriptionId The subscription Id.
+     * @return True if this node owns the subscription (always, when cluster coordination is disabled).
+     */
+    public final boolean isOwner(long subscriptionId) {
+        ConsistentHashRing r = ring;
+        return r == null || nodeId.equals(r.nodeFor(subscriptionId));
+    }
+
+    /**
+     * A job that must not run on more than one node at a time.
+     *
+     * @param <T> The type of the job's result.
+     * @param <E> The type of exception thrown by the job.
+     */
+    @FunctionalInterface
+    public interface SingletonJob<T, E extends Exception> {
+        /**
+         * Run the job.
+         *
+         * @param lease The job's lease, which a long-running job should check between units of work.
+         * @return The job's result.
+         * @throws E If the job fails.
+         */
+        T run(Lease lease) throws E;
+    }
+
+    /**
+     * The lease of a running singleton job, as last seen by this node.
+     */
+    public static final class Lease {
+
+        // the lease handed to jobs when cluster coordination is disabled
+        private static final Lease UNCONTESTED = new Lease(null, Long.MAX_VALUE);
+
+        private final String name;
+
+        private final long ttlNanos;
+
+        // when (per System.nanoTime()) the last successful acquire or renewal was sent; the lease is held until at
+        // least its TTL after that
+        private volatile long renewedNanos;
+
+        private volatile boolean isLost;
+
+        private Lease(String name, long ttlNanos) {
+            this.name = name;
+            this.ttlNanos = ttlNanos;
+        }
+
+        /**
+         * Determine whether this node still holds the lease, i.e., whether it has been renewed within its TTL, and
+         * not been found taken over.
+         *
+         * @return True if the job may carry on.
+         */
+        public final boolean isHeld() {
+            return this == UNCONTESTED || (!isLost && nanoTime() - renewedNanos < ttlNanos);
+        }
+
+        @Override
+        public final String toString() {
+            return "Lease{" +
+                    "name='" + name + '\'' +
+                    ", isHeld=" + isHeld() +
+                    '}';
+        }
+    }
+
+    /**
+     * Run the given job on this node, unless another node is running it; the job's lease is renewed while it runs,
+     * and released when it completes.
+     *
+     * @param jobName The name of the job (i.e., of its lease).
+     * @param job     The job to run.
+     * @param <T>     The type of the job's result.
+     * @param <E>     The type of exception thrown by the job.
+     * @return The job's result, or empty if another node holds the job's lease.
+     * @throws E If the job fails.
+     */
+    public final <T, E extends Exception> Optional<T> runSingleton(String jobName, SingletonJob<T, E> job) throws E {
+        if (clusterLeaseDao == null) {
+            return Optional.ofNullable(job.run(Lease.UNCONTESTED));
+        }
+        long leaseTtlMs = configProps.getLeaseTtlMs();
+        Lease lease = new Lease(jobName, MILLISECONDS.toNanos(leaseTtlMs));
+        long acquireNanos = nanoTime();
+        if (!clusterLeaseDao.acquireLease(jobName, nodeId, leaseTtlMs)) {
+            log.info("Skipping singleton job={}, its lease is held by another node", jobName);
+            return Optional.empty();
+        }
+        lease.renewedNanos = acquireNanos;
+        long renewIntervalMs = Math.max(1L, leaseTtlMs / 3L);
+        ScheduledFuture<?> renewal = leaseRenewalScheduler.scheduleWithFixedDelay(() -> renewLease(lease, leaseTtlMs), renewIntervalMs, renewIntervalMs, MILLISECONDS);
+        try {
+            return Optional.ofNullable(job.run(lease));
+        } finally {
+            renewal.cancel(false);
+            if (!lease.isLost) {
+                try {
+                    clusterLeaseDao.releaseLease(jobName, nodeId);
+                } catch (RuntimeException e) {
+                    log.warn("Unable to release lease for singleton job={}, it expires in {}ms: {}", jobName, leaseTtlMs, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the saved cursor of a chunked singleton job.  In a cluster, job cursors are kept in the database, since the
+     * job (i.e., its lease) may move from one node to another between runs, or while it runs.  Failure to read the
+     * cursor is logged, and only costs the job its place.
+     *
+     * @param cursorName The name of the cursor.
+     * @return The cursor, or zero if there is none.
+     * @throws IllegalStateException If cluster coordination is disabled.
+     */
+    public final long getJobCursor(String cursorName) {
+        if (clusterLeaseDao == null) {
+            throw new IllegalStateException("Cluster coordination is disabled");
+        }
+        try {
+            return clusterLeaseDao.findJobCursor(cursorName);
+        } catch (RuntimeException e) {
+            log.warn("Unable to read job cursor={}, starting from the beginning: {}", cursorName, e.getMessage());
+            return 0L;
+        }
+    }
+
+    /**
+     * Save the cursor of a chunked singleton job, unless this node no longer holds the job's lease (in which case the
+     * cursor belongs to the node that took the job over).  Failure to save the cursor is logged.
+     *
+     * @param lease      The job's lease.
+     * @param cursorName The name of the cursor.
+     * @param cursor     The cursor.
+     * @return True if the cursor was saved.
+     * @throws IllegalStateException If cluster coordination is disabled.
+     */
+    public final boolean putJobCursor(Lease lease, String cursorName, long cursor) {
+        if (clusterLeaseDao == null) {
+            throw new IllegalStateException("Cluster coordination is disabled");
+        }
+        try {
+            return clusterLeaseDao.putJobCursor(cursorName, cursor, lease.name, nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Unable to save job cursor={}: {}", cursorName, e.getMessage());
+            return false;
+        }
+    }
+
+    private void renewLease(Lease lease, long leaseTtlMs) {
+        if (lease.isLost) {
+            return;
+        }
+        long renewNanos = nanoTime();
+        try {
+            if (clusterLeaseDao.renewLease(lease.name, nodeId, leaseTtlMs)) {
+                lease.renewedNanos = renewNanos;
+            } else {
+                lease.isLost = true;
+                log.error("Lost lease for singleton job={}, another node may have taken it over; the job should stop", lease.name);
+            }
+        } catch (RuntimeException e) {
+            // (the lease may still be held; the job carries on until the lease's TTL has passed since the last renewal)
+            log.error("Unable to renew lease for singleton job={}: {}", lease.name, e.getMessage());
+        }
+    }
+
+    /**
+     * Check the health of the cluster coordinator.
+     *
+     * @return A Health object indicating whether this node's heartbeat is current.
+     */
+    @SuppressWarnings("unused")
+    public final Health health() {
+        if (clusterLeaseDao == null) {
+            return Health.up().withDetail("clusterEnabled", false).build();
+        }
+        long heartbeatAgeMs = System.currentTimeMillis() - lastHeartbeatMs;
+        Health.Builder builder = heartbeatAgeMs < configProps.getNodeTtlMs() ? Health.up() : Health.down();
+        return builder
+                .withDetail("clusterEnabled", true)
+                .withDetail("nodeId", nodeId)
+                .withDetail("heartbeatAgeMs", heartbeatAgeMs)
+                .withDetail("liveNodeIds", ringNodeIds)
+                .build();
+    }
+
+    @Override
+    public final String toString() {
+        return "ClusterCoordinator{" +
+                "configProps=" + configProps +
+                ", nodeId='" + nodeId + '\'' +
+                ", ring=" + ring +
+                '}';
+    }
+}
@@ -0,0 +1,129 @@
+package com.lostsidewalk.buffy.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Data access for the cluster membership, lease and job cursor tables.  Every timestamp is taken from the database clock, so
+ * that the nodes need not agree on the time.  The statements are PostgreSQL.
+ * <p>
+ * The tables are created by {@link #createSchema()}, which the coordinator runs on startup only when
+ * {@code newsgears.cluster.create-schema} is set; otherwise they must be created beforehand, by the same statements,
+ * along with the rest of the schema.
+ */
+@Slf4j
+class ClusterLeaseDao {
+
+    private static final String CREATE_NODE_TABLE_SQL =
+            "create table if not exists cluster_node (" +
+                    "node_id varchar(256) primary key, " +
+                    "heartbeat_at timestamp with time zone not null" +
+                    ")";
+
+    private static final String CREATE_LEASE_TABLE_SQL =
+            "create table if not exists cluster_lease (" +
+                    "lease_name varchar(256) primary key, " +
+                    "owner_node_id varchar(256) not null, " +
+                    "expires_at timestamp with time zone not null" +
+                    ")";
+
+    // the saved position of each chunked singleton job, so that a job taken over by another node resumes where it left off
+    private static final String CREATE_JOB_CURSOR_TABLE_SQL =
+            "create table if not exists cluster_job_cursor (" +
+                    "cursor_name varchar(256) primary key, " +
+                    "cursor_id bigint not null, " +
+                    "updated_at timestamp with time zone not null" +
+                    ")";
+
+    private static final String HEARTBEAT_SQL =
+            "insert into cluster_node (node_id, heartbeat_at) values (?, now()) " +
+                    "on conflict (node_id) do update set heartbeat_at = now()";
+
+    private static final String FIND_LIVE_NODES_SQL =
+            "select node_id from cluster_node where heartbeat_at > now() - (? * interval '1 millisecond')";
+
+    private static final String PURGE_DEAD_NODES_SQL =
+            "delete from cluster_node where heartbeat_at < now() - (? * interval '1 millisecond')";
+
+    private static final String DELETE_NODE_SQL =
+            "delete from cluster_node where node_id = ?";
+
+    // takes the lease if it is free, expired, or already held by this node (in which case it is renewed)
+    private static final String ACQUIRE_LEASE_SQL =
+            "insert into cluster_lease (lease_name, owner_node_id, expires_at) values (?, ?, now() + (? * interval '1 millisecond')) " +
+                    "on conflict (lease_name) do update set owner_node_id = excluded.owner_node_id, expires_at = excluded.expires_at " +
+                    "where cluster_lease.expires_at < now() or cluster_lease.owner_node_id = excluded.owner_node_id";
+
+    private static final String RENEW_LEASE_SQL =
+            "update cluster_lease set expires_at = now() + (? * interval '1 millisecond') where lease_name = ? and owner_node_id = ?";
+
+    private static final String RELEASE_LEASE_SQL =
+            "delete from cluster_lease where lease_name = ? and owner_node_id = ?";
+
+    private static final String FIND_JOB_CURSOR_SQL =
+            "select cursor_id from cluster_job_cursor where cursor_name = ?";
+
+    // saves the cursor only if the given node still holds the given lease
+    private static final String PUT_JOB_CURSOR_SQL =
+            "insert into cluster_job_cursor (cursor_name, cursor_id, updated_at) " +
+                    "select ?, ?, now() where exists (select 1 from cluster_lease where lease_name = ? and owner_node_id = ?) " +
+                    "on conflict (cursor_name) do update set cursor_id = excluded.cursor_id, updated_at = excluded.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ClusterLeaseDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    final void createSchema() {
+        jdbcTemplate.execute(CREATE_NODE_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_LEASE_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_JOB_CURSOR_TABLE_SQL);
+    }
+
+    final void heartbeat(String nodeId) {
+        jdbcTemplate.update(HEARTBEAT_SQL, nodeId);
+    }
+
+    final List<String> findLiveNodes(long nodeTtlMs) {
+        return jdbcTemplate.queryForList(FIND_LIVE_NODES_SQL, String.class, nodeTtlMs);
+    }
+
+    final int purgeDeadNodes(long deadAfterMs) {
+        return jdbcTemplate.update(PURGE_DEAD_NODES_SQL, deadAfterMs);
+    }
+
+    final void deleteNode(String nodeId) {
+        jdbcTemplate.update(DELETE_NODE_SQL, nodeId);
+    }
+
+    final boolean acquireLease(String leaseName, String nodeId, long leaseTtlMs) {
+        return jdbcTemplate.update(ACQUIRE_LEASE_SQL, leaseName, nodeId, leaseTtlMs) == 1;
+    }
+
+    final boolean renewLease(String leaseName, String nodeId, long leaseTtlMs) {
+        return jdbcTemplate.update(RENEW_LEASE_SQL, leaseTtlMs, leaseName, nodeId) == 1;
+    }
+
+    final void releaseLease(String leaseName, String nodeId) {
+        jdbcTemplate.update(RELEASE_LEASE_SQL, leaseName, nodeId);
+    }
+
+    final long findJobCursor(String cursorName) {
+        List<Long> cursors = jdbcTemplate.queryForList(FIND_JOB_CURSOR_SQL, Long.class, cursorName);
+        return cursors.isEmpty() ? 0L : cursors.get(0);
+    }
+
+    final boolean putJobCursor(String cursorName, long cursor, String leaseName, String nodeId) {
+        return jdbcTemplate.update(PUT_JOB_CURSOR_SQL, cursorName, cursor, leaseName, nodeId) == 1;
+    }
+
+    @Override
+    public final String toString() {
+        return "ClusterLeaseDao{" +
+                "jdbcTemplate=" + jdbcTemplate +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+package com.lostsidewalk.buffy.cluster;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Immutable consistent hash ring of node Ids, used to assign each subscription to exactly one live node.  Each node
+ * occupies a number of (virtual) points on the ring, so that when a node joins or leaves, only its share of the
+ * subscriptions moves.
+ */
+final class ConsistentHashRing {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    ConsistentHashRing(Collection<String> nodeIds, int virtualNodeCt) {
+        for (String nodeId : nodeIds) {
+            for (int i = 0; i < virtualNodeCt; i++) {
+                ring.put(HASH_FUNCTION.hashString(nodeId + '#' + i, UTF_8).asLong(), nodeId);
+            }
+        }
+    }
+
+    //
+    // the node owning the given key, i.e., the first node clockwise of its hash (or null if the ring is empty)
+    //
+    String nodeFor(long key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> e = ring.ceilingEntry(HASH_FUNCTION.hashLong(key).asLong());
+        return (e == null ? ring.firstEntry() : e).getValue();
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistentHashRing{" +
+                "pointCt=" + ring.size() +
+                ", nodeIds=" + ring.values().stream().distinct().sorted().toList() +
+                '}';
+    }
+}
@@ -0,0 +1,16 @@
+package com.lostsidewalk.buffy.post;
+
+/**
+ * Enumeration of the ways the staging post pipeline routes posts that are archived on import.
+ */
+public enum ArchiveRoutingPolicy {
+    /**
+     * Classify posts for archive before rule evaluation; archived posts skip rule evaluation (and so fire no web
+     * hooks), and go straight to persist.
+     */
+    ARCHIVE_FIRST,
+    /**
+     * Evaluate rules against every new post, archived or not.
+     */
+    EVALUATE_ALL,
+}
@@ -0,0 +1,169 @@
+package com.lostsidewalk.buffy.post;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Component responsible for tracking import freshness, i.e., the lag between the publication (or latest update) of a
+ * post and its arrival in the staging store.  The lag is recorded per import schedule (as a Micrometer timer, see
+ * {@link ImportMetrics}), and per subscription, over the most recently persisted posts of each, so that the worst
+ * lagging feeds can be reported.
+ * <p>
+ * Only posts published (or updated) since the previous import of their subscription are counted: older posts are
+ * backlog (e.g., the whole feed on its first import, or entries a feed re-publishes), whose lag says nothing about how
+ * promptly the feed is imported.  The previous import is known only to this process, so the first import of each
+ * subscription after startup counts no posts.  Subscriptions that are deleted (or move to another node) are dropped
+ * on the next scheduled import (see {@link #retainSubscriptions}).
+ */
+@Component
+class FreshnessTracker {
+
+    // the number of recent posts over which the lag of each subscription is tracked
+    private static final int WINDOW_SIZE = 64;
+
+    @Autowired
+    ImportMetrics importMetrics;
+
+    private final Map<Long, FeedLag> lagsBySubscriptionId = new ConcurrentHashMap<>(1024);
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    FreshnessTracker() {
+    }
+
+    //
+    // the publication or latest update time of a persisted post, and its lag (ms) to the persist time
+    //
+    record FreshnessSample(long latestMillis, long lagMs) {
+    }
+
+    //
+    // the freshness of the given post, persisted at the given time, or null if the post has neither timestamp
+    //
+    static FreshnessSample freshnessSample(StagingPost stagingPost, long persistedAtMillis) {
+        Date publishTimestamp = stagingPost.getPublishTimestamp();
+        Date lastUpdatedTimestamp = stagingPost.getLastUpdatedTimestamp();
+        if (publishTimestamp == null && lastUpdatedTimestamp == null) {
+            return null;
+        }
+        long latestMillis = Math.max(
+                publishTimestamp == null ? Long.MIN_VALUE : publishTimestamp.getTime(),
+                lastUpdatedTimestamp == null ? Long.MIN_VALUE : lastUpdatedTimestamp.getTime());
+        // (clock skew, or a feed that post-dates its posts)
+        return new FreshnessSample(latestMillis, Math.max(0L, persistedAtMillis - latestMillis));
+    }
+
+    //
+    // records the freshness of the posts persisted by an import (at the given time) of the given subscription
+    //
+    final void record(Long subscriptionId, String importSchedule, long importMillis, Collection<FreshnessSample> freshnessSamples) {
+        FeedLag feedLag = lagsBySubscriptionId.computeIfAbsent(subscriptionId, s -> new FeedLag());
+        synchronized (feedLag) {
+            long previousImportMillis = feedLag.lastImportMillis;
+            feedLag.lastImportMillis = importMillis;
+            if (previousImportMillis < 0L) {
+                // (the first import, every post of which is backlog)
+                return;
+            }
+            if (!Objects.equals(feedLag.importSchedule, importSchedule)) {
+                // a new schedule makes for a new lag
+                feedLag.reset(importSchedule);
+            }
+            for (FreshnessSample freshnessSample : freshnessSamples) {
+                if (freshnessSample.latestMillis() < previousImportMillis) {
+                    continue;
+                }
+                importMetrics.recordFreshnessLag(importSchedule, freshnessSample.lagMs());
+                feedLag.add(freshnessSample.lagMs());
+            }
+        }
+    }
+
+    //
+    // drops the lags of every subscription other than the given ones (i.e., those that this node still imports)
+    //
+    final void retainSubscriptions(Set<Long> subscriptionIds) {
+        lagsBySubscriptionId.keySet().retainAll(subscriptionIds);
+    }
+
+    //
+    // the lag of (at most) the given number of subscriptions, worst (by 90th percentile) first
+    //
+    final Map<String, Map<String, Object>> getWorstLaggingFeeds(int limit) {
+        Map<String, Map<String, Object>> worstLaggingFeeds = new LinkedHashMap<>(limit);
+        // (snapshot first, since the lags keep changing while they are sorted)
+        lagsBySubscriptionId.entrySet().stream()
+                .map(e -> e.getValue().snapshot(e.getKey()))
+                .filter(Objects::nonNull)
+                .toList().stream()
+                .sorted(Comparator.comparingLong(FeedLagSnapshot::p90LagSecs).reversed())
+                .limit(limit)
+                .forEach(s -> worstLaggingFeeds.put(String.valueOf(s.subscriptionId()), Map.of(
+                        "importSchedule", String.valueOf(s.importSchedule()),
+                        "postCt", s.postCt(),
+                        "p50LagSecs", s.p50LagSecs(),
+                        "p90LagSecs", s.p90LagSecs(),
+                        "maxLagSecs", s.maxLagSecs()
+                )));
+        return worstLaggingFeeds;
+    }
+
+    //
+    // the lags (in seconds) of the most recently persisted posts of a subscription; guarded by itself
+    //
+    private static final class FeedLag {
+
+        String importSchedule;
+
+        long lastImportMillis = -1L;
+
+        final int[] lagsSecs = new int[WINDOW_SIZE];
+
+        int size;
+
+        int next;
+
+        void reset(String importSchedule) {
+            this.importSchedule = importSchedule;
+            size = 0;
+            next = 0;
+        }
+
+        void add(long lagMs) {
+            lagsSecs[next] = (int) Math.min(Integer.MAX_VALUE, MILLISECONDS.toSeconds(lagMs));
+            next = (next + 1) % WINDOW_SIZE;
+            size = Math.min(size + 1, WINDOW_SIZE);
+        }
+
+        synchronized FeedLagSnapshot snapshot(Long subscriptionId) {
+            if (size == 0) {
+                return null;
+            }
+            int[] sorted = Arrays.copyOf(lagsSecs, size);
+            Arrays.sort(sorted);
+            return new FeedLagSnapshot(subscriptionId, importSchedule, size,
+                    percentile(sorted, 50), percentile(sorted, 90), sorted[sorted.length - 1]);
+        }
+
+        private static long percentile(int[] sorted, int percentile) {
+            return sorted[Math.max(0, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1)];
+        }
+    }
+
+    private record FeedLagSnapshot(Long subscriptionId, String importSchedule, int postCt, long p50LagSecs, long p90LagSecs, long maxLagSecs) {
+    }
+
+    @Override
+    public final String toString() {
+        return "FreshnessTracker{" +
+                "subscriptionCt=" + lagsBySubscriptionId.size() +
+                ", windowSize=" + WINDOW_SIZE +
+                '}';
+    }
+}
@@ -0,0 +1,39 @@
+package com.lostsidewalk.buffy.post;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event spanning the import of a single bundle of subscriptions, i.e., fetching it from every
+ * importer, then processing the import results.  Disabled unless the recording enables it (see {@code newsgears.jfc}).
+ */
+@Name("com.lostsidewalk.buffy.ImportBundle")
+@Label("Import Bundle")
+@Category({"NewsGears", "Import"})
+@Description("The import of a bundle of subscriptions, from fetch to persist")
+@Enabled(false)
+@StackTrace(false)
+class ImportBundleEvent extends jdk.jfr.Event {
+
+    @Label("Bundle Index")
+    int bundleIdx;
+
+    @Label("Subscription Count")
+    int subscriptionCt;
+
+    @Label("Import Result Count")
+    int importResultCt;
+
+    @Label("Fetch Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long fetchNanos;
+
+    @Label("Process Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long processNanos;
+}
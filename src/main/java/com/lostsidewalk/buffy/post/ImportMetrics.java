@@ -0,0 +1,151 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.post.PostImporter.StagingPostResolution;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Component responsible for the Micrometer meters of the import process, which are exported through the actuator:
+ * <ul>
+ *     <li>{@code newsgears.import.fetch} (timer, by importer): the time each importer takes to fetch a bundle;</li>
+ *     <li>{@code newsgears.import.bundle} (timer): the time taken to import and process a bundle;</li>
+ *     <li>{@code newsgears.import.posts} (counter, by resolution): the imported posts, by how they were resolved;</li>
+ *     <li>{@code newsgears.import.dedup.query} (timer): the latency of the existence check against the data source;</li>
+ *     <li>{@code newsgears.import.pipeline.stage} (timer, by stage): the time each pipeline stage spends on a post
+ *     (i.e., dedup, rule evaluation and persist latency);</li>
+ *     <li>{@code newsgears.import.pipeline.queue.depth} (gauge, by stage): the depth of the queue feeding each stage;</li>
+ *     <li>{@code newsgears.import.freshness.lag} (timer, by schedule): the lag between the publication (or latest
+ *     update) of each persisted post and its persistence;</li>
+ *     <li>the standard {@code executor.*} meters (queue depth, active count, etc.) of each import thread pool.</li>
+ * </ul>
+ * Timers publish percentile histograms, so that latency percentiles can be aggregated across nodes.
+ */
+@Slf4j
+@Component
+class ImportMetrics {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> fetchTimersByImporterId = new ConcurrentHashMap<>(4);
+
+    private final Map<String, Timer> freshnessLagTimersBySchedule = new ConcurrentHashMap<>(4);
+
+    private final Map<StagingPostResolution, Counter> postCountersByResolution = new EnumMap<>(StagingPostResolution.class);
+
+    private Timer bundleTimer;
+
+    private Timer dedupQueryTimer;
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    ImportMetrics() {
+    }
+
+    @PostConstruct
+    final void postConstruct() {
+        bundleTimer = Timer.builder("newsgears.import.bundle")
+                .description("Time taken to import and process a bundle of subscriptions")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        dedupQueryTimer = Timer.builder("newsgears.import.dedup.query")
+                .description("Latency of the staging post existence check")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        for (StagingPostResolution resolution : StagingPostResolution.values()) {
+            postCountersByResolution.put(resolution, Counter.builder("newsgears.import.posts")
+                    .description("Imported staging posts, by resolution")
+                    .tag("resolution", resolution.name())
+                    .baseUnit("posts")
+                    .register(meterRegistry));
+        }
+        log.info("Import metrics registered");
+    }
+
+    final void recordFetch(String importerId, long elapsedNanos) {
+        fetchTimersByImporterId.computeIfAbsent(importerId, i -> Timer.builder("newsgears.import.fetch")
+                .description("Time taken by an importer to fetch a bundle of subscriptions")
+                .tag("importer", i)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+        ).record(elapsedNanos, NANOSECONDS);
+    }
+
+    final void recordBundle(long elapsedNanos) {
+        bundleTimer.record(elapsedNanos, NANOSECONDS);
+    }
+
+    final void recordPosts(StagingPostResolution resolution, int postCt) {
+        if (postCt > 0) {
+            postCountersByResolution.get(resolution).increment(postCt);
+        }
+    }
+
+    final void recordDedupQuery(long elapsedNanos) {
+        dedupQueryTimer.record(elapsedNanos, NANOSECONDS);
+    }
+
+    final void recordFreshnessLag(String importSchedule, long lagMs) {
+        freshnessLagTimersBySchedule.computeIfAbsent(importSchedule == null ? "none" : importSchedule, s -> Timer.builder("newsgears.import.freshness.lag")
+                .description("Lag between the publication (or latest update) of a post and its persistence")
+                .tag("schedule", s)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+        ).record(lagMs, MILLISECONDS);
+    }
+
+    final Timer stageTimer(String stageName) {
+        return Timer.builder("newsgears.import.pipeline.stage")
+                .description("Time spent on a staging post by a pipeline stage")
+                .tag("stage", stageName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    final Timer stageBatchTimer(String stageName) {
+        return Timer.builder("newsgears.import.pipeline.stage.batch")
+                .description("Time spent on a batch of staging posts by a pipeline stage")
+                .tag("stage", stageName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    final void registerStageQueueDepth(ImportPipelineStage stage) {
+        Gauge.builder("newsgears.import.pipeline.queue.depth", stage, ImportPipelineStage::getQueueDepth)
+                .description("Depth of the queue feeding a staging post pipeline stage")
+                .tag("stage", stage.name)
+                .register(meterRegistry);
+    }
+
+    //
+    // binds the executor.* meters (queue depth, active count, completed tasks, etc.) of the given pool
+    //
+    final void registerThreadPool(ExecutorService threadPool, String name) {
+        new ExecutorServiceMetrics(threadPool, name, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    @Override
+    public final String toString() {
+        return "ImportMetrics{" +
+                "meterRegistry=" + meterRegistry +
+                ", importerCt=" + fetchTimersByImporterId.size() +
+                '}';
+    }
+}
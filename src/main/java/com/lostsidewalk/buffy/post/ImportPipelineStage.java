@@ -0,0 +1,88 @@
+package com.lostsidewalk.buffy.post;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Metrics for a single stage of the staging post pipeline: the depth of the queue feeding the stage, the number of
+ * posts it has processed, and its throughput (posts per second of time spent in the stage).  The time spent on each
+ * post is also recorded to the stage's timer, except by a stage that processes posts in batches, whose time is
+ * recorded once per batch to its batch timer (the time spent on a single post of a batch is not measured).
+ */
+class ImportPipelineStage {
+
+    final String name;
+
+    private final IntSupplier queueDepth;
+
+    // null if the stage processes posts in batches
+    private final Timer timer;
+
+    // null if the stage processes posts one at a time
+    private final Timer batchTimer;
+
+    private final LongAdder processedCt = new LongAdder();
+
+    private final LongAdder busyNanos = new LongAdder();
+
+    ImportPipelineStage(String name, IntSupplier queueDepth, Timer timer, Timer batchTimer) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+        this.timer = timer;
+        this.batchTimer = batchTimer;
+    }
+
+    //
+    // records the processing of one post by this stage, started at the given time (in nanos); returns the time taken
+    //
+    final long record(long startNanos) {
+        long elapsedNanos = nanoTime() - startNanos;
+        processedCt.increment();
+        busyNanos.add(elapsedNanos);
+        timer.record(elapsedNanos, NANOSECONDS);
+        return elapsedNanos;
+    }
+
+    //
+    // records the processing of a batch of the given number of posts by this stage, started at the given time (in
+    // nanos), as a single sample of the batch timer; returns the time taken
+    //
+    final long record(long startNanos, int postCt) {
+        long elapsedNanos = nanoTime() - startNanos;
+        if (postCt <= 0) {
+            return elapsedNanos;
+        }
+        processedCt.add(postCt);
+        busyNanos.add(elapsedNanos);
+        batchTimer.record(elapsedNanos, NANOSECONDS);
+        return elapsedNanos;
+    }
+
+    final int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    final long getProcessedCt() {
+        return processedCt.sum();
+    }
+
+    final double getThroughput() {
+        long busy = busyNanos.sum();
+        return busy == 0L ? 0.0 : processedCt.sum() * 1.0e9 / busy;
+    }
+
+    @Override
+    public final String toString() {
+        return "ImportPipelineStage{" +
+                "name='" + name + '\'' +
+                ", queueDepth=" + getQueueDepth() +
+                ", processedCt=" + getProcessedCt() +
+                ", throughput=" + String.format("%.1f", getThroughput()) +
+                '}';
+    }
+}
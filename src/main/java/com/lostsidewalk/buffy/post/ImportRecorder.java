@@ -0,0 +1,118 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.importer.Importer.ImportResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Component responsible for recording the import results of each bundle (when enabled), so that production imports
+ * can be replayed later by the import replay harness.  Each process writes its own gzip-compressed file of JSON lines
+ * (one line per bundle) to the recording directory, flushed after every bundle.  Failure to write a recording is
+ * logged, and stops the recording, but never the import.
+ */
+@Slf4j
+@Component
+class ImportRecorder {
+
+    private static final DateTimeFormatter FILE_NAME_FORMATTER = DateTimeFormatter.ofPattern("'import-results-'yyyyMMdd-HHmmss'.jsonl.gz'");
+
+    @Autowired
+    PostImporterConfigProps configProps;
+
+    // guarded by this
+    private Path recordingPath;
+
+    // guarded by this; null when not recording
+    private Writer writer;
+
+    // guarded by this
+    private long recordedBundleCt;
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    ImportRecorder() {
+    }
+
+    @PostConstruct
+    final synchronized void postConstruct() {
+        String recordingDir = configProps.getRecordingDir();
+        if (isBlank(recordingDir)) {
+            return;
+        }
+        recordingPath = Path.of(recordingDir).resolve(LocalDateTime.now().format(FILE_NAME_FORMATTER));
+        try {
+            Files.createDirectories(recordingPath.getParent());
+            // (sync flush, so that every completed bundle can be read back, even if the process dies)
+            writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(recordingPath), 8192, true), UTF_8));
+            log.info("Recording import results, recordingPath={}", recordingPath);
+        } catch (IOException e) {
+            log.warn("Unable to record import results, recordingPath={}: {}", recordingPath, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    final synchronized void preDestroy() {
+        close();
+    }
+
+    final synchronized boolean isRecording() {
+        return writer != null;
+    }
+
+    //
+    // records the import results of a bundle, before they are processed
+    //
+    final synchronized void record(List<? extends ImportResult> importResults) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            RecordedBundle.writeJson(System.currentTimeMillis(), importResults, writer);
+            writer.write('\n');
+            writer.flush();
+            recordedBundleCt++;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to record import results, recordingPath={}, stopping the recording: {}", recordingPath, e.getMessage());
+            close();
+        }
+    }
+
+    private void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Unable to close import result recording, recordingPath={}: {}", recordingPath, e.getMessage());
+            }
+            writer = null;
+            log.info("Stopped recording import results, recordingPath={}, recordedBundleCt={}", recordingPath, recordedBundleCt);
+        }
+    }
+
+    @Override
+    public final synchronized String toString() {
+        return "ImportRecorder{" +
+                "recordingPath=" + recordingPath +
+                ", isRecording=" + (writer != null) +
+                ", recordedBundleCt=" + recordedBundleCt +
+                '}';
+    }
+}
@@ -0,0 +1,30 @@
+package com.lostsidewalk.buffy.post;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning an import run, i.e., every bundle of the scheduled subscriptions.  Disabled unless
+ * the recording enables it (see {@code newsgears.jfc}).
+ */
+@Name("com.lostsidewalk.buffy.ImportRun")
+@Label("Import Run")
+@Category({"NewsGears", "Import"})
+@Description("An import run over the scheduled subscriptions")
+@Enabled(false)
+@StackTrace(false)
+class ImportRunEvent extends jdk.jfr.Event {
+
+    @Label("Subscription Count")
+    int subscriptionCt;
+
+    @Label("Importer Count")
+    int importerCt;
+
+    @Label("Bundle Count")
+    int bundleCt;
+}
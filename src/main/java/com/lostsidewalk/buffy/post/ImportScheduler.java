@@ -1,6 +1,7 @@
 package com.lostsidewalk.buffy.post;
 
 import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.cluster.ClusterCoordinator;
 import com.lostsidewalk.buffy.subscription.SubscriptionDefinition;
 import com.lostsidewalk.buffy.subscription.SubscriptionDefinitionDao;
 import com.lostsidewalk.buffy.subscription.SubscriptionMetrics;
@@ -92,6 +93,9 @@ public class ImportScheduler {
     @Autowired
     SubscriptionMetricsDao subscriptionMetricsDao;
 
+    @Autowired
+    ClusterCoordinator clusterCoordinator;
+
     /**
      * Default constructor; initializes the object.
      */
@@ -110,9 +114,17 @@ public class ImportScheduler {
     /**
      * Updates the import schedules of active subscriptions based on historical import metrics.
      * Evaluates subscription performance and adjusts import schedules accordingly.
+     * In a cluster, this runs on one node at a time.
      */
     @SuppressWarnings("unused")
     public final void update() {
+        clusterCoordinator.runSingleton("import-scheduler.update", lease -> {
+            doUpdate();
+            return null;
+        });
+    }
+
+    private void doUpdate() {
         try {
             List<SubscriptionDefinition> allActiveSubscriptions = subscriptionDefinitionDao.findAllActive();
             List<Object[]> updates = new ArrayList<>(size(allActiveSubscriptions));
@@ -132,7 +144,11 @@ public class ImportScheduler {
         }
     }
 
-    private static ImportSchedule reschedule(Long subscriptionId, ImportSchedule targetSchedule, List<? extends SubscriptionMetrics> subscriptionMetrics) {
+    //
+    // determines the new schedule of a subscription from its import history, or null to keep the current one; note
+    // that the given metrics are sorted in place
+    //
+    static ImportSchedule reschedule(Long subscriptionId, ImportSchedule targetSchedule, List<? extends SubscriptionMetrics> subscriptionMetrics) {
         // sort subscription metrics by most recent
         subscriptionMetrics.sort(comparing(SubscriptionMetrics::getImportTimestamp).reversed());
         int importMisses = 0;
@@ -168,6 +184,7 @@ public class ImportScheduler {
         return "ImportScheduler{" +
                 "subscriptionDefinitionDao=" + subscriptionDefinitionDao +
                 ", subscriptionMetricsDao=" + subscriptionMetricsDao +
+                ", clusterCoordinator=" + clusterCoordinator +
                 '}';
     }
 }
@@ -0,0 +1,36 @@
+package com.lostsidewalk.buffy.post;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the fetch of a single bundle by a single importer.  Disabled unless the recording
+ * enables it (see {@code newsgears.jfc}).
+ */
+@Name("com.lostsidewalk.buffy.ImporterTask")
+@Label("Importer Task")
+@Category({"NewsGears", "Import"})
+@Description("The fetch of a bundle of subscriptions by an importer")
+@Enabled(false)
+@StackTrace(false)
+class ImporterTaskEvent extends jdk.jfr.Event {
+
+    @Label("Importer Id")
+    String importerId;
+
+    @Label("Bundle Index")
+    int bundleIdx;
+
+    @Label("Subscription Count")
+    int subscriptionCt;
+
+    @Label("Post Count")
+    int postCt;
+
+    @Label("Failed")
+    boolean isFailed;
+}
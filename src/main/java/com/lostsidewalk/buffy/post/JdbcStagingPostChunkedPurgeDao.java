@@ -0,0 +1,58 @@
+package com.lostsidewalk.buffy.post;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Chunked purge (and mark) statements over the staging post table, used by the {@link PostPurger} when no other
+ * {@link StagingPostChunkedPurgeDao} is configured.  Each chunk selects the next keys after the cursor, in key order,
+ * and deletes (or updates) just those rows in a single statement, so that it holds its row locks for one chunk only.
+ * The statements are PostgreSQL.
+ */
+@Slf4j
+class JdbcStagingPostChunkedPurgeDao implements StagingPostChunkedPurgeDao {
+
+    private static final String PURGE_ARCHIVED_POSTS_SQL =
+            "with chunk as (" +
+                    "select id from staging_posts where id > ? and is_archived is true order by id limit ?" +
+                    "), purged as (" +
+                    "delete from staging_posts where id in (select id from chunk) returning id" +
+                    ") select count(*), coalesce(max(id), 0) from purged";
+
+    // unread (and read-later) posts age out after maxUnreadAge days, read posts after maxReadAge days
+    private static final String MARK_IDLE_POSTS_FOR_ARCHIVE_SQL =
+            "with chunk as (" +
+                    "select id from staging_posts where id > ? and is_archived is not true and (" +
+                    "(post_read_status is distinct from 'READ' and import_timestamp < now() - (? * interval '1 day')) or " +
+                    "(post_read_status = 'READ' and import_timestamp < now() - (? * interval '1 day'))" +
+                    ") order by id limit ?" +
+                    "), marked as (" +
+                    "update staging_posts set is_archived = true where id in (select id from chunk) returning id" +
+                    ") select count(*), coalesce(max(id), 0) from marked";
+
+    private static final RowMapper<PurgeChunk> PURGE_CHUNK_ROW_MAPPER = (rs, rowNum) -> new PurgeChunk(rs.getInt(1), rs.getLong(2));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    JdbcStagingPostChunkedPurgeDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public final PurgeChunk purgeArchivedPosts(long afterId, int limit) {
+        return jdbcTemplate.queryForObject(PURGE_ARCHIVED_POSTS_SQL, PURGE_CHUNK_ROW_MAPPER, afterId, limit);
+    }
+
+    @Override
+    public final PurgeChunk markIdlePostsForArchive(int maxUnreadAge, int maxReadAge, long afterId, int limit) {
+        return jdbcTemplate.queryForObject(MARK_IDLE_POSTS_FOR_ARCHIVE_SQL, PURGE_CHUNK_ROW_MAPPER, afterId, maxUnreadAge, maxReadAge, limit);
+    }
+
+    @Override
+    public final String toString() {
+        return "JdbcStagingPostChunkedPurgeDao{" +
+                "jdbcTemplate=" + jdbcTemplate +
+                '}';
+    }
+}
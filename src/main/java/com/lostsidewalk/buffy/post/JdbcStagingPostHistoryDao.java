@@ -0,0 +1,111 @@
+package com.lostsidewalk.buffy.post;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Paged reads of the staging post table, used by the rule backtester when no other {@link StagingPostHistoryDao} is
+ * configured.  Pages are keyset-paged (i.e., each starts after the greatest key of the previous one), so that every
+ * page costs the same however deep into the history it is.  Only the fields that rules are matched against, and those
+ * that identify the post, are read.  The statements are PostgreSQL.
+ */
+@Slf4j
+public class JdbcStagingPostHistoryDao implements StagingPostHistoryDao {
+
+    private static final String SELECT_COLUMNS =
+            "select id, post_hash, username, queue_id, subscription_id, importer_desc, post_url, post_title, post_desc, " +
+                    "post_contents, import_timestamp, post_pub_timestamp, post_last_updated_timestamp, post_read_status " +
+                    "from staging_posts ";
+
+    private static final String FIND_QUEUE_POSTS_SQL =
+            SELECT_COLUMNS + "where username = ? and queue_id = ? and id > ? order by id limit ?";
+
+    private static final String FIND_SUBSCRIPTION_POSTS_SQL =
+            SELECT_COLUMNS + "where username = ? and queue_id = ? and subscription_id = ? and id > ? order by id limit ?";
+
+    private static final Gson GSON = new GsonBuilder()
+            // (dates as epoch millis)
+            .registerTypeAdapter(Date.class, (JsonDeserializer<Date>) (json, type, ctx) -> new Date(json.getAsLong()))
+            .create();
+
+    private static final RowMapper<HistoryRow> HISTORY_ROW_MAPPER = (rs, rowNum) -> new HistoryRow(rs.getLong("id"), stagingPostOf(rs));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Construct a DAO over the staging post table of the given database.
+     *
+     * @param jdbcTemplate The database.
+     */
+    public JdbcStagingPostHistoryDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public final StagingPostPage findPosts(String username, Long queueId, Long subscriptionId, long afterId, int limit) {
+        List<HistoryRow> rows = subscriptionId == null ?
+                jdbcTemplate.query(FIND_QUEUE_POSTS_SQL, HISTORY_ROW_MAPPER, username, queueId, afterId, limit) :
+                jdbcTemplate.query(FIND_SUBSCRIPTION_POSTS_SQL, HISTORY_ROW_MAPPER, username, queueId, subscriptionId, afterId, limit);
+        List<StagingPost> stagingPosts = new ArrayList<>(rows.size());
+        rows.forEach(r -> stagingPosts.add(r.stagingPost()));
+        return new StagingPostPage(stagingPosts, rows.isEmpty() ? afterId : rows.get(rows.size() - 1).id());
+    }
+
+    //
+    // a staging post, and its key
+    //
+    private record HistoryRow(long id, StagingPost stagingPost) {
+    }
+
+    //
+    // builds the staging post of the current row, through its JSON form (the content columns are JSON already)
+    //
+    private static StagingPost stagingPostOf(ResultSet rs) throws SQLException {
+        JsonObject post = new JsonObject();
+        post.addProperty("id", rs.getLong("id"));
+        post.addProperty("postHash", rs.getString("post_hash"));
+        post.addProperty("username", rs.getString("username"));
+        post.addProperty("queueId", rs.getLong("queue_id"));
+        post.addProperty("subscriptionId", rs.getLong("subscription_id"));
+        post.addProperty("importerDesc", rs.getString("importer_desc"));
+        post.addProperty("postUrl", rs.getString("post_url"));
+        post.add("postTitle", jsonOf(rs.getString("post_title")));
+        post.add("postDesc", jsonOf(rs.getString("post_desc")));
+        post.add("postContents", jsonOf(rs.getString("post_contents")));
+        post.add("importTimestamp", millisOf(rs.getTimestamp("import_timestamp")));
+        post.add("publishTimestamp", millisOf(rs.getTimestamp("post_pub_timestamp")));
+        post.add("lastUpdatedTimestamp", millisOf(rs.getTimestamp("post_last_updated_timestamp")));
+        post.addProperty("postReadStatus", rs.getString("post_read_status"));
+        return GSON.fromJson(post, StagingPost.class);
+    }
+
+    private static JsonElement jsonOf(String json) {
+        return json == null ? null : JsonParser.parseString(json);
+    }
+
+    private static JsonElement millisOf(Timestamp timestamp) {
+        return timestamp == null ? null : new JsonPrimitive(timestamp.getTime());
+    }
+
+    @Override
+    public final String toString() {
+        return "JdbcStagingPostHistoryDao{" +
+                "jdbcTemplate=" + jdbcTemplate +
+                '}';
+    }
+}
@@ -0,0 +1,126 @@
+package com.lostsidewalk.buffy.post;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Rollup statements over the subscription metrics table, and the aggregate table they roll up into, used by the
+ * {@link PostPurger} when no other {@link SubscriptionMetricsRollupDao} is configured.  Each chunk selects the next
+ * keys after the cursor, in key order, then deletes just those rows and adds them to their aggregates in a single
+ * statement, so that a chunk is rolled up entirely or not at all.  The statements are PostgreSQL.
+ * <p>
+ * The aggregate table is created by {@link #createSchema()}, which the purger runs on startup only when
+ * {@code post.purger.create-schema} is set; otherwise the table (and its index) must be created beforehand, by the
+ * same statements, along with the rest of the schema.
+ */
+@Slf4j
+class JdbcSubscriptionMetricsRollupDao implements SubscriptionMetricsRollupDao {
+
+    // one row per subscription, granularity (HOURLY or DAILY), period and import schedule (empty for none)
+    private static final String CREATE_ROLLUP_TABLE_SQL =
+            "create table if not exists subscription_metrics_rollup (" +
+                    "id bigserial primary key, " +
+                    "subscription_id bigint not null, " +
+                    "granularity varchar(16) not null, " +
+                    "period_start timestamp not null, " +
+                    "import_schedule varchar(64) not null, " +
+                    "run_ct bigint not null, " +
+                    "error_ct bigint not null, " +
+                    "miss_ct bigint not null, " +
+                    "import_ct bigint not null, " +
+                    "persist_ct bigint not null, " +
+                    "skip_ct bigint not null, " +
+                    "archive_ct bigint not null, " +
+                    "unique (subscription_id, granularity, period_start, import_schedule)" +
+                    ")";
+
+    private static final String CREATE_ROLLUP_SUBSCRIPTION_INDEX_SQL =
+            "create index if not exists subscription_metrics_rollup_subscription_id_idx on subscription_metrics_rollup (subscription_id)";
+
+    // adds the rolled-up counts to those of the existing aggregate of the period, if any
+    private static final String ON_CONFLICT_ADD_SQL =
+            "on conflict (subscription_id, granularity, period_start, import_schedule) do update set " +
+                    "run_ct = subscription_metrics_rollup.run_ct + excluded.run_ct, " +
+                    "error_ct = subscription_metrics_rollup.error_ct + excluded.error_ct, " +
+                    "miss_ct = subscription_metrics_rollup.miss_ct + excluded.miss_ct, " +
+                    "import_ct = subscription_metrics_rollup.import_ct + excluded.import_ct, " +
+                    "persist_ct = subscription_metrics_rollup.persist_ct + excluded.persist_ct, " +
+                    "skip_ct = subscription_metrics_rollup.skip_ct + excluded.skip_ct, " +
+                    "archive_ct = subscription_metrics_rollup.archive_ct + excluded.archive_ct";
+
+    private static final String INSERT_ROLLUP_SQL =
+            "insert into subscription_metrics_rollup (subscription_id, granularity, period_start, import_schedule, " +
+                    "run_ct, error_ct, miss_ct, import_ct, persist_ct, skip_ct, archive_ct) ";
+
+    // a miss is a successful import that persisted nothing (as counted by rescheduling)
+    private static final String ROLL_UP_RAW_METRICS_SQL =
+            "with chunk as (" +
+                    "select id, subscription_id, import_schedule, import_timestamp, error_type, import_ct, persist_ct, skip_ct, archive_ct " +
+                    "from subscription_metrics where id > ? and import_timestamp < ? order by id limit ?" +
+                    "), rolled_up as (" +
+                    "delete from subscription_metrics where id in (select id from chunk) returning id" +
+                    "), aggregated as (" +
+                    INSERT_ROLLUP_SQL +
+                    "select subscription_id, 'HOURLY', date_trunc('hour', import_timestamp), coalesce(import_schedule, ''), " +
+                    "count(*), count(error_type), " +
+                    "count(*) filter (where error_type is null and import_ct is not null and coalesce(persist_ct, 0) = 0), " +
+                    "coalesce(sum(import_ct), 0), coalesce(sum(persist_ct), 0), coalesce(sum(skip_ct), 0), coalesce(sum(archive_ct), 0) " +
+                    "from chunk group by 1, 2, 3, 4 " +
+                    ON_CONFLICT_ADD_SQL +
+                    ") select count(*), coalesce(max(id), 0) from rolled_up";
+
+    private static final String ROLL_UP_HOURLY_AGGREGATES_SQL =
+            "with chunk as (" +
+                    "select * from subscription_metrics_rollup where id > ? and granularity = 'HOURLY' and period_start < ? order by id limit ?" +
+                    "), rolled_up as (" +
+                    "delete from subscription_metrics_rollup where id in (select id from chunk) returning id" +
+                    "), aggregated as (" +
+                    INSERT_ROLLUP_SQL +
+                    "select subscription_id, 'DAILY', date_trunc('day', period_start), import_schedule, " +
+                    "sum(run_ct), sum(error_ct), sum(miss_ct), sum(import_ct), sum(persist_ct), sum(skip_ct), sum(archive_ct) " +
+                    "from chunk group by 1, 2, 3, 4 " +
+                    ON_CONFLICT_ADD_SQL +
+                    ") select count(*), coalesce(max(id), 0) from rolled_up";
+
+    private static final String PURGE_ORPHANED_ROLLUPS_SQL =
+            "delete from subscription_metrics_rollup r where not exists (select 1 from subscription_definitions s where s.id = r.subscription_id)";
+
+    private static final RowMapper<PurgeChunk> PURGE_CHUNK_ROW_MAPPER = (rs, rowNum) -> new PurgeChunk(rs.getInt(1), rs.getLong(2));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    JdbcSubscriptionMetricsRollupDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    final void createSchema() {
+        jdbcTemplate.execute(CREATE_ROLLUP_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_ROLLUP_SUBSCRIPTION_INDEX_SQL);
+    }
+
+    @Override
+    public final PurgeChunk rollUpRawMetrics(Date importedBefore, long afterId, int limit) {
+        return jdbcTemplate.queryForObject(ROLL_UP_RAW_METRICS_SQL, PURGE_CHUNK_ROW_MAPPER, afterId, new Timestamp(importedBefore.getTime()), limit);
+    }
+
+    @Override
+    public final PurgeChunk rollUpHourlyAggregates(Date periodStartBefore, long afterId, int limit) {
+        return jdbcTemplate.queryForObject(ROLL_UP_HOURLY_AGGREGATES_SQL, PURGE_CHUNK_ROW_MAPPER, afterId, new Timestamp(periodStartBefore.getTime()), limit);
+    }
+
+    @Override
+    public final long purgeOrphanedRollups() {
+        return jdbcTemplate.update(PURGE_ORPHANED_ROLLUPS_SQL);
+    }
+
+    @Override
+    public final String toString() {
+        return "JdbcSubscriptionMetricsRollupDao{" +
+                "jdbcTemplate=" + jdbcTemplate +
+                '}';
+    }
+}
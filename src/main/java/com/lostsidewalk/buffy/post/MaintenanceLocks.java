@@ -0,0 +1,63 @@
+package com.lostsidewalk.buffy.post;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Component holding one lock per maintenance partition (i.e., the data each maintenance operation touches), which
+ * keeps maintenance operations from overlapping with each other, or with the writes of an import run, on the same
+ * partition.  Multiple partitions are always locked in declaration order, so that lock holders cannot deadlock.
+ */
+@Slf4j
+@Component
+class MaintenanceLocks {
+
+    enum MaintenancePartition {
+        STAGING_POSTS,
+        QUEUES,
+        SUBSCRIPTION_METRICS,
+    }
+
+    private final Map<MaintenancePartition, ReentrantLock> locks = new EnumMap<>(MaintenancePartition.class);
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    MaintenanceLocks() {
+        for (MaintenancePartition partition : MaintenancePartition.values()) {
+            // (fair, so that a long series of maintenance chunks cannot starve an import run, or vice versa)
+            locks.put(partition, new ReentrantLock(true));
+        }
+    }
+
+    //
+    // locks the given partitions (which must be given as an EnumSet, or another set iterating in declaration order)
+    //
+    final void lock(Set<MaintenancePartition> partitions) {
+        for (MaintenancePartition partition : partitions) {
+            ReentrantLock lock = locks.get(partition);
+            if (!lock.tryLock()) {
+                log.debug("Waiting for maintenance partition={}", partition);
+                lock.lock();
+            }
+        }
+    }
+
+    final void unlock(Set<MaintenancePartition> partitions) {
+        for (MaintenancePartition partition : partitions) {
+            locks.get(partition).unlock();
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "MaintenanceLocks{" +
+                "locks=" + locks +
+                '}';
+    }
+}
@@ -0,0 +1,134 @@
+package com.lostsidewalk.buffy.post;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.DataUpdateException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static java.lang.System.nanoTime;
+import static java.util.Collections.synchronizedMap;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Component responsible for running the maintenance operations of the {@link PostPurger} in parallel, partitioned by
+ * the data each operation touches.  Operations on the same partition run in order, one at a time (idle posts are
+ * marked for archive before archived posts are purged; deleted queues are purged before orphaned query metrics, which
+ * are purged before the remaining metrics are rolled up), and the partitions run concurrently, up to the configured
+ * number of maintenance threads.  The purger locks each partition for the duration of an operation (or of each chunk,
+ * for chunked operations), so that maintenance never overlaps with the writes of an import run on the same partition.
+ * <p>
+ * Work is not split further by key range: every operation on a partition writes the same table, under that
+ * partition's lock, so key-range slices of one operation would only queue behind each other's chunks.  The chunked
+ * operations walk the key range in order instead, one bounded chunk at a time.
+ */
+@Slf4j
+@Component
+public class MaintenanceOrchestrator {
+
+    @Autowired
+    PostPurger postPurger;
+
+    @Autowired
+    PostPurgerConfigProps configProps;
+
+    private ExecutorService maintenanceThreadPool;
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    MaintenanceOrchestrator() {
+    }
+
+    /**
+     * Initializes the MaintenanceOrchestrator after construction.
+     * It sets up the maintenance thread pool based on the configured maintenance thread count.
+     */
+    @PostConstruct
+    protected final void postConstruct() {
+        int maintenanceThreadCt = Math.max(1, configProps.getMaintenanceThreadCt());
+        log.info("Starting maintenance thread pool: maintenanceThreadCt={}", maintenanceThreadCt);
+        maintenanceThreadPool = newFixedThreadPool(maintenanceThreadCt, new ThreadFactoryBuilder().setNameFormat("post-maintenance-%d").build());
+    }
+
+    @PreDestroy
+    final void preDestroy() {
+        maintenanceThreadPool.shutdownNow();
+    }
+
+    /**
+     * Run all maintenance operations, and wait for them to complete.
+     *
+     * @return The number of rows affected by each operation, keyed by operation name.
+     * @throws DataAccessException If there is an issue accessing the data.
+     * @throws DataUpdateException If there is an issue updating the data.
+     * @throws InterruptedException If the calling thread is interrupted while waiting on the operations.
+     */
+    @SuppressWarnings("unused")
+    public final Map<String, Long> runMaintenance() throws DataAccessException, DataUpdateException, InterruptedException {
+        long startNanos = nanoTime();
+        Map<String, Long> rowCts = synchronizedMap(new LinkedHashMap<>(5));
+        List<Future<?>> partitionFutures = new ArrayList<>(2);
+        // staging posts partition
+        partitionFutures.add(maintenanceThreadPool.submit(() -> {
+            rowCts.put("markIdlePostsForArchive", postPurger.markIdlePostsForArchive());
+            rowCts.put("purgeArchivedPosts", (long) postPurger.purgeArchivedPosts());
+            return null;
+        }));
+        // queues and subscription metrics partitions
+        partitionFutures.add(maintenanceThreadPool.submit(() -> {
+            rowCts.put("purgeDeletedQueues", postPurger.purgeDeletedQueues());
+            rowCts.put("purgeOrphanedQueryMetrics", postPurger.purgeOrphanedQueryMetrics());
+            rowCts.put("rollUpSubscriptionMetrics", postPurger.rollUpSubscriptionMetrics());
+            return null;
+        }));
+        //
+        // wait for every partition, then rethrow the first failure, if any
+        //
+        Throwable failure = null;
+        for (Future<?> f : partitionFutures) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                failure = failure == null ? e.getCause() : failure;
+            }
+        }
+        log.info("Maintenance run completed in {}ms, rowCts={}", NANOSECONDS.toMillis(nanoTime() - startNanos), rowCts);
+        rethrow(failure);
+        return rowCts;
+    }
+
+    @SuppressWarnings("ChainOfInstanceofChecks")
+    private static void rethrow(Throwable failure) throws DataAccessException, DataUpdateException {
+        if (failure instanceof DataAccessException dae) {
+            throw dae;
+        } else if (failure instanceof DataUpdateException due) {
+            throw due;
+        } else if (failure instanceof RuntimeException re) {
+            throw re;
+        } else if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "MaintenanceOrchestrator{" +
+                "postPurger=" + postPurger +
+                ", configProps=" + configProps +
+                ", maintenanceThreadPool=" + maintenanceThreadPool +
+                '}';
+    }
+}
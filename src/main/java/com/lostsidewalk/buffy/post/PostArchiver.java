@@ -12,10 +12,16 @@ import static java.util.Calendar.DATE;
 @Component
 class PostArchiver {
 
-    static boolean archive(StagingPost stagingPost) {
+    //
+    // computes the archive date for an import run, i.e., posts not published or updated since are archived
+    //
+    static Date archiveDate(int archiveAge) {
         Calendar cal = Calendar.getInstance();
-        cal.add(DATE, -90);
-        Date archiveDate = cal.getTime();
+        cal.add(DATE, -archiveAge);
+        return cal.getTime();
+    }
+
+    static boolean archive(StagingPost stagingPost, Date archiveDate) {
         // archive criteria:
         //
         // (1) missing both publish timestamp and last updated timestamp (spam injected into the feed)
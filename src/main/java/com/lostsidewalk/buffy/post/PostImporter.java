@@ -1,13 +1,14 @@
 package com.lostsidewalk.buffy.post;
 
-import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.lostsidewalk.buffy.DataAccessException;
 import com.lostsidewalk.buffy.DataConflictException;
 import com.lostsidewalk.buffy.DataUpdateException;
+import com.lostsidewalk.buffy.cluster.ClusterCoordinator;
 import com.lostsidewalk.buffy.discovery.FeedDiscoveryInfo;
 import com.lostsidewalk.buffy.importer.Importer;
 import com.lostsidewalk.buffy.importer.Importer.ImportResult;
+import com.lostsidewalk.buffy.rule.RuleEvaluationMemo;
 import com.lostsidewalk.buffy.rule.RuleSet;
 import com.lostsidewalk.buffy.rule.RuleSetDao;
 import com.lostsidewalk.buffy.rule.RuleSetExecutor;
@@ -16,6 +17,7 @@ import com.lostsidewalk.buffy.subscription.SubscriptionDefinitionDao;
 import com.lostsidewalk.buffy.subscription.SubscriptionMetrics;
 import com.lostsidewalk.buffy.subscription.SubscriptionMetricsDao;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.health.Health;
@@ -27,17 +29,19 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
 
-import static com.google.common.collect.ImmutableList.copyOf;
 import static com.google.common.collect.Lists.partition;
 import static com.lostsidewalk.buffy.post.ImportScheduler.ImportSchedule.importScheduleNamed;
-import static com.lostsidewalk.buffy.post.PostArchiver.archive;
-import static com.lostsidewalk.buffy.post.PostImporter.StagingPostResolution.*;
+import static com.lostsidewalk.buffy.post.MaintenanceLocks.MaintenancePartition.SUBSCRIPTION_METRICS;
 import static java.lang.Math.min;
 import static java.lang.Runtime.getRuntime;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.synchronizedList;
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.collections4.CollectionUtils.*;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
@@ -71,10 +75,37 @@ public class PostImporter {
     @Autowired
     PostArchiver postArchiver;
 
+    @Autowired
+    PostImporterConfigProps configProps;
+
+    @Autowired
+    MaintenanceLocks maintenanceLocks;
+
+    @Autowired
+    ClusterCoordinator clusterCoordinator;
+
+    @Autowired
+    ImportMetrics importMetrics;
+
+    @Autowired
+    ImportRecorder importRecorder;
+
+    @Autowired
+    FreshnessTracker freshnessTracker;
+
+    // the query metrics, which maintenance must not touch while they are written (the staging posts are locked by the
+    // pipeline, while each post is persisted)
+    private static final Set<MaintenanceLocks.MaintenancePartition> METRICS_PARTITIONS = EnumSet.of(SUBSCRIPTION_METRICS);
+
+    // the number of times a bundle has been flushed through the pipeline early, for exceeding the heap budget
+    private final LongAdder earlyFlushCt = new LongAdder();
+
     private final BlockingQueue<Throwable> errorQueue = new LinkedBlockingQueue<>();
 
     private ExecutorService importerThreadPool;
 
+    private StagingPostPipeline stagingPostPipeline;
+
     /**
      * Default constructor; initializes the object.
      */
@@ -96,6 +127,21 @@ public class PostImporter {
         processorCt = processorCt >= 2 ? processorCt - 1 : processorCt; // account for the import processor thread
         log.info("Starting importer thread pool: processCount={}", processorCt);
         importerThreadPool = newFixedThreadPool(processorCt, new ThreadFactoryBuilder().setNameFormat("post-importer-%d").build());
+        importMetrics.registerThreadPool(importerThreadPool, "post-importer");
+        //
+        // setup the staging post pipeline (the rule evaluation stage is CPU-bound, and is sized to the cores)
+        //
+        int ruleEvaluationThreadCt = configProps.getRuleEvaluationThreadCt() > 0 ? configProps.getRuleEvaluationThreadCt() : availableProcessors;
+        log.info("Starting staging post pipeline: ruleEvaluationThreadCt={}, queueCapacity={}, archiveRoutingPolicy={}, archiveAge={}",
+                ruleEvaluationThreadCt, configProps.getPipelineQueueCapacity(), configProps.getArchiveRoutingPolicy(), configProps.getArchiveAge());
+        stagingPostPipeline = new StagingPostPipeline(stagingPostDao, ruleSetExecutor, importMetrics, maintenanceLocks, ruleEvaluationThreadCt, configProps.getPipelineQueueCapacity(),
+                configProps.getArchiveRoutingPolicy(), configProps.getArchiveAge());
+    }
+
+    @PreDestroy
+    final void preDestroy() {
+        importerThreadPool.shutdownNow();
+        stagingPostPipeline.shutdown();
     }
 
     /**
@@ -106,13 +152,23 @@ public class PostImporter {
     @SuppressWarnings("unused")
     public final Health health() {
         boolean importerPoolIsShutdown = importerThreadPool.isShutdown();
+        boolean pipelineIsShutdown = stagingPostPipeline.isShutdown();
 
-        if (importerPoolIsShutdown) {
+        if (importerPoolIsShutdown || pipelineIsShutdown) {
             return Health.down()
-                    .withDetail("importerPoolIsShutdown", false)
+                    .withDetail("importerPoolIsShutdown", importerPoolIsShutdown)
+                    .withDetail("pipelineIsShutdown", pipelineIsShutdown)
                     .build();
         } else {
-            return Health.up().build();
+            Health.Builder builder = Health.up();
+            for (ImportPipelineStage stage : stagingPostPipeline.getStages()) {
+                builder.withDetail(stage.name + "QueueDepth", stage.getQueueDepth())
+                        .withDetail(stage.name + "Throughput", stage.getThroughput());
+            }
+            builder.withDetail("ruleEvaluationSkippedCt", stagingPostPipeline.getRuleEvaluationSkippedCt());
+            builder.withDetail("earlyFlushCt", earlyFlushCt.sum());
+            builder.withDetail("worstLaggingFeeds", freshnessTracker.getWorstLaggingFeeds(10));
+            return builder.build();
         }
     }
 
@@ -131,7 +187,14 @@ public class PostImporter {
 
     private List<SubscriptionDefinition> getScheduledSubscriptions() throws DataAccessException {
         LocalDateTime now = LocalDateTime.now();
-        return subscriptionDefinitionDao.findAllActive().stream().filter(qd -> scheduleMatches(qd.getImportSchedule(), now)).toList();
+        // (only the subscriptions sharded to this node)
+        List<SubscriptionDefinition> ownedSubscriptions = subscriptionDefinitionDao.findAllActive().stream()
+                .filter(qd -> clusterCoordinator.isOwner(qd.getId()))
+                .toList();
+        freshnessTracker.retainSubscriptions(ownedSubscriptions.stream().map(SubscriptionDefinition::getId).collect(toSet()));
+        return ownedSubscriptions.stream()
+                .filter(qd -> scheduleMatches(qd.getImportSchedule(), now))
+                .toList();
     }
 
     private static boolean scheduleMatches(String schedule, LocalDateTime localDateTime) {
@@ -179,98 +242,238 @@ public class PostImporter {
         // partition queries into chunks
         //
         List<List<SubscriptionDefinition>> subscriptionBundles = partition(allSubscriptionDefinitions, 100);
+        ImportRunEvent importRunEvent = new ImportRunEvent();
+        importRunEvent.begin();
         int bundleIdx = 1;
-        for (List<SubscriptionDefinition> subscriptionBundle : subscriptionBundles) {
-            //
-            // run the importers to populate the article queue
-            //
-            List<ImportResult> allImportResults = synchronizedList(new ArrayList<>(size(importers)));
-            CountDownLatch latch = new CountDownLatch(size(importers));
-            log.info("Starting import of bundle index {}", bundleIdx);
-            importers.forEach(importer -> importerThreadPool.submit(() -> {
-                log.info("Starting importerId={} with {} bundled subscriptions", importer.getImporterId(), size(subscriptionBundle));
-                try {
-                    ImportResult importResult = importer.doImport(subscriptionBundle, discoveryCache);
-                    allImportResults.add(importResult);
-                } catch (RuntimeException e) {
-                    log.error("Something horrible happened on importerId={} due to: {}", importer.getImporterId(), e.getMessage(), e);
+        try {
+            for (List<SubscriptionDefinition> subscriptionBundle : subscriptionBundles) {
+                if (!importBundle(subscriptionBundle, bundleIdx, discoveryCache)) {
+                    break;
                 }
-                log.info("Completed importerId={} for all bundled subscriptions", importer.getImporterId());
-                latch.countDown();
-            }));
+                //
+                // increment bundle index (for logging)
+                //
+                bundleIdx++;
+            }
+        } finally {
+            importRunEvent.end();
+            if (importRunEvent.shouldCommit()) {
+                importRunEvent.subscriptionCt = size(allSubscriptionDefinitions);
+                importRunEvent.importerCt = size(importers);
+                importRunEvent.bundleCt = bundleIdx - 1;
+                importRunEvent.commit();
+            }
+        }
+    }
+
+    //
+    // imports a single bundle of subscriptions; returns false if interrupted while fetching
+    //
+    private boolean importBundle(List<SubscriptionDefinition> subscriptionBundle, int bundleIdx, Map<String, FeedDiscoveryInfo> discoveryCache)
+            throws DataAccessException, DataUpdateException, DataConflictException
+    {
+        //
+        // run the importers to populate the article queue
+        //
+        List<ImportResult> allImportResults = synchronizedList(new ArrayList<>(size(importers)));
+        CountDownLatch latch = new CountDownLatch(size(importers));
+        log.info("Starting import of bundle index {}", bundleIdx);
+        ImportBundleEvent importBundleEvent = new ImportBundleEvent();
+        importBundleEvent.begin();
+        long bundleStartNanos = nanoTime();
+        importers.forEach(importer -> importerThreadPool.submit(() -> {
+            log.info("Starting importerId={} with {} bundled subscriptions", importer.getImporterId(), size(subscriptionBundle));
+            ImporterTaskEvent importerTaskEvent = new ImporterTaskEvent();
+            importerTaskEvent.begin();
+            long fetchStartNanos = nanoTime();
+            ImportResult importResult = null;
             try {
-                latch.await();
-            } catch (InterruptedException e) {
-                log.error("Import process interrupted due to: {}", e.getMessage());
-                break;
+                importResult = importer.doImport(subscriptionBundle, discoveryCache);
+                allImportResults.add(importResult);
+            } catch (RuntimeException e) {
+                log.error("Something horrible happened on importerId={} due to: {}", importer.getImporterId(), e.getMessage(), e);
             }
-            //
-            // process errors
-            //
-            processErrors();
-            //
-            // process import results (persist staging posts and query metrics)
-            //
-            processImportResults(copyOf(allImportResults));
-            //
-            // increment bundle index (for logging)
-            //
-            bundleIdx++;
+            importMetrics.recordFetch(importer.getImporterId(), nanoTime() - fetchStartNanos);
+            importerTaskEvent.end();
+            if (importerTaskEvent.shouldCommit()) {
+                importerTaskEvent.importerId = importer.getImporterId();
+                importerTaskEvent.bundleIdx = bundleIdx;
+                importerTaskEvent.subscriptionCt = size(subscriptionBundle);
+                importerTaskEvent.postCt = importResult == null ? 0 : size(importResult.getImportSet());
+                importerTaskEvent.isFailed = importResult == null;
+                importerTaskEvent.commit();
+            }
+            log.info("Completed importerId={} for all bundled subscriptions", importer.getImporterId());
+            latch.countDown();
+        }));
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            log.error("Import process interrupted due to: {}", e.getMessage());
+            return false;
+        }
+        long fetchNanos = nanoTime() - bundleStartNanos;
+        //
+        // process errors
+        //
+        processErrors();
+        //
+        // process import results (persist staging posts and query metrics), recording them first if enabled
+        //
+        // (every importer has completed, so the results are no longer shared)
+        importRecorder.record(allImportResults);
+        processImportResults(allImportResults, true);
+        long bundleNanos = nanoTime() - bundleStartNanos;
+        importMetrics.recordBundle(bundleNanos);
+        importBundleEvent.end();
+        if (importBundleEvent.shouldCommit()) {
+            importBundleEvent.bundleIdx = bundleIdx;
+            importBundleEvent.subscriptionCt = size(subscriptionBundle);
+            importBundleEvent.importResultCt = allImportResults.size();
+            importBundleEvent.fetchNanos = fetchNanos;
+            importBundleEvent.processNanos = bundleNanos - fetchNanos;
+            importBundleEvent.commit();
         }
+        return true;
     }
 
     /**
-     * Processes the import results, including persisting staging posts and query metrics.
+     * Processes the import results, including persisting staging posts and query metrics.  The import results are
+     * left as they are.
      *
      * @param importResults List of import results.
      * @throws DataAccessException  If there is an issue accessing the data.
      * @throws DataUpdateException  If there is an issue updating the data.
      * @throws DataConflictException If there is a duplicate key.
      */
-    @SuppressWarnings({"unused", "MethodWithMultipleLoops"})
+    @SuppressWarnings("unused")
     public final void processImportResults(Iterable<? extends ImportResult> importResults) throws DataAccessException, DataUpdateException, DataConflictException {
-        // subscription Id -> collection of newly imported staging posts
-        Map<Long, Set<StagingPost>> importSetBySubscriptionId = new HashMap<>(16);
-        // subscription Id -> rule set to execute on all newly imported staging posts in this subscription
-        Map<Long, List<RuleSet>> ruleSetsBySubscriptionId = new HashMap<>(16);
-        // (first pass, map up import sets and rule sets)
+        processImportResults(importResults, false);
+    }
+
+    //
+    // as above; if isReleased is set, each post is removed from its (modifiable) import result as it is streamed into
+    // an import set, so that once flushed it is no longer reachable (this is for the import's own results only, which
+    // are not used again).  If interrupted, the query metrics of the import sets flushed so far are still persisted.
+    //
+    @SuppressWarnings("MethodWithMultipleLoops")
+    private void processImportResults(Iterable<? extends ImportResult> importResults, boolean isReleased) throws DataAccessException, DataUpdateException, DataConflictException {
+        // subscription Id -> the metrics of each importer of the subscription (only these subscriptions are processed)
+        Map<Long, List<SubscriptionMetrics>> metricsBySubscriptionId = new HashMap<>(16);
         for (ImportResult importResult : importResults) {
-            ImmutableSet<StagingPost> importSet = ImmutableSet.copyOf(importResult.getImportSet());
-            for (StagingPost stagingPost : importSet) {
-                String username = stagingPost.getUsername();
-                long subscriptionId = stagingPost.getSubscriptionId();
-                long queueId = stagingPost.getQueueId();
-                // add to importSetBySubscriptionId
-                importSetBySubscriptionId.computeIfAbsent(
-                        subscriptionId,
-                        v -> new HashSet<>(size(importSet))
-                ).add(stagingPost);
-                // add to ruleSetsBySubscriptionId
-                if (!ruleSetsBySubscriptionId.containsKey(subscriptionId)) {
-                    List<RuleSet> ruleSets = ruleSetDao.findBySubscriptionId(username, subscriptionId);
-                    ruleSetsBySubscriptionId.put(subscriptionId, isNotEmpty(ruleSets) ? ruleSets : emptyList());
+            for (SubscriptionMetrics subscriptionMetric : importResult.getSubscriptionMetrics()) {
+                metricsBySubscriptionId.computeIfAbsent(subscriptionMetric.getSubscriptionId(), v -> new ArrayList<>(1)).add(subscriptionMetric);
+            }
+        }
+        // subscription Id -> the import set of the subscription (i.e., its pending posts, rule sets and counts)
+        Map<Long, SubscriptionImportSet> importSetsBySubscriptionId = new LinkedHashMap<>(size(metricsBySubscriptionId));
+        long bundleHeapBudgetBytes = configProps.getBundleHeapBudgetBytes();
+        // (identical rules are only matched once per distinct post content, across flushes)
+        RuleEvaluationMemo ruleEvaluationMemo = new RuleEvaluationMemo();
+        boolean isInterrupted = false;
+        try {
+            // (stream the posts straight from the import results into the import sets, flushing the pending posts
+            // through the pipeline whenever they exceed the heap budget)
+            long pendingBytes = 0L;
+            for (ImportResult importResult : importResults) {
+                boolean isReleasable = isReleased;
+                for (Iterator<StagingPost> it = importResult.getImportSet().iterator(); it.hasNext(); ) {
+                    StagingPost stagingPost = it.next();
+                    isReleasable = isReleasable && release(it);
+                    Long subscriptionId = stagingPost.getSubscriptionId();
+                    List<SubscriptionMetrics> subscriptionMetrics = metricsBySubscriptionId.get(subscriptionId);
+                    if (subscriptionMetrics == null) {
+                        continue;
+                    }
+                    SubscriptionImportSet subscriptionImportSet = importSetsBySubscriptionId.get(subscriptionId);
+                    if (subscriptionImportSet == null) {
+                        List<RuleSet> ruleSets = ruleSetDao.findBySubscriptionId(stagingPost.getUsername(), subscriptionId);
+                        subscriptionImportSet = new SubscriptionImportSet(subscriptionMetrics, isNotEmpty(ruleSets) ? ruleSets : emptyList());
+                        importSetsBySubscriptionId.put(subscriptionId, subscriptionImportSet);
+                    }
+                    if (subscriptionImportSet.add(stagingPost)) {
+                        pendingBytes += estimateSize(stagingPost);
+                    }
+                    if (bundleHeapBudgetBytes > 0L && pendingBytes >= bundleHeapBudgetBytes) {
+                        log.info("Bundle heap budget exceeded, flushing early: pendingBytes={}, bundleHeapBudgetBytes={}", pendingBytes, bundleHeapBudgetBytes);
+                        earlyFlushCt.increment();
+                        flush(importSetsBySubscriptionId.values(), ruleEvaluationMemo);
+                        pendingBytes = 0L;
+                    }
                 }
             }
+            flush(importSetsBySubscriptionId.values(), ruleEvaluationMemo);
+        } catch (InterruptedException e) {
+            log.error("Import result processing interrupted due to: {}", e.getMessage());
+            isInterrupted = true;
         }
-        // (second pass, perform processing)
-        for (ImportResult importResult : importResults) {
-            List<SubscriptionMetrics> subscriptionMetrics = copyOf(importResult.getSubscriptionMetrics());
-            for (SubscriptionMetrics subscriptionMetric : subscriptionMetrics) {
-                Set<StagingPost> subscriptionImportSet = importSetBySubscriptionId.get(subscriptionMetric.getSubscriptionId());
-                if (isNotEmpty(subscriptionImportSet)) {
-                    processSubscriptionImportSet(
-                            // metric
-                            subscriptionMetric,
-                            // import set
-                            subscriptionImportSet,
-                            // subscription rule sets
-                            ruleSetsBySubscriptionId.get(subscriptionMetric.getSubscriptionId())
-                    );
+        log.debug("Rule evaluation memo: hitCt={}, missCt={}", ruleEvaluationMemo.getHitCt(), ruleEvaluationMemo.getMissCt());
+        log.info("Staging post pipeline stages: {}", stagingPostPipeline.getStages());
+        // (finally, persist query metrics; if interrupted, only those of the import sets flushed, in whole or in part,
+        // since the others were never processed, and then restore the interrupt)
+        try {
+            for (SubscriptionImportSet subscriptionImportSet : importSetsBySubscriptionId.values()) {
+                if (!isInterrupted || subscriptionImportSet.isFlushed) {
+                    processSubscriptionImportSet(subscriptionImportSet);
                 }
             }
+        } finally {
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 
+    //
+    // removes the post last returned by the given iterator from its import result; returns false (and leaves the post
+    // in place) if the import set is unmodifiable
+    //
+    private static boolean release(Iterator<StagingPost> it) {
+        try {
+            it.remove();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    //
+    // runs the pending posts of the given import sets through the pipeline, then releases them
+    //
+    private void flush(Collection<SubscriptionImportSet> subscriptionImportSets, RuleEvaluationMemo ruleEvaluationMemo)
+            throws DataAccessException, DataUpdateException, DataConflictException, InterruptedException
+    {
+        List<SubscriptionImportSet> pending = subscriptionImportSets.stream()
+                .filter(s -> !s.importSet.isEmpty())
+                .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+        pending.forEach(s -> s.isFlushed = true);
+        try {
+            stagingPostPipeline.process(pending, ruleEvaluationMemo);
+        } finally {
+            pending.forEach(s -> s.importSet.clear());
+        }
+    }
+
+    //
+    // a rough estimate of the heap taken by a staging post, i.e., its text (as UTF-16) and a fixed overhead
+    //
+    private static long estimateSize(StagingPost stagingPost) {
+        long chars = lengthOf(stagingPost.getPostTitle()) + lengthOf(stagingPost.getPostDesc());
+        if (stagingPost.getPostContents() != null) {
+            for (ContentObject postContent : stagingPost.getPostContents()) {
+                chars += lengthOf(postContent);
+            }
+        }
+        return 1024L + 2L * chars;
+    }
+
+    private static long lengthOf(ContentObject contentObject) {
+        return contentObject == null || contentObject.getValue() == null ? 0L : contentObject.getValue().length();
+    }
+
     /**
      * Enumeration representing possible resolutions for staging posts.
      */
@@ -282,61 +485,43 @@ public class PostImporter {
     //
     // import set processing
     //
-    private void processSubscriptionImportSet(SubscriptionMetrics queryMetrics, Iterable<? extends StagingPost> importSet, List<? extends RuleSet> subscriptionRuleSets)
-            throws DataAccessException, DataUpdateException, DataConflictException
-    {
-        int persistCt = 0;
-        int skipCt = 0;
-        int archiveCt = 0;
-        for (StagingPost sp : importSet) {
-            StagingPostResolution resolution = processStagingPost(sp, subscriptionRuleSets);
-            if (resolution == PERSISTED) {
-                persistCt++;
-            } else if (resolution == SKIP_ALREADY_EXISTS) {
-                skipCt++;
-            } else if (resolution == ARCHIVED) {
-                archiveCt++;
+    private void processSubscriptionImportSet(SubscriptionImportSet subscriptionImportSet) throws DataAccessException, DataUpdateException {
+        int persistCt = subscriptionImportSet.persistCt.get();
+        int skipCt = subscriptionImportSet.skipCt.get();
+        int archiveCt = subscriptionImportSet.archiveCt.get();
+        // (each importer of the subscription records the outcome of the whole import; maintenance is held off the query
+        // metrics while they are written)
+        maintenanceLocks.lock(METRICS_PARTITIONS);
+        try {
+            for (SubscriptionMetrics queryMetrics : subscriptionImportSet.subscriptionMetrics) {
+                log.debug("Persisting query metrics: subscriptionId={}, importCt={}, importTimestamp={}, persistCt={}, skipCt={}, archiveCt={}",
+                        queryMetrics.getSubscriptionId(), queryMetrics.getImportCt(), queryMetrics.getImportTimestamp(), persistCt, skipCt, archiveCt);
+                queryMetrics.setPersistCt(persistCt);
+                queryMetrics.setSkipCt(skipCt);
+                queryMetrics.setArchiveCt(archiveCt);
+                subscriptionMetricsDao.add(queryMetrics);
             }
+        } finally {
+            maintenanceLocks.unlock(METRICS_PARTITIONS);
         }
-        log.debug("Persisting query metrics: subscriptionId={}, importCt={}, importTimestamp={}, persistCt={}, skipCt={}, archiveCt={}",
-                queryMetrics.getSubscriptionId(), queryMetrics.getImportCt(), queryMetrics.getImportTimestamp(), persistCt, skipCt, archiveCt);
-        queryMetrics.setPersistCt(persistCt);
-        queryMetrics.setSkipCt(skipCt);
-        queryMetrics.setArchiveCt(archiveCt);
-        subscriptionMetricsDao.add(queryMetrics);
-    }
-    //
-    // staging post processing
-    //
-    private StagingPostResolution processStagingPost(
-            StagingPost stagingPost,
-            @SuppressWarnings("TypeMayBeWeakened") List<? extends RuleSet> subscriptionRuleSets
-    ) throws DataAccessException, DataUpdateException, DataConflictException {
-        // compute a hash of the post, attempt to find it in the data source;
-        if (stagingPostDao.checkExists(stagingPost.getPostHash())) {
-            // log if present,
-            log.debug("Staging post already exists, hash={}", stagingPost.getPostHash());
-            log.debug("Skipping staging post from importerDesc={}, hash={}", stagingPost.getImporterDesc(), stagingPost.getPostHash());
-            return SKIP_ALREADY_EXISTS;
-        } else {
-            //
-            // rules engine
-            //
-            if (isNotEmpty(subscriptionRuleSets)) {
-                subscriptionRuleSets
-                        .forEach(r -> ruleSetExecutor.execute(r, stagingPost));
-            }
-            //
-            // archiver
-            //
-            boolean isArchived = archive(stagingPost);
-            //
-            // persister
-            //
-            stagingPostDao.add(stagingPost);
-
-            return isArchived ? ARCHIVED : PERSISTED;
+        SubscriptionMetrics queryMetrics = subscriptionImportSet.subscriptionMetrics.get(0);
+        Date importTimestamp = queryMetrics.getImportTimestamp();
+        freshnessTracker.record(queryMetrics.getSubscriptionId(), queryMetrics.getImportSchedule(),
+                importTimestamp == null ? currentTimeMillis() : importTimestamp.getTime(), subscriptionImportSet.freshnessSamples);
+        SubscriptionImportSetEvent subscriptionImportSetEvent = new SubscriptionImportSetEvent();
+        if (subscriptionImportSetEvent.shouldCommit()) {
+            subscriptionImportSetEvent.subscriptionId = queryMetrics.getSubscriptionId();
+            subscriptionImportSetEvent.importSchedule = queryMetrics.getImportSchedule();
+            subscriptionImportSetEvent.ruleSetCt = size(subscriptionImportSet.ruleSets);
+            subscriptionImportSetEvent.persistCt = persistCt;
+            subscriptionImportSetEvent.skipCt = skipCt;
+            subscriptionImportSetEvent.archiveCt = archiveCt;
+            subscriptionImportSetEvent.processingNanos = subscriptionImportSet.processingNanos.sum();
+            subscriptionImportSetEvent.commit();
         }
+        importMetrics.recordPosts(StagingPostResolution.PERSISTED, persistCt);
+        importMetrics.recordPosts(StagingPostResolution.SKIP_ALREADY_EXISTS, skipCt);
+        importMetrics.recordPosts(StagingPostResolution.ARCHIVED, archiveCt);
     }
     //
     // import error processing
@@ -362,7 +547,14 @@ public class PostImporter {
                 ", ruleSetExecutor=" + ruleSetExecutor +
                 ", postArchiver=" + postArchiver +
                 ", errorQueue=" + errorQueue +
+                ", configProps=" + configProps +
+                ", maintenanceLocks=" + maintenanceLocks +
+                ", clusterCoordinator=" + clusterCoordinator +
+                ", importMetrics=" + importMetrics +
+                ", importRecorder=" + importRecorder +
+                ", freshnessTracker=" + freshnessTracker +
                 ", importerThreadPool=" + importerThreadPool +
+                ", stagingPostPipeline=" + stagingPostPipeline +
                 '}';
     }
 }
@@ -0,0 +1,165 @@
+package com.lostsidewalk.buffy.post;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+
+/**
+ * Configuration properties class for configuring post importer settings.
+ * This class is used to size the stages of the staging post pipeline (and the heap budget of a bundle), to
+ * configure how posts are archived on import, and to enable the recording of import results.
+ */
+@Slf4j
+@Configuration
+@ConfigurationProperties("post.importer")
+public class PostImporterConfigProps {
+
+    int pipelineQueueCapacity = 1024;
+
+    int ruleEvaluationThreadCt;
+
+    int archiveAge = 90;
+
+    ArchiveRoutingPolicy archiveRoutingPolicy = ArchiveRoutingPolicy.ARCHIVE_FIRST;
+
+    String recordingDir;
+
+    long bundleHeapBudgetBytes = 256L * 1024L * 1024L;
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    PostImporterConfigProps() {
+    }
+
+    /**
+     * Capacity of each of the bounded queues connecting the stages of the staging post pipeline.
+     *
+     * @return The pipeline queue capacity.
+     */
+    public final int getPipelineQueueCapacity() {
+        return pipelineQueueCapacity;
+    }
+
+    /**
+     * Set the capacity of each of the bounded queues connecting the stages of the staging post pipeline.
+     *
+     * @param pipelineQueueCapacity The pipeline queue capacity.
+     */
+    @SuppressWarnings("unused")
+    public final void setPipelineQueueCapacity(int pipelineQueueCapacity) {
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+    }
+
+    /**
+     * Number of threads in the rule evaluation stage; zero (the default) sizes the stage to the available processors.
+     *
+     * @return The rule evaluation thread count.
+     */
+    public final int getRuleEvaluationThreadCt() {
+        return ruleEvaluationThreadCt;
+    }
+
+    /**
+     * Set the number of threads in the rule evaluation stage; zero sizes the stage to the available processors.
+     *
+     * @param ruleEvaluationThreadCt The rule evaluation thread count.
+     */
+    @SuppressWarnings("unused")
+    public final void setRuleEvaluationThreadCt(int ruleEvaluationThreadCt) {
+        this.ruleEvaluationThreadCt = ruleEvaluationThreadCt;
+    }
+
+    /**
+     * Age (in days) beyond which newly imported posts are archived.
+     *
+     * @return The archive age.
+     */
+    public final int getArchiveAge() {
+        return archiveAge;
+    }
+
+    /**
+     * Set the age (in days) beyond which newly imported posts are archived.
+     *
+     * @param archiveAge The archive age.
+     */
+    @SuppressWarnings("unused")
+    public final void setArchiveAge(int archiveAge) {
+        this.archiveAge = archiveAge;
+    }
+
+    /**
+     * How posts that are archived on import are routed through the staging post pipeline.
+     *
+     * @return The archive routing policy.
+     */
+    public final ArchiveRoutingPolicy getArchiveRoutingPolicy() {
+        return archiveRoutingPolicy;
+    }
+
+    /**
+     * Set how posts that are archived on import are routed through the staging post pipeline.
+     *
+     * @param archiveRoutingPolicy The archive routing policy.
+     */
+    @SuppressWarnings("unused")
+    public final void setArchiveRoutingPolicy(ArchiveRoutingPolicy archiveRoutingPolicy) {
+        this.archiveRoutingPolicy = archiveRoutingPolicy;
+    }
+
+    /**
+     * The directory to which the import results of each bundle are recorded, for later replay; blank (the default)
+     * to disable recording.
+     *
+     * @return The recording directory.
+     */
+    public final String getRecordingDir() {
+        return recordingDir;
+    }
+
+    /**
+     * Set the directory to which the import results of each bundle are recorded, for later replay.
+     *
+     * @param recordingDir The recording directory.
+     */
+    @SuppressWarnings("unused")
+    public final void setRecordingDir(String recordingDir) {
+        this.recordingDir = recordingDir;
+    }
+
+    /**
+     * The (estimated) heap that the pending posts of a bundle may take before they are flushed through the pipeline,
+     * ahead of the rest of the bundle; 0 for no limit.  This bounds the posts taken from the import results but not
+     * yet flushed; the posts that the importers have fetched, but that are not yet processed, are held regardless.
+     *
+     * @return The bundle heap budget, in bytes.
+     */
+    public final long getBundleHeapBudgetBytes() {
+        return bundleHeapBudgetBytes;
+    }
+
+    /**
+     * Set the (estimated) heap that the pending posts of a bundle may take before they are flushed through the
+     * pipeline.
+     *
+     * @param bundleHeapBudgetBytes The bundle heap budget, in bytes.
+     */
+    @SuppressWarnings("unused")
+    public final void setBundleHeapBudgetBytes(long bundleHeapBudgetBytes) {
+        this.bundleHeapBudgetBytes = bundleHeapBudgetBytes;
+    }
+
+    @Override
+    public final String toString() {
+        return "PostImporterConfigProps{" +
+                "pipelineQueueCapacity=" + pipelineQueueCapacity +
+                ", ruleEvaluationThreadCt=" + ruleEvaluationThreadCt +
+                ", archiveAge=" + archiveAge +
+                ", archiveRoutingPolicy=" + archiveRoutingPolicy +
+                ", recordingDir='" + recordingDir + '\'' +
+                ", bundleHeapBudgetBytes=" + bundleHeapBudgetBytes +
+                '}';
+    }
+}
@@ -2,17 +2,50 @@ package com.lostsidewalk.buffy.post;
 
 import com.lostsidewalk.buffy.DataAccessException;
 import com.lostsidewalk.buffy.DataUpdateException;
+import com.lostsidewalk.buffy.cluster.ClusterCoordinator;
+import com.lostsidewalk.buffy.cluster.ClusterCoordinator.Lease;
 import com.lostsidewalk.buffy.queue.QueueDefinitionDao;
 import com.lostsidewalk.buffy.subscription.SubscriptionMetricsDao;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.lostsidewalk.buffy.post.MaintenanceLocks.MaintenancePartition.*;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
  * Component responsible for purging archived posts, marking idle posts for archival,
  * and purging deleted queues and orphaned query metrics based on configured properties.
+ * <p>
+ * When a {@link SubscriptionMetricsRollupDao} is available (by default, over the {@link JdbcTemplate}, if there is
+ * one; see {@link JdbcSubscriptionMetricsRollupDao}), the subscription metrics history is also compacted: raw metrics
+ * past retention are rolled up into hourly aggregates, and hourly aggregates past retention into daily aggregates, in
+ * chunks like the other chunked jobs.  The aggregates of deleted subscriptions are purged along with their raw
+ * metrics.
+ * <p>
+ * When a {@link StagingPostChunkedPurgeDao} is available (by default, over the {@link JdbcTemplate}, if there is one;
+ * see {@link JdbcStagingPostChunkedPurgeDao}), archived posts are purged (and idle posts marked) in
+ * chunks of a bounded size, with a pause between chunks, so that neither job holds a long transaction over the whole
+ * staging post table.  The key cursor of each job is persisted after every chunk (in the database, in a cluster), so
+ * that an interrupted job resumes where it left off, on whichever node runs it next.
+ * <p>
+ * Each operation locks the data it touches (see {@link MaintenanceLocks}) while it runs, or while each chunk runs, so
+ * that it does not overlap with other operations or with an import run on the same data.  In a cluster, each
+ * operation runs on one node at a time; a node that finds an operation running elsewhere skips it (returning zero).
  */
 @Slf4j
 @Component
@@ -30,6 +63,49 @@ public class PostPurger {
     @Autowired
     PostPurgerConfigProps configProps;
 
+    @Autowired(required = false)
+    StagingPostChunkedPurgeDao stagingPostChunkedPurgeDao;
+
+    @Autowired(required = false)
+    SubscriptionMetricsRollupDao subscriptionMetricsRollupDao;
+
+    @Autowired(required = false)
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MaintenanceLocks maintenanceLocks;
+
+    @Autowired
+    ClusterCoordinator clusterCoordinator;
+
+    private static final String PURGE_ARCHIVED_POSTS = "purgeArchivedPosts";
+
+    private static final String MARK_IDLE_POSTS_FOR_ARCHIVE = "markIdlePostsForArchive";
+
+    private static final String PURGE_DELETED_QUEUES = "purgeDeletedQueues";
+
+    private static final String PURGE_ORPHANED_QUERY_METRICS = "purgeOrphanedQueryMetrics";
+
+    private static final String ROLL_UP_SUBSCRIPTION_METRICS = "rollUpSubscriptionMetrics";
+
+    private static final String ROLL_UP_RAW_SUBSCRIPTION_METRICS = "rollUpRawSubscriptionMetrics";
+
+    private static final String ROLL_UP_HOURLY_SUBSCRIPTION_METRICS = "rollUpHourlySubscriptionMetrics";
+
+    // rescheduling looks back over the most recent raw metrics of a subscription, up to one day of them (i.e., the
+    // misses allowed on the 'C' schedule); raw metrics are never rolled up any sooner
+    private static final int MIN_METRICS_RAW_RETENTION_HOURS = 24;
+
+    private static final String LEASE_PREFIX = "post-purger.";
+
+    private final LongAdder chunkCt = new LongAdder();
+
+    private final LongAdder chunkRowCt = new LongAdder();
+
+    private volatile long lastChunkMs;
+
+    private PurgeCursorStore purgeCursorStore;
+
     /**
      * Default constructor; initializes the object.
      */
@@ -38,11 +114,43 @@ public class PostPurger {
 
     /**
      * Initializes the PostPurger after construction.
-     * Logs an informational message to indicate the purger has been constructed.
+     * Opens the purge cursor store, sets up the default chunked purge and rollup DAOs (unless others are configured,
+     * creating the rollup table only if so configured), and logs an informational message to indicate the purger has been constructed.
      */
     @PostConstruct
-    protected static void postConstruct() {
-        log.info("Purger constructed");
+    protected final void postConstruct() {
+        if (stagingPostChunkedPurgeDao == null && jdbcTemplate != null) {
+            stagingPostChunkedPurgeDao = new JdbcStagingPostChunkedPurgeDao(jdbcTemplate);
+        }
+        if (subscriptionMetricsRollupDao == null && jdbcTemplate != null) {
+            JdbcSubscriptionMetricsRollupDao jdbcSubscriptionMetricsRollupDao = new JdbcSubscriptionMetricsRollupDao(jdbcTemplate);
+            if (configProps.isCreateSchema()) {
+                jdbcSubscriptionMetricsRollupDao.createSchema();
+            }
+            subscriptionMetricsRollupDao = jdbcSubscriptionMetricsRollupDao;
+        }
+        purgeCursorStore = new PurgeCursorStore(isBlank(configProps.getCursorPath()) ? null : Path.of(configProps.getCursorPath()), clusterCoordinator);
+        log.info("Purger constructed, isChunked={}, isMetricsRollup={}, purgeCursorStore={}", isChunked(), isMetricsRollup(), purgeCursorStore);
+    }
+
+    /**
+     * Check the health of the purger.
+     *
+     * @return A Health object with the progress of chunked purge jobs.
+     */
+    @SuppressWarnings("unused")
+    public final Health health() {
+        return Health.up()
+                .withDetail("isChunked", isChunked())
+                .withDetail("purgeChunkCt", chunkCt.sum())
+                .withDetail("purgeChunkRowCt", chunkRowCt.sum())
+                .withDetail("lastPurgeChunkMs", lastChunkMs)
+                .withDetail(PURGE_ARCHIVED_POSTS + "Cursor", purgeCursorStore.get(PURGE_ARCHIVED_POSTS))
+                .withDetail(MARK_IDLE_POSTS_FOR_ARCHIVE + "Cursor", purgeCursorStore.get(MARK_IDLE_POSTS_FOR_ARCHIVE))
+                .withDetail("isMetricsRollup", isMetricsRollup())
+                .withDetail(ROLL_UP_RAW_SUBSCRIPTION_METRICS + "Cursor", purgeCursorStore.get(ROLL_UP_RAW_SUBSCRIPTION_METRICS))
+                .withDetail(ROLL_UP_HOURLY_SUBSCRIPTION_METRICS + "Cursor", purgeCursorStore.get(ROLL_UP_HOURLY_SUBSCRIPTION_METRICS))
+                .build();
     }
 
     /**
@@ -53,8 +161,17 @@ public class PostPurger {
      */
     @SuppressWarnings("unused")
     public final int purgeArchivedPosts() throws DataAccessException {
+        return clusterCoordinator.runSingleton(LEASE_PREFIX + PURGE_ARCHIVED_POSTS, this::purgeArchivedPostsOnThisNode).orElse(0);
+    }
+
+    private int purgeArchivedPostsOnThisNode(Lease lease) throws DataAccessException {
+        if (isChunked()) {
+            log.debug("Purging ARCHIVED staging posts in chunks, params={}", configProps);
+            int chunkSize = configProps.getChunkSize();
+            return (int) runChunked(PURGE_ARCHIVED_POSTS, EnumSet.of(STAGING_POSTS), lease, afterId -> stagingPostChunkedPurgeDao.purgeArchivedPosts(afterId, chunkSize));
+        }
         log.debug("Purging ARCHIVED staging posts");
-        return stagingPostDao.purgeArchivedPosts();
+        return locked(EnumSet.of(STAGING_POSTS), () -> stagingPostDao.purgeArchivedPosts());
     }
 
     /**
@@ -65,8 +182,18 @@ public class PostPurger {
      */
     @SuppressWarnings("unused")
     public final long markIdlePostsForArchive() throws DataUpdateException {
+        return clusterCoordinator.runSingleton(LEASE_PREFIX + MARK_IDLE_POSTS_FOR_ARCHIVE, this::markIdlePostsForArchiveOnThisNode).orElse(0L);
+    }
+
+    private long markIdlePostsForArchiveOnThisNode(Lease lease) throws DataUpdateException {
         log.debug("Marking idle posts for archival, params={}", configProps);
-        return stagingPostDao.markIdlePostsForArchive(configProps.getMaxUnreadAge(), configProps.getMaxReadAge());
+        int maxUnreadAge = configProps.getMaxUnreadAge();
+        int maxReadAge = configProps.getMaxReadAge();
+        if (isChunked()) {
+            int chunkSize = configProps.getChunkSize();
+            return runChunked(MARK_IDLE_POSTS_FOR_ARCHIVE, EnumSet.of(STAGING_POSTS), lease, afterId -> stagingPostChunkedPurgeDao.markIdlePostsForArchive(maxUnreadAge, maxReadAge, afterId, chunkSize));
+        }
+        return locked(EnumSet.of(STAGING_POSTS), () -> stagingPostDao.markIdlePostsForArchive(maxUnreadAge, maxReadAge));
     }
 
     /**
@@ -78,19 +205,141 @@ public class PostPurger {
     @SuppressWarnings("unused")
     public final long purgeDeletedQueues() throws DataAccessException {
         log.debug("Purging DELETED queues, params={}", configProps);
-        return queueDefinitionDao.purgeDeleted();
+        return clusterCoordinator.runSingleton(LEASE_PREFIX + PURGE_DELETED_QUEUES,
+                lease -> locked(EnumSet.of(QUEUES), () -> queueDefinitionDao.purgeDeleted())).orElse(0L);
     }
 
     /**
-     * Purges orphaned query metrics.
+     * Purges orphaned query metrics, and the orphaned aggregates of rolled-up query metrics.
      *
-     * @return The number of purged orphaned query metrics.
+     * @return The number of purged orphaned query metrics and aggregates.
      * @throws DataAccessException If there is an issue accessing the data.
      */
     @SuppressWarnings("unused")
     public final long purgeOrphanedQueryMetrics() throws DataAccessException {
         log.debug("Purging ORPHANED query metrics, params={}", configProps);
-        return subscriptionMetricsDao.purgeOrphaned();
+        return clusterCoordinator.runSingleton(LEASE_PREFIX + PURGE_ORPHANED_QUERY_METRICS,
+                lease -> locked(EnumSet.of(SUBSCRIPTION_METRICS), this::purgeOrphanedQueryMetricsOnThisNode)).orElse(0L);
+    }
+
+    private long purgeOrphanedQueryMetricsOnThisNode() throws DataAccessException {
+        long purgeCt = subscriptionMetricsDao.purgeOrphaned();
+        if (subscriptionMetricsRollupDao != null) {
+            purgeCt += subscriptionMetricsRollupDao.purgeOrphanedRollups();
+        }
+        return purgeCt;
+    }
+
+    /**
+     * Rolls up subscription metrics past retention: raw metrics into hourly aggregates, then hourly aggregates into
+     * daily aggregates, in chunks.  Does nothing unless a {@link SubscriptionMetricsRollupDao} is available.
+     *
+     * @return The number of raw metrics and hourly aggregates rolled up.
+     * @throws DataUpdateException If there is an issue updating the data.
+     */
+    @SuppressWarnings("unused")
+    public final long rollUpSubscriptionMetrics() throws DataUpdateException {
+        if (!isMetricsRollup()) {
+            log.debug("Skipping subscription metrics rollup, no rollup DAO is configured");
+            return 0L;
+        }
+        return clusterCoordinator.runSingleton(LEASE_PREFIX + ROLL_UP_SUBSCRIPTION_METRICS, this::rollUpSubscriptionMetricsOnThisNode).orElse(0L);
+    }
+
+    private long rollUpSubscriptionMetricsOnThisNode(Lease lease) throws DataUpdateException {
+        log.debug("Rolling up subscription metrics, params={}", configProps);
+        int chunkSize = configProps.getChunkSize();
+        long now = currentTimeMillis();
+        int rawRetentionHours = configProps.getMetricsRawRetentionHours();
+        if (rawRetentionHours < MIN_METRICS_RAW_RETENTION_HOURS) {
+            log.warn("Raw subscription metrics retention of {} hours is too short for rescheduling, using {} hours",
+                    rawRetentionHours, MIN_METRICS_RAW_RETENTION_HOURS);
+            rawRetentionHours = MIN_METRICS_RAW_RETENTION_HOURS;
+        }
+        Date importedBefore = new Date(now - HOURS.toMillis(rawRetentionHours));
+        long rolledUpCt = runChunked(ROLL_UP_RAW_SUBSCRIPTION_METRICS, EnumSet.of(SUBSCRIPTION_METRICS), lease,
+                afterId -> subscriptionMetricsRollupDao.rollUpRawMetrics(importedBefore, afterId, chunkSize));
+        Date periodStartBefore = new Date(now - DAYS.toMillis(Math.max(1, configProps.getMetricsHourlyRetentionDays())));
+        rolledUpCt += runChunked(ROLL_UP_HOURLY_SUBSCRIPTION_METRICS, EnumSet.of(SUBSCRIPTION_METRICS), lease,
+                afterId -> subscriptionMetricsRollupDao.rollUpHourlyAggregates(periodStartBefore, afterId, chunkSize));
+        return rolledUpCt;
+    }
+
+    private boolean isMetricsRollup() {
+        return subscriptionMetricsRollupDao != null && configProps.getChunkSize() > 0;
+    }
+
+    private boolean isChunked() {
+        return stagingPostChunkedPurgeDao != null && configProps.getChunkSize() > 0;
+    }
+
+    @FunctionalInterface
+    private interface ChunkOperation<E extends Exception> {
+        PurgeChunk apply(long afterId) throws E;
+    }
+
+    @FunctionalInterface
+    private interface MaintenanceOperation<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private <T, E extends Exception> T locked(Set<MaintenanceLocks.MaintenancePartition> partitions, MaintenanceOperation<T, E> operation) throws E {
+        maintenanceLocks.lock(partitions);
+        try {
+            return operation.run();
+        } finally {
+            maintenanceLocks.unlock(partitions);
+        }
+    }
+
+    //
+    // runs the given job in chunks, starting from its persisted cursor, until a chunk comes up short; the cursor is
+    // persisted after each chunk, and reset once the job completes.  The given partitions are locked for each chunk
+    // (not for the whole job), so that an import run waits for one chunk at most.  If interrupted while pausing between
+    // chunks, or if the job's lease is no longer held (so that another node may have taken the job over), the job stops
+    // (and resumes from its cursor on the next run).
+    //
+    private <E extends Exception> long runChunked(String jobName, Set<MaintenanceLocks.MaintenancePartition> partitions, Lease lease, ChunkOperation<E> chunkOperation) throws E {
+        int chunkSize = configProps.getChunkSize();
+        long afterId = purgeCursorStore.get(jobName);
+        if (afterId > 0L) {
+            log.info("Resuming chunked job={} from cursor={}", jobName, afterId);
+        }
+        long startNanos = nanoTime();
+        long totalCt = 0L;
+        int jobChunkCt = 0;
+        while (true) {
+            if (!lease.isHeld()) {
+                log.warn("Chunked job={} no longer holds its lease, stopping; will resume from cursor={}", jobName, afterId);
+                break;
+            }
+            long chunkStartNanos = nanoTime();
+            long chunkAfterId = afterId;
+            PurgeChunk chunk = locked(partitions, () -> chunkOperation.apply(chunkAfterId));
+            long chunkMs = NANOSECONDS.toMillis(nanoTime() - chunkStartNanos);
+            totalCt += chunk.rowCt();
+            jobChunkCt++;
+            chunkCt.increment();
+            chunkRowCt.add(chunk.rowCt());
+            lastChunkMs = chunkMs;
+            log.info("Chunked job={} progress: chunk={}, afterId={}, lastId={}, rowCt={}, chunkMs={}, totalCt={}",
+                    jobName, jobChunkCt, afterId, chunk.lastId(), chunk.rowCt(), chunkMs, totalCt);
+            if (chunk.rowCt() < chunkSize) {
+                purgeCursorStore.put(lease, jobName, 0L);
+                break;
+            }
+            afterId = chunk.lastId();
+            purgeCursorStore.put(lease, jobName, afterId);
+            try {
+                Thread.sleep(configProps.getChunkPauseMs());
+            } catch (InterruptedException e) {
+                log.warn("Chunked job={} interrupted, will resume from cursor={}", jobName, afterId);
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        log.info("Chunked job={} finished: chunkCt={}, totalCt={}, elapsedMs={}", jobName, jobChunkCt, totalCt, NANOSECONDS.toMillis(nanoTime() - startNanos));
+        return totalCt;
     }
 
     @Override
@@ -100,6 +349,11 @@ public class PostPurger {
                 ", subscriptionMetricsDao=" + subscriptionMetricsDao +
                 ", queueDefinitionDao=" + queueDefinitionDao +
                 ", configProps=" + configProps +
+                ", stagingPostChunkedPurgeDao=" + stagingPostChunkedPurgeDao +
+                ", subscriptionMetricsRollupDao=" + subscriptionMetricsRollupDao +
+                ", purgeCursorStore=" + purgeCursorStore +
+                ", maintenanceLocks=" + maintenanceLocks +
+                ", clusterCoordinator=" + clusterCoordinator +
                 '}';
     }
 }
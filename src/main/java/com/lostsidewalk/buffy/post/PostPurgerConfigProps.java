@@ -7,7 +7,8 @@ import org.springframework.context.annotation.Configuration;
 
 /**
  * Configuration properties class for configuring post purging settings.
- * This class is used to specify age limits for purging unread, read, and all posts.
+ * This class is used to specify age limits for purging unread, read, and all posts, the chunking of the purge
+ * jobs, and the retention of the subscription metrics history.
  */
 @Slf4j
 @Configuration
@@ -20,6 +21,20 @@ public class PostPurgerConfigProps {
 
     int maxPostAge;
 
+    int chunkSize = 1000;
+
+    long chunkPauseMs = 250L;
+
+    String cursorPath = "post-purger.cursor";
+
+    int maintenanceThreadCt = 2;
+
+    int metricsRawRetentionHours = 72;
+
+    int metricsHourlyRetentionDays = 30;
+
+    boolean createSchema;
+
     /**
      * Default constructor; initializes the object.
      */
@@ -83,12 +98,154 @@ public class PostPurgerConfigProps {
         this.maxPostAge = maxPostAge;
     }
 
+    /**
+     * Maximum number of posts purged (or marked for archive) per chunk; zero runs each job as a single statement.
+     *
+     * @return The chunk size.
+     */
+    public final int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Set the maximum number of posts purged (or marked for archive) per chunk; zero runs each job as a single statement.
+     *
+     * @param chunkSize The chunk size.
+     */
+    @SuppressWarnings("unused")
+    public final void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Pause (in milliseconds) between chunks, which throttles a chunked job.
+     *
+     * @return The chunk pause.
+     */
+    public final long getChunkPauseMs() {
+        return chunkPauseMs;
+    }
+
+    /**
+     * Set the pause (in milliseconds) between chunks, which throttles a chunked job.
+     *
+     * @param chunkPauseMs The chunk pause.
+     */
+    @SuppressWarnings("unused")
+    public final void setChunkPauseMs(long chunkPauseMs) {
+        this.chunkPauseMs = chunkPauseMs;
+    }
+
+    /**
+     * Path of the file in which the key cursors of chunked jobs are kept, so that an interrupted job resumes; blank to
+     * keep them in memory only.  Not used in a cluster, where the cursors are kept in the database.
+     *
+     * @return The cursor path.
+     */
+    public final String getCursorPath() {
+        return cursorPath;
+    }
+
+    /**
+     * Set the path of the file in which the key cursors of chunked jobs are kept; blank to keep them in memory only.
+     *
+     * @param cursorPath The cursor path.
+     */
+    @SuppressWarnings("unused")
+    public final void setCursorPath(String cursorPath) {
+        this.cursorPath = cursorPath;
+    }
+
+    /**
+     * Number of maintenance partitions run concurrently by the maintenance orchestrator.
+     *
+     * @return The maintenance thread count.
+     */
+    public final int getMaintenanceThreadCt() {
+        return maintenanceThreadCt;
+    }
+
+    /**
+     * Set the number of maintenance partitions run concurrently by the maintenance orchestrator.
+     *
+     * @param maintenanceThreadCt The maintenance thread count.
+     */
+    @SuppressWarnings("unused")
+    public final void setMaintenanceThreadCt(int maintenanceThreadCt) {
+        this.maintenanceThreadCt = maintenanceThreadCt;
+    }
+
+    /**
+     * Age (in hours) past which raw subscription metrics are rolled up into hourly aggregates.
+     *
+     * @return The raw metrics retention.
+     */
+    public final int getMetricsRawRetentionHours() {
+        return metricsRawRetentionHours;
+    }
+
+    /**
+     * Set the age (in hours) past which raw subscription metrics are rolled up into hourly aggregates.
+     *
+     * @param metricsRawRetentionHours The raw metrics retention.
+     */
+    @SuppressWarnings("unused")
+    public final void setMetricsRawRetentionHours(int metricsRawRetentionHours) {
+        this.metricsRawRetentionHours = metricsRawRetentionHours;
+    }
+
+    /**
+     * Age (in days) past which hourly subscription metrics aggregates are rolled up into daily aggregates.
+     *
+     * @return The hourly aggregate retention.
+     */
+    public final int getMetricsHourlyRetentionDays() {
+        return metricsHourlyRetentionDays;
+    }
+
+    /**
+     * Set the age (in days) past which hourly subscription metrics aggregates are rolled up into daily aggregates.
+     *
+     * @param metricsHourlyRetentionDays The hourly aggregate retention.
+     */
+    @SuppressWarnings("unused")
+    public final void setMetricsHourlyRetentionDays(int metricsHourlyRetentionDays) {
+        this.metricsHourlyRetentionDays = metricsHourlyRetentionDays;
+    }
+
+    /**
+     * Whether the purger creates the tables it adds (the subscription metrics rollup table) on startup, if they do not
+     * exist; when disabled (the default), they must have been created beforehand.
+     *
+     * @return True if the purger creates its tables.
+     */
+    public final boolean isCreateSchema() {
+        return createSchema;
+    }
+
+    /**
+     * Set whether the purger creates the tables it adds on startup, if they do not exist.
+     *
+     * @param createSchema True to create the tables.
+     */
+    @SuppressWarnings("unused")
+    public final void setCreateSchema(boolean createSchema) {
+        this.createSchema = createSchema;
+    }
+
     @Override
     public final String toString() {
         return "PostPurgerConfigProps{" +
                 "maxUnreadAge=" + maxUnreadAge +
                 ", maxReadAge=" + maxReadAge +
                 ", maxPostAge=" + maxPostAge +
+                ", chunkSize=" + chunkSize +
+                ", chunkPauseMs=" + chunkPauseMs +
+                ", cursorPath='" + cursorPath + '\'' +
+                ", maintenanceThreadCt=" + maintenanceThreadCt +
+                ", metricsRawRetentionHours=" + metricsRawRetentionHours +
+                ", metricsHourlyRetentionDays=" + metricsHourlyRetentionDays +
+                ", createSchema=" + createSchema +
                 '}';
     }
 }
@@ -0,0 +1,11 @@
+package com.lostsidewalk.buffy.post;
+
+/**
+ * The outcome of a single chunk of a chunked purge (or mark) job.  A chunk with fewer rows than were asked for is the
+ * last one.
+ *
+ * @param rowCt  The number of rows purged (or marked) by the chunk.
+ * @param lastId The greatest key among those rows, from which the next chunk starts.
+ */
+public record PurgeChunk(int rowCt, long lastId) {
+}
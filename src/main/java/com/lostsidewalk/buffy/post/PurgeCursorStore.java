@@ -0,0 +1,101 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.cluster.ClusterCoordinator;
+import com.lostsidewalk.buffy.cluster.ClusterCoordinator.Lease;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * The key cursor of each chunked purge job, so that an interrupted job resumes from the last completed chunk.  In a
+ * cluster, the cursors are kept in the database by the {@link ClusterCoordinator}, since the jobs run wherever their
+ * lease is taken, and a cursor is saved only while the job's lease is held.  Otherwise they are kept in a local file,
+ * which is rewritten (atomically) after every chunk.  Failure to read or write a cursor is logged, and only costs the
+ * job its place.
+ */
+@Slf4j
+class PurgeCursorStore {
+
+    private final Path path;
+
+    private final ClusterCoordinator clusterCoordinator;
+
+    // guarded by itself
+    private final Properties cursors = new Properties();
+
+    PurgeCursorStore(Path path, ClusterCoordinator clusterCoordinator) {
+        this.path = path;
+        this.clusterCoordinator = clusterCoordinator;
+        if (!isClustered() && path != null && Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, UTF_8)) {
+                cursors.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Unable to read purge cursors, path={}, starting from the beginning: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private boolean isClustered() {
+        return clusterCoordinator != null && clusterCoordinator.isEnabled();
+    }
+
+    final long get(String jobName) {
+        if (isClustered()) {
+            return clusterCoordinator.getJobCursor(jobName);
+        }
+        synchronized (cursors) {
+            try {
+                return Long.parseLong(cursors.getProperty(jobName, "0"));
+            } catch (NumberFormatException e) {
+                return 0L;
+            }
+        }
+    }
+
+    final void put(Lease lease, String jobName, long cursor) {
+        if (isClustered()) {
+            if (!clusterCoordinator.putJobCursor(lease, jobName, cursor)) {
+                log.warn("Purge cursor not saved, job={}, cursor={}", jobName, cursor);
+            }
+            return;
+        }
+        synchronized (cursors) {
+            cursors.setProperty(jobName, Long.toString(cursor));
+            if (path != null) {
+                Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                try {
+                    try (Writer writer = Files.newBufferedWriter(tmp, UTF_8)) {
+                        cursors.store(writer, "purge cursors");
+                    }
+                    Files.move(tmp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+                } catch (IOException e) {
+                    log.warn("Unable to write purge cursors, path={}: {}", path, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public final String toString() {
+        if (isClustered()) {
+            return "PurgeCursorStore{" +
+                    "isClustered=true" +
+                    '}';
+        }
+        synchronized (cursors) {
+            return "PurgeCursorStore{" +
+                    "path=" + path +
+                    ", cursors=" + cursors +
+                    '}';
+        }
+    }
+}
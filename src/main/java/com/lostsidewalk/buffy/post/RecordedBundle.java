@@ -0,0 +1,65 @@
+package com.lostsidewalk.buffy.post;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import com.lostsidewalk.buffy.importer.Importer.ImportResult;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The import results of a single bundle, as recorded by {@link ImportRecorder}: one line of JSON per bundle.
+ *
+ * @param capturedAtMillis The time (epoch millis) at which the bundle was captured, i.e., before it was processed.
+ * @param importResults    The import results of the bundle (i.e., the staging posts and subscription metrics).
+ */
+record RecordedBundle(long capturedAtMillis, List<ImportResult> importResults) {
+
+    private static final Gson GSON = new GsonBuilder()
+            // (dates as epoch millis, both ways)
+            .registerTypeAdapter(Date.class, (JsonSerializer<Date>) (src, type, ctx) -> new JsonPrimitive(src.getTime()))
+            .registerTypeAdapter(Date.class, (JsonDeserializer<Date>) (json, type, ctx) -> new Date(json.getAsLong()))
+            .create();
+
+    private static final Type IMPORT_RESULTS_TYPE = new TypeToken<List<ImportResult>>() {}.getType();
+
+    //
+    // writes the given import results as a bundle (i.e., a single line of JSON, without the line break) to the given
+    // writer, one import result at a time, so that the bundle is never held as a whole in its serialized form
+    //
+    static void writeJson(long capturedAtMillis, Iterable<? extends ImportResult> importResults, Writer writer) throws IOException {
+        // (not closed, since that would close the writer)
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.beginObject();
+        jsonWriter.name("capturedAtMillis").value(capturedAtMillis);
+        jsonWriter.name("importResults").beginArray();
+        for (ImportResult importResult : importResults) {
+            GSON.toJson(importResult, ImportResult.class, jsonWriter);
+        }
+        jsonWriter.endArray();
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+
+    static RecordedBundle fromJson(String json) {
+        JsonObject bundle = JsonParser.parseString(json).getAsJsonObject();
+        return new RecordedBundle(
+                bundle.get("capturedAtMillis").getAsLong(),
+                GSON.fromJson(bundle.get("importResults"), IMPORT_RESULTS_TYPE)
+        );
+    }
+
+    final int postCt() {
+        return importResults.stream().mapToInt(r -> r.getImportSet() == null ? 0 : r.getImportSet().size()).sum();
+    }
+}
@@ -0,0 +1,34 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.DataUpdateException;
+
+/**
+ * Optional data access interface for purging archived staging posts, and marking idle staging posts for archive, in
+ * bounded chunks (one transaction each) in key order, rather than as a single statement over the whole table.  When
+ * a bean of this type is present, the {@link PostPurger} uses it to run these jobs in chunks.
+ */
+public interface StagingPostChunkedPurgeDao {
+
+    /**
+     * Purge (at most) the given number of archived staging posts whose keys are greater than the given key.
+     *
+     * @param afterId The key after which to start (zero to start from the beginning).
+     * @param limit The maximum number of posts to purge.
+     * @return The chunk outcome, i.e., the number of posts purged and the greatest key among them.
+     * @throws DataAccessException If there is an issue accessing the data.
+     */
+    PurgeChunk purgeArchivedPosts(long afterId, int limit) throws DataAccessException;
+
+    /**
+     * Mark (at most) the given number of idle staging posts whose keys are greater than the given key for archive.
+     *
+     * @param maxUnreadAge The maximum age (in days) of unread posts.
+     * @param maxReadAge The maximum age (in days) of read posts.
+     * @param afterId The key after which to start (zero to start from the beginning).
+     * @param limit The maximum number of posts to mark.
+     * @return The chunk outcome, i.e., the number of posts marked and the greatest key among them.
+     * @throws DataUpdateException If there is an issue updating the data.
+     */
+    PurgeChunk markIdlePostsForArchive(int maxUnreadAge, int maxReadAge, long afterId, int limit) throws DataUpdateException;
+}
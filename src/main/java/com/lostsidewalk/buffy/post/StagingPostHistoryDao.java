@@ -0,0 +1,25 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.DataAccessException;
+
+/**
+ * Optional data access interface for reading stored staging posts in bounded pages, in key order, rather than all at
+ * once.  When a bean of this type is present, rules can be backtested against the stored posts of a queue or of a
+ * subscription (see {@code RuleBacktester}).
+ */
+public interface StagingPostHistoryDao {
+
+    /**
+     * Find (at most) the given number of staging posts of the given user and queue (and, optionally, subscription)
+     * whose keys are greater than the given key, in key order.
+     *
+     * @param username The username.
+     * @param queueId The queue Id.
+     * @param subscriptionId The subscription Id, or null for every subscription of the queue.
+     * @param afterId The key after which to start (zero to start from the beginning).
+     * @param limit The maximum number of posts to find.
+     * @return The page, i.e., the posts found and the greatest key among them.
+     * @throws DataAccessException If there is an issue accessing the data.
+     */
+    StagingPostPage findPosts(String username, Long queueId, Long subscriptionId, long afterId, int limit) throws DataAccessException;
+}
@@ -0,0 +1,12 @@
+package com.lostsidewalk.buffy.post;
+
+import java.util.List;
+
+/**
+ * A single page of stored staging posts, in key order.  A page with fewer posts than were asked for is the last one.
+ *
+ * @param stagingPosts The staging posts of the page.
+ * @param lastId       The greatest key among those posts, from which the next page starts.
+ */
+public record StagingPostPage(List<StagingPost> stagingPosts, long lastId) {
+}
@@ -0,0 +1,366 @@
+package com.lostsidewalk.buffy.post;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.DataConflictException;
+import com.lostsidewalk.buffy.DataUpdateException;
+import com.lostsidewalk.buffy.post.FreshnessTracker.FreshnessSample;
+import com.lostsidewalk.buffy.rule.RuleEvaluationMemo;
+import com.lostsidewalk.buffy.rule.RuleSet;
+import com.lostsidewalk.buffy.rule.RuleSetExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.lostsidewalk.buffy.post.FreshnessTracker.freshnessSample;
+import static com.lostsidewalk.buffy.post.MaintenanceLocks.MaintenancePartition.STAGING_POSTS;
+import static com.lostsidewalk.buffy.post.PostArchiver.archive;
+import static com.lostsidewalk.buffy.post.PostArchiver.archiveDate;
+import static com.lostsidewalk.buffy.post.PostImporter.StagingPostResolution.*;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
+
+/**
+ * The staging post pipeline, which moves newly imported posts through three stages connected by bounded queues:
+ * <ol>
+ *     <li>dedup (I/O-bound, on the calling thread), which skips posts already present in this bundle or the data source,
+ *     and classifies the rest for archive;</li>
+ *     <li>rule evaluation (CPU-bound, on its own pool sized to the available processors), in batches of posts of the
+ *     same subscription import set;</li>
+ *     <li>persist (I/O-bound, on a dedicated thread).</li>
+ * </ol>
+ * When a queue is full, the upstream stage is held back until the downstream stage catches up.  Under the
+ * {@link ArchiveRoutingPolicy#ARCHIVE_FIRST} policy, archived posts bypass rule evaluation and go straight to persist.
+ * The persist stage holds the staging post maintenance lock (see {@link MaintenanceLocks}) only while each post is
+ * written, so that maintenance chunks interleave with an import run rather than waiting for all of it.
+ */
+@Slf4j
+class StagingPostPipeline {
+
+    // the (maximum) number of posts of a subscription import set evaluated against its rule sets in one task
+    private static final int RULE_EVALUATION_BATCH_SIZE = 64;
+
+    private static final Set<MaintenanceLocks.MaintenancePartition> PERSIST_PARTITIONS = EnumSet.of(STAGING_POSTS);
+
+    private final StagingPostDao stagingPostDao;
+
+    private final RuleSetExecutor ruleSetExecutor;
+
+    private final ImportMetrics importMetrics;
+
+    private final MaintenanceLocks maintenanceLocks;
+
+    private final ThreadPoolExecutor ruleEvaluationThreadPool;
+
+    private final ThreadPoolExecutor persistThreadPool;
+
+    private final BlockingQueue<PipelineItem> persistQueue;
+
+    private final ArchiveRoutingPolicy archiveRoutingPolicy;
+
+    private final int archiveAge;
+
+    private final AtomicInteger dedupBacklog = new AtomicInteger();
+
+    private final LongAdder ruleEvaluationSkippedCt = new LongAdder();
+
+    final ImportPipelineStage dedupStage;
+
+    final ImportPipelineStage ruleEvaluationStage;
+
+    final ImportPipelineStage persistStage;
+
+    StagingPostPipeline(StagingPostDao stagingPostDao, RuleSetExecutor ruleSetExecutor, ImportMetrics importMetrics, MaintenanceLocks maintenanceLocks,
+                        int ruleEvaluationThreadCt, int queueCapacity, ArchiveRoutingPolicy archiveRoutingPolicy, int archiveAge)
+    {
+        this.stagingPostDao = stagingPostDao;
+        this.ruleSetExecutor = ruleSetExecutor;
+        this.importMetrics = importMetrics;
+        this.maintenanceLocks = maintenanceLocks;
+        this.archiveRoutingPolicy = archiveRoutingPolicy;
+        this.archiveAge = archiveAge;
+        this.ruleEvaluationThreadPool = new ThreadPoolExecutor(ruleEvaluationThreadCt, ruleEvaluationThreadCt, 0L, MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("rule-evaluator-%d").build(),
+                // when the rule evaluation queue is full, the dedup stage evaluates rules itself (backpressure)
+                new CallerRunsPolicy());
+        // (a ThreadPoolExecutor rather than a single thread executor, whose wrapper hides the pool from the meters)
+        this.persistThreadPool = new ThreadPoolExecutor(1, 1, 0L, MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("post-persister-%d").build());
+        this.persistQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dedupStage = new ImportPipelineStage("dedup", dedupBacklog::get, importMetrics.stageTimer("dedup"), null);
+        this.ruleEvaluationStage = new ImportPipelineStage("ruleEvaluation", () -> ruleEvaluationThreadPool.getQueue().size(),
+                null, importMetrics.stageBatchTimer("ruleEvaluation"));
+        this.persistStage = new ImportPipelineStage("persist", persistQueue::size, importMetrics.stageTimer("persist"), null);
+        getStages().forEach(importMetrics::registerStageQueueDepth);
+        importMetrics.registerThreadPool(ruleEvaluationThreadPool, "rule-evaluator");
+        importMetrics.registerThreadPool(persistThreadPool, "post-persister");
+    }
+
+    /**
+     * Run the given subscription import sets through the pipeline, accumulating the resolution counts of each,
+     * and wait for every post to be persisted.
+     *
+     * @param subscriptionImportSets The subscription import sets to process.
+     * @param ruleEvaluationMemo The memo of rule match results for the current import run.
+     * @throws DataAccessException  If there is an issue accessing the data.
+     * @throws DataUpdateException  If there is an issue updating the data.
+     * @throws DataConflictException If there is a duplicate key.
+     * @throws InterruptedException If the calling thread is interrupted while waiting on the pipeline.
+     */
+    final void process(Collection<SubscriptionImportSet> subscriptionImportSets, RuleEvaluationMemo ruleEvaluationMemo)
+            throws DataAccessException, DataUpdateException, DataConflictException, InterruptedException
+    {
+        dedupBacklog.set(subscriptionImportSets.stream().mapToInt(s -> s.importSet.size()).sum());
+        // (the archive date is computed once per run)
+        PipelineRun run = new PipelineRun(ruleEvaluationMemo, archiveDate(archiveAge));
+        try {
+            for (SubscriptionImportSet subscriptionImportSet : subscriptionImportSets) {
+                for (StagingPost stagingPost : subscriptionImportSet.importSet) {
+                    run.dedup(stagingPost, subscriptionImportSet);
+                    dedupBacklog.decrementAndGet();
+                }
+                run.submitRuleEvaluation();
+            }
+        } finally {
+            dedupBacklog.set(0);
+            try {
+                run.awaitRuleEvaluation();
+            } finally {
+                run.awaitPersist();
+            }
+        }
+    }
+
+    final void shutdown() {
+        ruleEvaluationThreadPool.shutdownNow();
+        persistThreadPool.shutdownNow();
+    }
+
+    final boolean isShutdown() {
+        return ruleEvaluationThreadPool.isShutdown() || persistThreadPool.isShutdown();
+    }
+
+    final List<ImportPipelineStage> getStages() {
+        return List.of(dedupStage, ruleEvaluationStage, persistStage);
+    }
+
+    //
+    // the number of archived posts that have bypassed rule evaluation
+    //
+    final long getRuleEvaluationSkippedCt() {
+        return ruleEvaluationSkippedCt.sum();
+    }
+
+    private record PipelineItem(StagingPost stagingPost, SubscriptionImportSet subscriptionImportSet, boolean isArchived) {
+    }
+
+    // marks the end of the persist queue for a pipeline run
+    private static final PipelineItem END_OF_RUN = new PipelineItem(null, null, false);
+
+    //
+    // a single run of the pipeline (i.e., one bundle of import results)
+    //
+    private final class PipelineRun {
+
+        private final RuleEvaluationMemo ruleEvaluationMemo;
+
+        private final Date archiveDate;
+
+        // hashes of posts already accepted in this run, so that in-bundle duplicates are skipped before they reach the data source
+        private final Set<String> acceptedPostHashes = new HashSet<>(256);
+
+        private final List<Future<?>> ruleEvaluationFutures = new ArrayList<>(256);
+
+        // posts of the current subscription import set awaiting rule evaluation, submitted in batches
+        private List<PipelineItem> ruleEvaluationBatch = new ArrayList<>(RULE_EVALUATION_BATCH_SIZE);
+
+        private final Future<?> persistFuture;
+
+        private volatile Exception persistFailure;
+
+        PipelineRun(RuleEvaluationMemo ruleEvaluationMemo, Date archiveDate) {
+            this.ruleEvaluationMemo = ruleEvaluationMemo;
+            this.archiveDate = archiveDate;
+            this.persistFuture = persistThreadPool.submit(() -> {
+                persistAll();
+                return null;
+            });
+        }
+        //
+        // dedup stage
+        //
+        void dedup(StagingPost stagingPost, SubscriptionImportSet subscriptionImportSet)
+                throws DataAccessException, DataUpdateException, DataConflictException, InterruptedException
+        {
+            rethrowPersistFailure();
+            long startNanos = nanoTime();
+            // compute a hash of the post, attempt to find it in this run or the data source;
+            String postHash = stagingPost.getPostHash();
+            boolean exists = !acceptedPostHashes.add(postHash) || checkExists(postHash);
+            if (exists) {
+                subscriptionImportSet.processingNanos.add(dedupStage.record(startNanos));
+                // log if present,
+                log.debug("Staging post already exists, hash={}", postHash);
+                log.debug("Skipping staging post from importerDesc={}, hash={}", stagingPost.getImporterDesc(), postHash);
+                subscriptionImportSet.record(SKIP_ALREADY_EXISTS);
+                return;
+            }
+            // classify the post for archive
+            boolean isArchived = archive(stagingPost, archiveDate);
+            subscriptionImportSet.processingNanos.add(dedupStage.record(startNanos));
+            PipelineItem item = new PipelineItem(stagingPost, subscriptionImportSet, isArchived);
+            if (isNotEmpty(subscriptionImportSet.ruleSets)) {
+                if (isArchived && archiveRoutingPolicy == ArchiveRoutingPolicy.ARCHIVE_FIRST) {
+                    // nobody will see this post, so rules (and their web hooks) are not run
+                    ruleEvaluationSkippedCt.increment();
+                    persistQueue.put(item);
+                } else {
+                    ruleEvaluationBatch.add(item);
+                    if (ruleEvaluationBatch.size() >= RULE_EVALUATION_BATCH_SIZE) {
+                        submitRuleEvaluation();
+                    }
+                }
+            } else {
+                persistQueue.put(item);
+            }
+        }
+        private boolean checkExists(String postHash) throws DataAccessException {
+            long startNanos = nanoTime();
+            try {
+                return stagingPostDao.checkExists(postHash);
+            } finally {
+                importMetrics.recordDedupQuery(nanoTime() - startNanos);
+            }
+        }
+        //
+        // rule evaluation stage
+        //
+        // submits the pending batch (all of the same subscription import set) for rule evaluation; called when the
+        // batch is full, and at the end of each subscription import set
+        //
+        void submitRuleEvaluation() {
+            if (ruleEvaluationBatch.isEmpty()) {
+                return;
+            }
+            List<PipelineItem> batch = ruleEvaluationBatch;
+            ruleEvaluationBatch = new ArrayList<>(RULE_EVALUATION_BATCH_SIZE);
+            ruleEvaluationFutures.add(ruleEvaluationThreadPool.submit(() -> {
+                evaluateRules(batch);
+                for (PipelineItem item : batch) {
+                    persistQueue.put(item);
+                }
+                return null;
+            }));
+        }
+
+        private void evaluateRules(List<PipelineItem> batch) {
+            long startNanos = nanoTime();
+            List<StagingPost> stagingPosts = batch.stream().map(PipelineItem::stagingPost).toList();
+            SubscriptionImportSet subscriptionImportSet = batch.get(0).subscriptionImportSet;
+            subscriptionImportSet.ruleSets.forEach(r -> ruleSetExecutor.execute(r, stagingPosts, ruleEvaluationMemo));
+            subscriptionImportSet.processingNanos.add(ruleEvaluationStage.record(startNanos, stagingPosts.size()));
+        }
+
+        //
+        // waits for every rule evaluation task of this run (so that none can enqueue after the end of the run), then
+        // rethrows the first failure, if any
+        //
+        void awaitRuleEvaluation() throws InterruptedException {
+            Throwable failure = null;
+            for (Future<?> f : ruleEvaluationFutures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    failure = failure == null ? e.getCause() : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure instanceof RuntimeException r ? r : new IllegalStateException(failure);
+            }
+        }
+        //
+        // persist stage
+        //
+        private void persistAll() throws InterruptedException {
+            while (true) {
+                PipelineItem item = persistQueue.take();
+                if (item == END_OF_RUN) {
+                    break;
+                }
+                if (persistFailure != null) {
+                    // keep draining so that upstream stages never block on a failed run
+                    continue;
+                }
+                long startNanos = nanoTime();
+                try {
+                    persist(item.stagingPost);
+                    item.subscriptionImportSet.record(item.isArchived ? ARCHIVED : PERSISTED);
+                    if (!item.isArchived) {
+                        FreshnessSample freshnessSample = freshnessSample(item.stagingPost, currentTimeMillis());
+                        if (freshnessSample != null) {
+                            item.subscriptionImportSet.freshnessSamples.add(freshnessSample);
+                        }
+                    }
+                } catch (DataAccessException | DataUpdateException | DataConflictException | RuntimeException e) {
+                    persistFailure = e;
+                }
+                item.subscriptionImportSet.processingNanos.add(persistStage.record(startNanos));
+            }
+        }
+
+        private void persist(StagingPost stagingPost) throws DataAccessException, DataUpdateException, DataConflictException {
+            maintenanceLocks.lock(PERSIST_PARTITIONS);
+            try {
+                stagingPostDao.add(stagingPost);
+            } finally {
+                maintenanceLocks.unlock(PERSIST_PARTITIONS);
+            }
+        }
+
+        void awaitPersist() throws DataAccessException, DataUpdateException, DataConflictException, InterruptedException {
+            persistQueue.put(END_OF_RUN);
+            try {
+                persistFuture.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            rethrowPersistFailure();
+        }
+
+        @SuppressWarnings("ChainOfInstanceofChecks")
+        private void rethrowPersistFailure() throws DataAccessException, DataUpdateException, DataConflictException {
+            Exception e = persistFailure;
+            if (e instanceof DataAccessException dae) {
+                throw dae;
+            } else if (e instanceof DataUpdateException due) {
+                throw due;
+            } else if (e instanceof DataConflictException dce) {
+                throw dce;
+            } else if (e instanceof RuntimeException re) {
+                throw re;
+            }
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "StagingPostPipeline{" +
+                "stagingPostDao=" + stagingPostDao +
+                ", ruleSetExecutor=" + ruleSetExecutor +
+                ", ruleEvaluationThreadPool=" + ruleEvaluationThreadPool +
+                ", persistThreadPool=" + persistThreadPool +
+                ", archiveRoutingPolicy=" + archiveRoutingPolicy +
+                ", archiveAge=" + archiveAge +
+                ", ruleEvaluationSkippedCt=" + ruleEvaluationSkippedCt +
+                ", stages=" + getStages() +
+                '}';
+    }
+}
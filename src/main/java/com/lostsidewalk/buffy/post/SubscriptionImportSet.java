@@ -0,0 +1,85 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.post.FreshnessTracker.FreshnessSample;
+import com.lostsidewalk.buffy.post.PostImporter.StagingPostResolution;
+import com.lostsidewalk.buffy.rule.RuleSet;
+import com.lostsidewalk.buffy.subscription.SubscriptionMetrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Collections.synchronizedList;
+
+/**
+ * The unit of work handed to the staging post pipeline: the newly imported posts of a single subscription, the
+ * rule sets to execute against them, and the resolution counts accumulated as the posts move through the pipeline.
+ * The posts are held only until they are flushed through the pipeline (a bundle may be flushed more than once), while
+ * the counts accumulate across flushes.
+ */
+class SubscriptionImportSet {
+
+    // the metrics of each importer of the subscription
+    final List<SubscriptionMetrics> subscriptionMetrics;
+
+    // the posts pending the next flush, by post hash (so that a post is identified without hashing its contents)
+    private final Map<String, StagingPost> pendingByPostHash = new HashMap<>(32);
+
+    // the posts pending the next flush (cleared by the flush)
+    final Collection<StagingPost> importSet = pendingByPostHash.values();
+
+    final List<? extends RuleSet> ruleSets;
+
+    final AtomicInteger persistCt = new AtomicInteger();
+
+    final AtomicInteger skipCt = new AtomicInteger();
+
+    final AtomicInteger archiveCt = new AtomicInteger();
+
+    // the freshness of each persisted (i.e., not archived) post
+    final List<FreshnessSample> freshnessSamples = synchronizedList(new ArrayList<>(16));
+
+    // the time (ns) spent by the pipeline stages on the posts of the import set, across flushes
+    final LongAdder processingNanos = new LongAdder();
+
+    // whether any posts of the import set have been handed to the pipeline (i.e., whether its counts mean anything)
+    boolean isFlushed;
+
+    SubscriptionImportSet(List<SubscriptionMetrics> subscriptionMetrics, List<? extends RuleSet> ruleSets) {
+        this.subscriptionMetrics = subscriptionMetrics;
+        this.ruleSets = ruleSets;
+    }
+
+    //
+    // adds a post pending the next flush, unless a post with the same hash is already pending
+    //
+    final boolean add(StagingPost stagingPost) {
+        return pendingByPostHash.putIfAbsent(stagingPost.getPostHash(), stagingPost) == null;
+    }
+
+    //
+    // records the resolution of one post of this import set (may be called from any pipeline stage)
+    //
+    final void record(StagingPostResolution resolution) {
+        switch (resolution) {
+            case PERSISTED -> persistCt.incrementAndGet();
+            case ARCHIVED -> archiveCt.incrementAndGet();
+            case SKIP_ALREADY_EXISTS -> skipCt.incrementAndGet();
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "SubscriptionImportSet{" +
+                "subscriptionId=" + subscriptionMetrics.get(0).getSubscriptionId() +
+                ", pendingCt=" + importSet.size() +
+                ", persistCt=" + persistCt +
+                ", skipCt=" + skipCt +
+                ", archiveCt=" + archiveCt +
+                '}';
+    }
+}
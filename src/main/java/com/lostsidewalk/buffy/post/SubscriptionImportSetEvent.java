@@ -0,0 +1,47 @@
+package com.lostsidewalk.buffy.post;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event (an instant) recording the processing of the import set of a single subscription, once its
+ * metrics are persisted: its resolution counts, and the time that the pipeline stages spent on its posts.  The posts
+ * of every import set of a bundle move through the pipeline together, so the processing of one import set is not a
+ * span of time of its own.  Disabled unless the recording enables it (see {@code newsgears.jfc}).
+ */
+@Name("com.lostsidewalk.buffy.SubscriptionImportSet")
+@Label("Subscription Import Set")
+@Category({"NewsGears", "Import"})
+@Description("The processing of the newly imported posts of a subscription")
+@Enabled(false)
+@StackTrace(false)
+class SubscriptionImportSetEvent extends jdk.jfr.Event {
+
+    @Label("Subscription Id")
+    long subscriptionId;
+
+    @Label("Import Schedule")
+    String importSchedule;
+
+    @Label("Rule Set Count")
+    int ruleSetCt;
+
+    @Label("Persist Count")
+    int persistCt;
+
+    @Label("Skip Count")
+    int skipCt;
+
+    @Label("Archive Count")
+    int archiveCt;
+
+    @Label("Processing Time")
+    @Description("The time spent by the dedup, rule evaluation and persist stages on the posts of the import set")
+    @Timespan(Timespan.NANOSECONDS)
+    long processingNanos;
+}
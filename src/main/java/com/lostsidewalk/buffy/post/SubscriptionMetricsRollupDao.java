@@ -0,0 +1,52 @@
+package com.lostsidewalk.buffy.post;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.DataUpdateException;
+
+import java.util.Date;
+
+/**
+ * Optional data access interface for compacting the subscription metrics history, in bounded chunks (one transaction
+ * each) in key order: raw metrics past retention are rolled up into hourly aggregates, and hourly aggregates past
+ * retention into daily aggregates.  An aggregate keeps, for a single subscription, import schedule and period (an
+ * hour or a day), the number of imports, of failed imports and of imports that persisted nothing, and the total
+ * number of posts imported, persisted, skipped and archived; rescheduling only ever looks at raw metrics (see
+ * {@link ImportScheduler}).  Rolling up adds to the aggregate of the period, if any, so that a period may be rolled up
+ * across several chunks or runs.  When one is available (by default, over the {@code JdbcTemplate}, if
+ * there is one; see {@link JdbcSubscriptionMetricsRollupDao}), the {@link PostPurger} runs these jobs alongside its
+ * other maintenance.
+ */
+public interface SubscriptionMetricsRollupDao {
+
+    /**
+     * Roll up (at most) the given number of raw subscription metrics imported before the given time, whose keys are
+     * greater than the given key, into their hourly aggregates, and delete them.
+     *
+     * @param importedBefore The time before which raw metrics are rolled up.
+     * @param afterId The key after which to start (zero to start from the beginning).
+     * @param limit The maximum number of raw metrics to roll up.
+     * @return The chunk outcome, i.e., the number of raw metrics rolled up and the greatest key among them.
+     * @throws DataUpdateException If there is an issue updating the data.
+     */
+    PurgeChunk rollUpRawMetrics(Date importedBefore, long afterId, int limit) throws DataUpdateException;
+
+    /**
+     * Roll up (at most) the given number of hourly aggregates of periods starting before the given time, whose keys
+     * are greater than the given key, into their daily aggregates, and delete them.
+     *
+     * @param periodStartBefore The time before which hourly aggregates are rolled up.
+     * @param afterId The key after which to start (zero to start from the beginning).
+     * @param limit The maximum number of hourly aggregates to roll up.
+     * @return The chunk outcome, i.e., the number of hourly aggregates rolled up and the greatest key among them.
+     * @throws DataUpdateException If there is an issue updating the data.
+     */
+    PurgeChunk rollUpHourlyAggregates(Date periodStartBefore, long afterId, int limit) throws DataUpdateException;
+
+    /**
+     * Delete the aggregates of subscriptions that no longer exist.
+     *
+     * @return The number of aggregates deleted.
+     * @throws DataAccessException If there is an issue accessing the data.
+     */
+    long purgeOrphanedRollups() throws DataAccessException;
+}
@@ -0,0 +1,27 @@
+package com.lostsidewalk.buffy.rule;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A web hook request waiting (in a {@link java.util.concurrent.DelayQueue}) to be retried, or for the circuit breaker
+ * of its destination to half-open.
+ *
+ * @param webHookRequest The web hook request.
+ * @param dueNanos       The time (per {@link System#nanoTime()}) at which the request is due to be dispatched again.
+ */
+record DelayedWebHookRequest(WebHookRequest webHookRequest, long dueNanos) implements Delayed {
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(dueNanos - nanoTime(), NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+        return Long.compare(getDelay(NANOSECONDS), o.getDelay(NANOSECONDS));
+    }
+}
@@ -3,28 +3,22 @@ package com.lostsidewalk.buffy.rule;
 import com.google.gson.Gson;
 import com.lostsidewalk.buffy.post.StagingPost;
 import com.lostsidewalk.buffy.rule.RuleAction.ActionType;
-import com.lostsidewalk.buffy.rule.WebHookRequest.WebHookRequestException;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
 import java.util.Comparator;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import static com.lostsidewalk.buffy.post.StagingPost.PostReadStatus.READ;
 import static com.lostsidewalk.buffy.post.StagingPost.PostReadStatus.READ_LATER;
-import static com.lostsidewalk.buffy.rule.WebHookUtils.postWebHook;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
  * This class is responsible for handling rule actions such as webhooks.
  */
-@SuppressWarnings({"WeakerAccess", "ClassWithMultipleLoggers"})
+@SuppressWarnings("WeakerAccess")
 @Slf4j
 @Component
 public class RuleActionHandler {
@@ -35,63 +29,25 @@ public class RuleActionHandler {
     RuleActionHandler() {
     }
 
-    private final BlockingQueue<WebHookRequest> webHookRequestQueue = new LinkedBlockingQueue<>();
+    @Autowired
+    WebHookDispatcher webHookDispatcher;
 
-    @Value("${newsgears.userAgent}")
-    String newsgearsUserAgent;
-
-    private Thread webHookProcessor;
+    @Autowired
+    WebHookBatcher webHookBatcher;
 
     @PostConstruct
     final void postConstruct() {
         log.info("Rule action handler constructed");
-        //
-        // start a thread to process web hook requests
-        //
-        startWebHookProcessor();
-    }
-    //
-    // web hook request processing
-    //
-    // TODO: this needs to be multi-threaded
-    //
-    private static final Logger webHookProcessorLog = LoggerFactory.getLogger("webHookProcessor");
-    private void startWebHookProcessor() {
-        log.info("Starting web hook request processor at {}", Instant.now());
-        webHookProcessor = new Thread(() -> {
-            int totalCt = 0;
-            while (true) {
-                WebHookRequest wh = null;
-                try {
-                    wh = webHookRequestQueue.take();
-                    postWebHook(wh, newsgearsUserAgent);
-                    totalCt++;
-                } catch (InterruptedException e) {
-                    // ignored
-                } catch (WebHookRequestException e) {
-                    webHookProcessorLog.error("Something horrible happened while posting a web hook to URL={}: {}", (wh == null ? null : wh.url), e.getMessage());
-                }
-                webHookProcessorLog.debug("Web hook processor metrics: total={}", totalCt);
-            }
-        });
     }
 
     /**
      * Check the health of the rule action handler.
      *
-     * @return A Health object indicating the health status of the web hook processor.
+     * @return A Health object indicating the health status of the web hook dispatcher.
      */
     @SuppressWarnings("unused")
     public final Health health() {
-        boolean processorIsRunning = webHookProcessor.isAlive();
-
-        if (processorIsRunning) {
-            return Health.up().build();
-        } else {
-            return Health.down()
-                    .withDetail("webHookProcessorIsRunning", processorIsRunning)
-                    .build();
-        }
+        return webHookDispatcher.health();
     }
 
     //
@@ -100,44 +56,101 @@ public class RuleActionHandler {
     //
 
     final void invokeActions(Rule rule, StagingPost stagingPost) {
+        invokeActions(rule, new PostPayload(stagingPost));
+    }
+
+    //
+    // as above, sharing the given (encoded-once) payload with the actions of any other rules that match the same post
+    //
+
+    final void invokeActions(Rule rule, PostPayload postPayload) {
         long ruleId = rule.getId();
         //
         // sort the rule actions by sequence and invoke each on the staging post
         //
         rule.getActions().stream()
                 .sorted(Comparator.comparing(RuleAction::getSequence))
-                .forEach(a -> invokeAction(ruleId, stagingPost, a.getActionType(), a.getParameters()));
+                .forEach(a -> invokeAction(ruleId, postPayload, a.getActionType(), a.getParameters()));
     }
 
     //
     // this method determines the correct action to take based on the action type;
-    // in the case of a web hook, a new web hook request is submitted to the queue;
+    // in the case of a web hook, a new web hook request is submitted to the queue (or to the batcher, if the action
+    // parameters specify a batch window);
     // in the case of post status updates, those updates are made directly.
     //
 
-    private void invokeAction(long ruleId, StagingPost stagingPost, ActionType actionType, Object ... parameters) {
+    private void invokeAction(long ruleId, PostPayload postPayload, ActionType actionType, Object ... parameters) {
+        StagingPost stagingPost = postPayload.stagingPost;
         log.info("Invoking action, ruleId={}, postHash={}, actionType={}, parameters={}",
                 ruleId, stagingPost.getPostHash(), actionType, parameters);
         switch (actionType) {
-            case WEBHOOK -> webHookRequestQueue.add(new WebHookRequest(
-                    // url
-                    parameters[0].toString(),
-                    // payload
-                    serialize(stagingPost),
-                    // username,
-                    parameters.length > 1 ? parameters[1].toString() : null,
-                    // password
-                    parameters.length > 2 ? parameters[2].toString() : null
-            ));
-            case MARK_AS_READ -> stagingPost.setPostReadStatus(READ);
-            case MARK_AS_READ_LATER -> stagingPost.setPostReadStatus(READ_LATER);
+            case WEBHOOK -> {
+                WebHookRequest webHookRequest = new WebHookRequest(
+                        // username
+                        stagingPost.getUsername(),
+                        // url
+                        parameters[0].toString(),
+                        // payload
+                        postPayload.get(),
+                        // username,
+                        credentialAt(parameters, 1),
+                        // password
+                        credentialAt(parameters, 2)
+                );
+                // batch window, max count, max bytes (optional)
+                WebHookBatchPolicy.fromParameters(parameters).ifPresentOrElse(
+                        batchPolicy -> webHookBatcher.add(webHookRequest, batchPolicy),
+                        () -> webHookDispatcher.submit(webHookRequest)
+                );
+            }
+            case MARK_AS_READ -> {
+                stagingPost.setPostReadStatus(READ);
+                postPayload.invalidate();
+            }
+            case MARK_AS_READ_LATER -> {
+                stagingPost.setPostReadStatus(READ_LATER);
+                postPayload.invalidate();
+            }
         }
     }
 
+    //
+    // the username or password of a web hook action; these are placeholders (null or blank) when the action has batch
+    // parameters but no credentials, and then no credentials are sent
+    //
+    private static String credentialAt(Object[] parameters, int idx) {
+        Object credential = parameters.length > idx ? parameters[idx] : null;
+        return credential == null || isBlank(credential.toString()) ? null : credential.toString();
+    }
+
     private static final Gson GSON = new Gson();
 
-    private static String serialize(StagingPost stagingPost) {
-        return GSON.toJson(stagingPost);
+    /**
+     * The web hook payload of a single staging post, encoded as JSON on first use and then shared by every web hook
+     * the post fans out to.  Updating the post's status discards the encoded payload, so that later web hooks see the
+     * update.
+     */
+    static final class PostPayload {
+
+        final StagingPost stagingPost;
+
+        private WebHookPayload payload;
+
+        PostPayload(StagingPost stagingPost) {
+            this.stagingPost = stagingPost;
+        }
+
+        synchronized WebHookPayload get() {
+            if (payload == null) {
+                payload = WebHookPayload.toJson(GSON, stagingPost);
+            }
+            return payload;
+        }
+
+        synchronized void invalidate() {
+            payload = null;
+        }
     }
 
     //
@@ -147,9 +160,8 @@ public class RuleActionHandler {
     @Override
     public final String toString() {
         return "RuleActionHandler{" +
-                "requestQueue=" + webHookRequestQueue +
-                ", newsgearsUserAgent='" + newsgearsUserAgent + '\'' +
-                ", webHookProcessor=" + webHookProcessor +
+                "webHookDispatcher=" + webHookDispatcher +
+                ", webHookBatcher=" + webHookBatcher +
                 '}';
     }
 }
@@ -0,0 +1,243 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.post.JdbcStagingPostHistoryDao;
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.post.StagingPostHistoryDao;
+import com.lostsidewalk.buffy.post.StagingPostPage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
+
+/**
+ * Component responsible for backtesting a candidate rule set against the stored posts of a queue (or of a single
+ * subscription), i.e., reporting what the rules would have matched had they been in place when the posts were
+ * imported.  Rules are matched exactly as on import (see {@link RuleConditionMatcher}), but no actions are invoked,
+ * and the outcomes are not recorded to the {@link RuleConditionPlanner}.
+ * <p>
+ * Posts are read a page at a time (see {@link StagingPostHistoryDao}, or {@link JdbcStagingPostHistoryDao} when no other
+ * is configured, but a JDBC template is); each page is split across a fork/join pool
+ * sized to the available processors, while the next page is read.  Only two pages are held at once, however many
+ * posts are backtested.
+ */
+@Slf4j
+@Component
+public class RuleBacktester {
+
+    /**
+     * The outcome of a single rule of a backtest.
+     *
+     * @param ruleId   The rule Id, or, for a rule without one (i.e., not yet saved), its index among the results.
+     * @param ruleName The rule name.
+     * @param matchCt  The number of posts matched by the rule.
+     * @param samples  The first of the posts matched by the rule, in key order.
+     */
+    public record RuleBacktestResult(long ruleId, String ruleName, long matchCt, List<StagingPost> samples) {
+    }
+
+    /**
+     * The outcome of a backtest.
+     *
+     * @param postCt      The number of posts against which the rule set was evaluated.
+     * @param matchCt     The number of posts matched by any rule of the rule set.
+     * @param ruleResults The outcome of each rule of the rule set.
+     * @param elapsedMs   The time taken by the backtest, in milliseconds.
+     */
+    public record BacktestResult(long postCt, long matchCt, List<RuleBacktestResult> ruleResults, long elapsedMs) {
+    }
+
+    // the (maximum) number of posts evaluated by a single fork/join task
+    private static final int LEAF_SIZE = 1024;
+
+    @Autowired
+    RuleConditionMatcher ruleConditionMatcher;
+
+    @Autowired
+    RuleBacktesterConfigProps configProps;
+
+    @Autowired(required = false)
+    StagingPostHistoryDao stagingPostHistoryDao;
+
+    @Autowired(required = false)
+    JdbcTemplate jdbcTemplate;
+
+    private int pageSize;
+
+    private ForkJoinPool backtestPool;
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    RuleBacktester() {
+    }
+
+    @PostConstruct
+    final void postConstruct() {
+        if (stagingPostHistoryDao == null && jdbcTemplate != null) {
+            stagingPostHistoryDao = new JdbcStagingPostHistoryDao(jdbcTemplate);
+        }
+        pageSize = configProps.getPageSize();
+        int parallelism = configProps.getParallelism();
+        int poolSize = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        log.info("Starting rule backtester, parallelism={}, pageSize={}, isEnabled={}", poolSize, pageSize, stagingPostHistoryDao != null);
+        backtestPool = new ForkJoinPool(poolSize);
+    }
+
+    @PreDestroy
+    final void preDestroy() {
+        backtestPool.shutdownNow();
+    }
+
+    /**
+     * Backtest the given rule set against the stored posts of the given user and queue (and, optionally,
+     * subscription).
+     *
+     * @param ruleSet        The candidate rule set.
+     * @param username       The username.
+     * @param queueId        The queue Id.
+     * @param subscriptionId The subscription Id, or null for every subscription of the queue.
+     * @param sampleCt       The (maximum) number of matching posts to return for each rule.
+     * @return The outcome of the backtest.
+     * @throws DataAccessException If there is an issue accessing the data.
+     */
+    public final BacktestResult backtest(RuleSet ruleSet, String username, Long queueId, Long subscriptionId, int sampleCt) throws DataAccessException {
+        if (stagingPostHistoryDao == null) {
+            throw new IllegalStateException("Rule backtesting is not available, no staging post history DAO is configured");
+        }
+        long startNanos = nanoTime();
+        Set<Rule> ruleSetRules = ruleSet.getRules();
+        List<Rule> rules = isEmpty(ruleSetRules) ? List.of() : List.copyOf(ruleSetRules);
+        log.info("Backtesting ruleSetId={}, ruleCt={}, username={}, queueId={}, subscriptionId={}",
+                ruleSet.getId(), rules.size(), username, queueId, subscriptionId);
+        BacktestTally total = new BacktestTally(rules.size());
+        StagingPostPage page = stagingPostHistoryDao.findPosts(username, queueId, subscriptionId, 0L, pageSize);
+        while (!page.stagingPosts().isEmpty()) {
+            List<StagingPost> stagingPosts = page.stagingPosts();
+            ForkJoinTask<BacktestTally> pageTask = backtestPool.submit(new BacktestTask(rules, stagingPosts, sampleCt));
+            // (read the next page while this one is evaluated)
+            StagingPostPage nextPage = stagingPosts.size() < pageSize ? new StagingPostPage(List.of(), page.lastId()) :
+                    stagingPostHistoryDao.findPosts(username, queueId, subscriptionId, page.lastId(), pageSize);
+            total.merge(pageTask.join(), sampleCt);
+            page = nextPage;
+        }
+        List<RuleBacktestResult> ruleResults = new ArrayList<>(rules.size());
+        for (int r = 0; r < rules.size(); r++) {
+            Rule rule = rules.get(r);
+            Long ruleId = rule.getId();
+            ruleResults.add(new RuleBacktestResult(ruleId == null ? r : ruleId, rule.getName(), total.matchCtsByRule[r], total.samplesByRule.get(r)));
+        }
+        BacktestResult backtestResult = new BacktestResult(total.postCt, total.matchCt, ruleResults, NANOSECONDS.toMillis(nanoTime() - startNanos));
+        log.info("Backtested ruleSetId={}, postCt={}, matchCt={}, elapsedMs={}",
+                ruleSet.getId(), backtestResult.postCt(), backtestResult.matchCt(), backtestResult.elapsedMs());
+        return backtestResult;
+    }
+
+    //
+    // evaluates every rule against a slice of a page, splitting it in halves down to the leaf size
+    //
+    private final class BacktestTask extends RecursiveTask<BacktestTally> {
+
+        private final List<Rule> rules;
+
+        private final List<StagingPost> stagingPosts;
+
+        private final int sampleCt;
+
+        BacktestTask(List<Rule> rules, List<StagingPost> stagingPosts, int sampleCt) {
+            this.rules = rules;
+            this.stagingPosts = stagingPosts;
+            this.sampleCt = sampleCt;
+        }
+
+        @Override
+        protected BacktestTally compute() {
+            int postCt = stagingPosts.size();
+            if (postCt > LEAF_SIZE) {
+                int mid = postCt >>> 1;
+                BacktestTask left = new BacktestTask(rules, stagingPosts.subList(0, mid), sampleCt);
+                BacktestTask right = new BacktestTask(rules, stagingPosts.subList(mid, postCt), sampleCt);
+                left.fork();
+                BacktestTally tally = right.compute();
+                // (left first, so that the samples stay in key order)
+                return left.join().merge(tally, sampleCt);
+            }
+            BacktestTally tally = new BacktestTally(rules.size());
+            tally.postCt = postCt;
+            BitSet anyMatches = new BitSet(postCt);
+            for (int r = 0; r < rules.size(); r++) {
+                BitSet matches = ruleConditionMatcher.evaluateStagingPosts(rules.get(r), stagingPosts, false);
+                tally.matchCtsByRule[r] = matches.cardinality();
+                List<StagingPost> samples = tally.samplesByRule.get(r);
+                for (int i = matches.nextSetBit(0); i >= 0 && samples.size() < sampleCt; i = matches.nextSetBit(i + 1)) {
+                    samples.add(stagingPosts.get(i));
+                }
+                anyMatches.or(matches);
+            }
+            tally.matchCt = anyMatches.cardinality();
+            return tally;
+        }
+    }
+
+    //
+    // the running counts (and samples) of a backtest, or of a slice of it
+    //
+    private static final class BacktestTally {
+
+        long postCt;
+
+        long matchCt;
+
+        final long[] matchCtsByRule;
+
+        final List<List<StagingPost>> samplesByRule;
+
+        BacktestTally(int ruleCt) {
+            matchCtsByRule = new long[ruleCt];
+            samplesByRule = new ArrayList<>(ruleCt);
+            for (int r = 0; r < ruleCt; r++) {
+                samplesByRule.add(new ArrayList<>(4));
+            }
+        }
+
+        //
+        // adds the given (later) tally to this one; returns this tally
+        //
+        BacktestTally merge(BacktestTally other, int sampleCt) {
+            postCt += other.postCt;
+            matchCt += other.matchCt;
+            for (int r = 0; r < matchCtsByRule.length; r++) {
+                matchCtsByRule[r] += other.matchCtsByRule[r];
+                List<StagingPost> samples = samplesByRule.get(r);
+                List<StagingPost> otherSamples = other.samplesByRule.get(r);
+                for (int i = 0; i < otherSamples.size() && samples.size() < sampleCt; i++) {
+                    samples.add(otherSamples.get(i));
+                }
+            }
+            return this;
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "RuleBacktester{" +
+                "isEnabled=" + (stagingPostHistoryDao != null) +
+                ", pageSize=" + pageSize +
+                ", backtestPool=" + backtestPool +
+                '}';
+    }
+}
@@ -0,0 +1,72 @@
+package com.lostsidewalk.buffy.rule;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+
+/**
+ * Configuration properties class for configuring rule backtesting settings.
+ * This class is used to size the pages of stored posts read by the rule backtester, and the pool that evaluates them.
+ */
+@Slf4j
+@Configuration
+@ConfigurationProperties("newsgears.backtest")
+public class RuleBacktesterConfigProps {
+
+    int pageSize = 10_000;
+
+    int parallelism;
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    RuleBacktesterConfigProps() {
+    }
+
+    /**
+     * The number of stored posts read at a time by a backtest.
+     *
+     * @return The page size.
+     */
+    public final int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Set the number of stored posts read at a time by a backtest.
+     *
+     * @param pageSize The page size.
+     */
+    @SuppressWarnings("unused")
+    public final void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * The parallelism of the backtest pool; 0 (the default) for the number of available processors.
+     *
+     * @return The backtest parallelism.
+     */
+    public final int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the parallelism of the backtest pool.
+     *
+     * @param parallelism The backtest parallelism.
+     */
+    @SuppressWarnings("unused")
+    public final void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public final String toString() {
+        return "RuleBacktesterConfigProps{" +
+                "pageSize=" + pageSize +
+                ", parallelism=" + parallelism +
+                '}';
+    }
+}
@@ -5,6 +5,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
 import static java.util.regex.Pattern.compile;
 import static org.apache.commons.lang3.StringUtils.*;
 import static org.apache.commons.lang3.StringUtils.endsWith;
@@ -45,4 +48,24 @@ public class RuleComparator {
         }
         return false;
     }
+
+    //
+    // compiles a comparison against the given source value (i.e., trimmed, and with any pattern compiled, once), to be
+    // made against many target values; equivalent to makeComparison
+    //
+    @SuppressWarnings("MethodMayBeStatic")
+    final Predicate<String> compileComparison(ComparisonType comparisonType, String sourceValue) {
+        String s = trim(sourceValue);
+        return switch (comparisonType) {
+            case EQ_LITERAL -> t -> StringUtils.equals(s, trim(t));
+            case EQ_REGEXP -> {
+                Pattern pattern = compile(s);
+                yield t -> pattern.matcher(trim(t)).matches();
+            }
+            case CONTAINS -> t -> contains(s, trim(t));
+            case STARTS_WITH -> t -> startsWith(s, trim(t));
+            case ENDS_WITH -> t -> endsWith(s, trim(t));
+            default -> t -> false;
+        };
+    }
 }
@@ -9,6 +9,10 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+
 import static java.util.Optional.ofNullable;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 
@@ -20,58 +24,118 @@ class RuleConditionMatcher {
     @Autowired
     RuleComparator ruleComparator;
 
+    @Autowired
+    RuleConditionPlanner ruleConditionPlanner;
+
     final boolean evaluateStagingPost(Rule rule, StagingPost stagingPost) {
-        long ruleId = rule.getId();
-        boolean isMatch;
-        Rule.MatchType matchType = rule.getMatchType();
-        if (matchType == Rule.MatchType.ANY) {
-            // if <field> <comparison> <value> || if <field> <comparison> <value> || ...
-            isMatch = rule.getConditions().stream()
-                    .anyMatch(condition -> matches(ruleId, condition.getFieldName(), condition.getComparisonType(), condition.getFieldValue(), stagingPost));
-        } else { // MatchType.ALL, default
-            // if <field> <comparison> <value> && if <field> <comparison> <value> && ...
-            isMatch = rule.getConditions().stream()
-                    .allMatch(condition -> matches(ruleId, condition.getFieldName(), condition.getComparisonType(), condition.getFieldValue(), stagingPost));
+        Long ruleId = rule.getId();
+        // MatchType.ANY short-circuits on the first match, MatchType.ALL (the default) on the first miss
+        boolean shortCircuitResult = rule.getMatchType() == Rule.MatchType.ANY;
+        // if <field> <comparison> <value> (&& or ||) if <field> <comparison> <value> (&& or ||) ...
+        RuleConditionPlanner.RulePlan plan = ruleConditionPlanner.plan(rule);
+        for (int conditionIdx : plan.order()) {
+            RuleCondition condition = plan.condition(conditionIdx);
+            boolean isMatch = matches(ruleId, condition.getFieldName(), condition.getComparisonType(), condition.getFieldValue(), stagingPost);
+            plan.record(conditionIdx, isMatch);
+            if (isMatch == shortCircuitResult) {
+                return shortCircuitResult;
+            }
         }
-        return isMatch;
+        return !shortCircuitResult;
     }
 
-    private boolean matches(long ruleId, FieldName fieldName, ComparisonType comparisonType, Object fieldValue, StagingPost stagingPost) {
-        log.debug("Evaluating match condition, ruleId={}, fieldName={}, comparisonType={}, fieldValue={}, postHash={}",
-                ruleId, fieldName, comparisonType, fieldValue, stagingPost.getPostHash());
-        boolean isMatch = false;
-        String sourceValue = (fieldValue == null ? EMPTY : fieldValue.toString());
-        switch (fieldName) {
-            case TITLE -> {
-                String targetValue = ofNullable(stagingPost.getPostTitle())
-                        .map(ContentObject::getValue)
-                        .orElse(EMPTY);
-                isMatch = ruleComparator.makeComparison(comparisonType, sourceValue, targetValue);
+    //
+    // evaluates the given rule against a batch of posts, condition by condition: each condition is compiled once, and
+    // made against every post that is still undecided (i.e., has not short-circuited), in a tight loop; returns the
+    // indices of the matching posts
+    //
+    final BitSet evaluateStagingPosts(Rule rule, List<StagingPost> stagingPosts) {
+        return evaluateStagingPosts(rule, stagingPosts, true);
+    }
+
+    //
+    // as above; the outcomes are only recorded to the planner (and the plan of the rule only cached) when isRecorded is
+    // set, i.e., not for rules that are merely being tried out against stored posts
+    //
+    final BitSet evaluateStagingPosts(Rule rule, List<StagingPost> stagingPosts, boolean isRecorded) {
+        Long ruleId = rule.getId();
+        int postCt = stagingPosts.size();
+        boolean shortCircuitResult = rule.getMatchType() == Rule.MatchType.ANY;
+        BitSet undecided = new BitSet(postCt);
+        undecided.set(0, postCt);
+        BitSet matches = new BitSet(postCt);
+        RuleConditionPlanner.RulePlan plan = ruleConditionPlanner.plan(rule, isRecorded);
+        for (int conditionIdx : plan.order()) {
+            RuleCondition condition = plan.condition(conditionIdx);
+            FieldName fieldName = condition.getFieldName();
+            Object fieldValue = condition.getFieldValue();
+            Predicate<String> comparison = ruleComparator.compileComparison(condition.getComparisonType(), fieldValue == null ? EMPTY : fieldValue.toString());
+            int evaluationCt = 0;
+            int matchCt = 0;
+            for (int i = undecided.nextSetBit(0); i >= 0; i = undecided.nextSetBit(i + 1)) {
+                boolean isMatch = comparison.test(targetValueOf(fieldName, stagingPosts.get(i)));
+                evaluationCt++;
+                if (isMatch) {
+                    matchCt++;
+                }
+                if (isMatch == shortCircuitResult) {
+                    undecided.clear(i);
+                    if (shortCircuitResult) {
+                        matches.set(i);
+                    }
+                }
             }
-            case DESCRIPTION -> {
-                String targetValue = ofNullable(stagingPost.getPostDesc())
-                        .map(ContentObject::getValue)
-                        .orElse(EMPTY);
-                isMatch = ruleComparator.makeComparison(comparisonType, sourceValue, targetValue);
+            if (isRecorded) {
+                plan.record(conditionIdx, evaluationCt, matchCt);
             }
-            case CONTENTS -> {
-                String targetValue = ofNullable(stagingPost.getPostContents())
-                        .filter(ObjectUtils::isNotEmpty)
-                        .map(postContents -> postContents.get(0))
-                        .map(ContentObject::getValue)
-                        .orElse(EMPTY);
-                isMatch = ruleComparator.makeComparison(comparisonType, sourceValue, targetValue);
+            if (undecided.isEmpty()) {
+                break;
             }
         }
+        if (!shortCircuitResult) {
+            // MatchType.ALL: the posts that never missed
+            matches.or(undecided);
+        }
+        log.debug("Evaluated rule against batch, ruleId={}, postCt={}, matchCt={}", ruleId, postCt, matches.cardinality());
+        return matches;
+    }
+
+    private boolean matches(Long ruleId, FieldName fieldName, ComparisonType comparisonType, Object fieldValue, StagingPost stagingPost) {
+        log.debug("Evaluating match condition, ruleId={}, fieldName={}, comparisonType={}, fieldValue={}, postHash={}",
+                ruleId, fieldName, comparisonType, fieldValue, stagingPost.getPostHash());
+        String sourceValue = (fieldValue == null ? EMPTY : fieldValue.toString());
+        String targetValue = targetValueOf(fieldName, stagingPost);
+        boolean isMatch = ruleComparator.makeComparison(comparisonType, sourceValue, targetValue);
         log.debug("Match condition result={}, ruleId={}, fieldName={}, comparisonType={}, fieldValue={}, postHash={}",
                 isMatch, ruleId, fieldName, comparisonType, fieldValue, stagingPost.getPostHash());
         return isMatch;
     }
 
+    //
+    // extracts the value of the given field from the staging post, as seen by the comparator
+    //
+    static String targetValueOf(FieldName fieldName, StagingPost stagingPost) {
+        return switch (fieldName) {
+            case TITLE -> ofNullable(stagingPost.getPostTitle())
+                    .map(ContentObject::getValue)
+                    .orElse(EMPTY);
+            case DESCRIPTION -> ofNullable(stagingPost.getPostDesc())
+                    .map(ContentObject::getValue)
+                    .orElse(EMPTY);
+            case CONTENTS -> ofNullable(stagingPost.getPostContents())
+                    .filter(ObjectUtils::isNotEmpty)
+                    .map(postContents -> postContents.get(0))
+                    .map(ContentObject::getValue)
+                    .orElse(EMPTY);
+            default -> EMPTY;
+        };
+    }
+
     @Override
     public final String toString() {
         return "RuleConditionMatcher{" +
                 "ruleComparator=" + ruleComparator +
+                ", ruleConditionPlanner=" + ruleConditionPlanner +
                 '}';
     }
 }
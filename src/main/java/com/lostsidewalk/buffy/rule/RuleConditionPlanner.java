@@ -0,0 +1,242 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.google.common.cache.CacheBuilder;
+import com.lostsidewalk.buffy.rule.RuleCondition.ComparisonType;
+import com.lostsidewalk.buffy.rule.RuleCondition.FieldName;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.System.nanoTime;
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparingDouble;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
+
+/**
+ * Component responsible for ordering the conditions of a rule so that the rules engine can short-circuit as early
+ * as possible.  Conditions are ranked by a static estimate of their evaluation cost, weighted by the selectivity
+ * observed for each rule at runtime.
+ * <p>
+ * The plan of each rule is cached (by rule Id), along with the statistics of its conditions, and is re-ranked
+ * periodically rather than on every evaluation; a plan is rebuilt when the conditions of its rule change, and is
+ * dropped when its rule has not been evaluated for a day (or to bound the number of plans).
+ */
+@SuppressWarnings("WeakerAccess")
+@Slf4j
+@Component
+class RuleConditionPlanner {
+
+    // the (maximum) number of rule plans kept
+    private static final long MAX_PLAN_CT = 10_000L;
+
+    // how often the conditions of a plan are re-ranked from their statistics
+    private static final long REPLAN_INTERVAL_NANOS = SECONDS.toNanos(10L);
+
+    private static final RulePlan EMPTY_PLAN = new RulePlan(emptyList(), false);
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    RuleConditionPlanner() {
+    }
+
+    private final Map<Long, RulePlan> plansByRuleId = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PLAN_CT)
+            .expireAfterAccess(1L, DAYS)
+            .<Long, RulePlan>build()
+            .asMap();
+
+    //
+    // returns the plan of the given rule, i.e., its conditions in evaluation order; for MatchType.ALL the cheapest and
+    // most selective conditions (i.e., those most likely to fail) go first, for MatchType.ANY the cheapest conditions
+    // most likely to match go first.  Rules without an Id (i.e., not yet saved) are planned by cost alone, uncached.
+    //
+    final RulePlan plan(Rule rule) {
+        return plan(rule, true);
+    }
+
+    //
+    // as above; unless isCached is set (i.e., for a rule that is merely being tried out, whose conditions may differ
+    // from those of the saved rule with the same Id), the rule is planned by cost alone, and the cached plan of the
+    // saved rule, and its statistics, are left alone
+    //
+    final RulePlan plan(Rule rule, boolean isCached) {
+        List<RuleCondition> conditions = rule.getConditions();
+        if (isEmpty(conditions)) {
+            return EMPTY_PLAN;
+        }
+        boolean isAny = rule.getMatchType() == Rule.MatchType.ANY;
+        Long ruleId = rule.getId();
+        if (ruleId == null || !isCached) {
+            return new RulePlan(conditions, isAny);
+        }
+        RulePlan plan = plansByRuleId.get(ruleId);
+        if (plan == null || !plan.isPlanOf(conditions, isAny)) {
+            // (a new or edited rule starts over, from the static estimates)
+            plan = new RulePlan(conditions, isAny);
+            plansByRuleId.put(ruleId, plan);
+        }
+        plan.replanIfDue();
+        return plan;
+    }
+
+    //
+    // the conditions of a single rule, the statistics of each, and their current evaluation order; conditions are
+    // addressed by their index in the rule
+    //
+    static final class RulePlan {
+
+        private final RuleCondition[] conditions;
+
+        private final boolean isAny;
+
+        // (single-condition plans have nothing to order, so keep no statistics)
+        private final boolean isRanked;
+
+        private final LongAdder[] evaluationCts;
+
+        private final LongAdder[] matchCts;
+
+        // the conditions of the rule as last seen, to tell an edited rule from a re-fetched one cheaply
+        private volatile List<RuleCondition> source;
+
+        // condition indices in evaluation order; replaced (never modified) on re-ranking
+        private volatile int[] order;
+
+        private volatile long nextReplanNanos;
+
+        RulePlan(List<RuleCondition> conditions, boolean isAny) {
+            this.conditions = conditions.toArray(new RuleCondition[0]);
+            this.isAny = isAny;
+            this.isRanked = this.conditions.length > 1;
+            this.evaluationCts = new LongAdder[this.conditions.length];
+            this.matchCts = new LongAdder[this.conditions.length];
+            for (int i = 0; i < this.conditions.length; i++) {
+                evaluationCts[i] = new LongAdder();
+                matchCts[i] = new LongAdder();
+            }
+            this.source = conditions;
+            this.order = rank();
+            this.nextReplanNanos = nanoTime() + REPLAN_INTERVAL_NANOS;
+        }
+
+        //
+        // condition indices in evaluation order (the array must not be modified)
+        //
+        int[] order() {
+            return order;
+        }
+
+        RuleCondition condition(int conditionIdx) {
+            return conditions[conditionIdx];
+        }
+
+        //
+        // records the outcome of a single evaluation of the given condition
+        //
+        void record(int conditionIdx, boolean isMatch) {
+            if (isRanked) {
+                evaluationCts[conditionIdx].increment();
+                if (isMatch) {
+                    matchCts[conditionIdx].increment();
+                }
+            }
+        }
+
+        //
+        // records the outcomes of many evaluations of the given condition (i.e., across a batch of posts)
+        //
+        void record(int conditionIdx, int evaluationCt, int matchCt) {
+            if (isRanked && evaluationCt > 0) {
+                evaluationCts[conditionIdx].add(evaluationCt);
+                matchCts[conditionIdx].add(matchCt);
+            }
+        }
+
+        private boolean isPlanOf(List<RuleCondition> ruleConditions, boolean isAny) {
+            if (ruleConditions == source) {
+                return true;
+            }
+            if (isAny != this.isAny || ruleConditions.size() != conditions.length) {
+                return false;
+            }
+            for (int i = 0; i < conditions.length; i++) {
+                RuleCondition a = conditions[i];
+                RuleCondition b = ruleConditions.get(i);
+                if (a.getFieldName() != b.getFieldName() || a.getComparisonType() != b.getComparisonType()
+                        || !Objects.equals(a.getFieldValue(), b.getFieldValue())) {
+                    return false;
+                }
+            }
+            source = ruleConditions;
+            return true;
+        }
+
+        private void replanIfDue() {
+            if (isRanked && nanoTime() - nextReplanNanos >= 0L) {
+                // (concurrent re-rankings are harmless, each produces an equivalent order)
+                nextReplanNanos = nanoTime() + REPLAN_INTERVAL_NANOS;
+                order = rank();
+            }
+        }
+
+        //
+        // ranks each condition once, by its expected cost per short-circuit (lower is better), then sorts by rank
+        //
+        private int[] rank() {
+            int conditionCt = conditions.length;
+            double[] ranks = new double[conditionCt];
+            Integer[] indices = new Integer[conditionCt];
+            for (int i = 0; i < conditionCt; i++) {
+                double matchRate = isRanked ? matchRate(i) : 0.5;
+                double shortCircuitRate = isAny ? matchRate : 1.0 - matchRate;
+                ranks[i] = estimateCost(conditions[i].getFieldName(), conditions[i].getComparisonType()) / shortCircuitRate;
+                indices[i] = i;
+            }
+            Arrays.sort(indices, comparingDouble(i -> ranks[i]));
+            return Arrays.stream(indices).mapToInt(Integer::intValue).toArray();
+        }
+
+        //
+        // observed match rate, smoothed so that unobserved conditions start out at 0.5 and never reach 0 or 1
+        //
+        private double matchRate(int conditionIdx) {
+            return (matchCts[conditionIdx].sum() + 1.0) / (evaluationCts[conditionIdx].sum() + 2.0);
+        }
+    }
+
+    private static double estimateCost(FieldName fieldName, ComparisonType comparisonType) {
+        return fieldCost(fieldName) * comparisonCost(comparisonType);
+    }
+
+    private static int fieldCost(FieldName fieldName) {
+        return switch (fieldName) {
+            case TITLE -> 1;
+            case DESCRIPTION -> 4;
+            default -> 16; // CONTENTS
+        };
+    }
+
+    private static int comparisonCost(ComparisonType comparisonType) {
+        return switch (comparisonType) {
+            case EQ_LITERAL -> 1;
+            case STARTS_WITH, ENDS_WITH -> 2;
+            case CONTAINS -> 8;
+            default -> 32; // EQ_REGEXP
+        };
+    }
+
+    @Override
+    public final String toString() {
+        return "RuleConditionPlanner{" +
+                "planCt=" + plansByRuleId.size() +
+                '}';
+    }
+}
@@ -0,0 +1,157 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.rule.RuleCondition.ComparisonType;
+import com.lostsidewalk.buffy.rule.RuleCondition.FieldName;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+
+import static com.lostsidewalk.buffy.rule.RuleConditionMatcher.targetValueOf;
+import static java.util.Collections.emptyList;
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
+
+/**
+ * Memo of rule match results, intended to be scoped to a single import run.  Results are keyed by the definition of
+ * the rule (its match type and conditions, rather than its Id) and by a fingerprint of the post content that the
+ * conditions are able to inspect.  Identical rule sets evaluated against copies of the same post in different
+ * subscriptions are therefore only matched once; actions are still applied to every copy by the caller.
+ */
+@Slf4j
+public class RuleEvaluationMemo {
+
+    private final Map<Long, RuleSignature> signaturesByRuleId = new ConcurrentHashMap<>(16);
+
+    private final Map<MemoKey, Boolean> results = new ConcurrentHashMap<>(256);
+
+    private final LongAdder hitCt = new LongAdder();
+
+    private final LongAdder missCt = new LongAdder();
+
+    /**
+     * Default constructor; initializes an empty memo.
+     */
+    public RuleEvaluationMemo() {
+    }
+
+    //
+    // returns the memoized result for the given rule and post, or evaluates it (outside any lock) and records the result
+    //
+    final boolean evaluate(Rule rule, StagingPost stagingPost, BiPredicate<? super Rule, ? super StagingPost> evaluator) {
+        MemoKey key = new MemoKey(signaturesByRuleId.computeIfAbsent(rule.getId(), ruleId -> signatureOf(rule)), fingerprintOf(stagingPost));
+        Boolean isMatch = results.get(key);
+        if (isMatch == null) {
+            missCt.increment();
+            isMatch = evaluator.test(rule, stagingPost);
+            results.put(key, isMatch);
+        } else {
+            hitCt.increment();
+            log.debug("Rule match result memoized, ruleId={}, postHash={}, result={}", rule.getId(), stagingPost.getPostHash(), isMatch);
+        }
+        return isMatch;
+    }
+
+    //
+    // as above, for a batch of posts: memoized results are answered from the memo, and the remaining posts (one per
+    // distinct content) are evaluated as a single batch; returns the indices of the matching posts
+    //
+    final BitSet evaluate(Rule rule, List<StagingPost> stagingPosts, BiFunction<? super Rule, ? super List<StagingPost>, BitSet> batchEvaluator) {
+        RuleSignature ruleSignature = signaturesByRuleId.computeIfAbsent(rule.getId(), ruleId -> signatureOf(rule));
+        BitSet matches = new BitSet(stagingPosts.size());
+        // memo key -> the indices of the posts with that content, for results not yet memoized
+        Map<MemoKey, List<Integer>> missIndicesByKey = new LinkedHashMap<>(stagingPosts.size());
+        for (int i = 0; i < stagingPosts.size(); i++) {
+            MemoKey key = new MemoKey(ruleSignature, fingerprintOf(stagingPosts.get(i)));
+            Boolean isMatch = results.get(key);
+            if (isMatch == null) {
+                missIndicesByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(i);
+            } else {
+                hitCt.increment();
+                if (isMatch) {
+                    matches.set(i);
+                }
+            }
+        }
+        if (!missIndicesByKey.isEmpty()) {
+            List<StagingPost> distinctMisses = missIndicesByKey.values().stream()
+                    .map(indices -> stagingPosts.get(indices.get(0)))
+                    .toList();
+            missCt.add(distinctMisses.size());
+            // (copies of the same content within the batch are answered by the first)
+            hitCt.add(missIndicesByKey.values().stream().mapToInt(List::size).sum() - distinctMisses.size());
+            BitSet missMatches = batchEvaluator.apply(rule, distinctMisses);
+            int j = 0;
+            for (Map.Entry<MemoKey, List<Integer>> e : missIndicesByKey.entrySet()) {
+                boolean isMatch = missMatches.get(j++);
+                results.put(e.getKey(), isMatch);
+                if (isMatch) {
+                    e.getValue().forEach(matches::set);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Get the number of rule evaluations answered from the memo.
+     *
+     * @return The memo hit count.
+     */
+    public final long getHitCt() {
+        return hitCt.sum();
+    }
+
+    /**
+     * Get the number of rule evaluations that had to be performed.
+     *
+     * @return The memo miss count.
+     */
+    public final long getMissCt() {
+        return missCt.sum();
+    }
+
+    private static RuleSignature signatureOf(Rule rule) {
+        List<ConditionSignature> conditions = isEmpty(rule.getConditions()) ? emptyList() :
+                rule.getConditions().stream()
+                        .map(c -> new ConditionSignature(c.getFieldName(), c.getComparisonType(), c.getFieldValue()))
+                        .toList();
+        return new RuleSignature(rule.getMatchType(), conditions);
+    }
+
+    private static ContentFingerprint fingerprintOf(StagingPost stagingPost) {
+        return new ContentFingerprint(
+                targetValueOf(FieldName.TITLE, stagingPost),
+                targetValueOf(FieldName.DESCRIPTION, stagingPost),
+                targetValueOf(FieldName.CONTENTS, stagingPost)
+        );
+    }
+
+    private record ConditionSignature(FieldName fieldName, ComparisonType comparisonType, Object fieldValue) {
+    }
+
+    private record RuleSignature(Rule.MatchType matchType, List<ConditionSignature> conditions) {
+    }
+
+    private record ContentFingerprint(String title, String description, String contents) {
+    }
+
+    private record MemoKey(RuleSignature ruleSignature, ContentFingerprint contentFingerprint) {
+    }
+
+    @Override
+    public final String toString() {
+        return "RuleEvaluationMemo{" +
+                "resultCt=" + results.size() +
+                ", hitCt=" + hitCt +
+                ", missCt=" + missCt +
+                '}';
+    }
+}
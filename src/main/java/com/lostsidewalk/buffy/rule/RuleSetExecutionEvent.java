@@ -0,0 +1,36 @@
+package com.lostsidewalk.buffy.rule;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the execution of a rule set against one post, or a batch of posts, including the
+ * actions of the matching rules.  Disabled unless the recording enables it (see {@code newsgears.jfc}).
+ */
+@Name("com.lostsidewalk.buffy.RuleSetExecution")
+@Label("Rule Set Execution")
+@Category({"NewsGears", "Rules"})
+@Description("The execution of a rule set against staging posts")
+@Enabled(false)
+@StackTrace(false)
+class RuleSetExecutionEvent extends jdk.jfr.Event {
+
+    @Label("Rule Set Id")
+    long ruleSetId;
+
+    @Label("Rule Count")
+    int ruleCt;
+
+    @Label("Post Count")
+    int postCt;
+
+    @Label("Match Count")
+    int matchCt;
+
+    @Label("Memoized")
+    boolean isMemoized;
+}
@@ -5,6 +5,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
@@ -36,6 +39,18 @@ public class RuleSetExecutor {
      * @param stagingPost The staging post upon which to evaluate the given rules.
      */
     public final void execute(RuleSet ruleSet, StagingPost stagingPost) {
+        execute(ruleSet, stagingPost, null);
+    }
+
+    /**
+     * Execute the given rule set against the given staging post, answering rule matches from the given memo where
+     * an identical rule has already been evaluated against identical content.  Matching actions are always invoked.
+     *
+     * @param ruleSet The rule set to execute.
+     * @param stagingPost The staging post upon which to evaluate the given rules.
+     * @param ruleEvaluationMemo The memo of rule match results for the current import run, or null for none.
+     */
+    public final void execute(RuleSet ruleSet, StagingPost stagingPost, RuleEvaluationMemo ruleEvaluationMemo) {
         //
         // execute each rule in the rule set against the staging post
         //
@@ -45,12 +60,96 @@ public class RuleSetExecutor {
         } else {
             log.debug("Executing ruleSetId={}, ruleSetName={}, stagingPostHash={}, username={}",
                     ruleSet.getId(), ruleSet.getName(), stagingPost.getPostHash(), stagingPost.getUsername());
-            ruleSet.getRules()
-                    .forEach(rule -> execute(rule, stagingPost));
+            RuleSetExecutionEvent ruleSetExecutionEvent = new RuleSetExecutionEvent();
+            ruleSetExecutionEvent.begin();
+            // (the web hook payload of the post is encoded at most once, however many matching rules fire web hooks)
+            RuleActionHandler.PostPayload postPayload = new RuleActionHandler.PostPayload(stagingPost);
+            int matchCt = 0;
+            for (Rule rule : rules) {
+                if (execute(rule, postPayload, ruleEvaluationMemo)) {
+                    matchCt++;
+                }
+            }
+            commitEvent(ruleSetExecutionEvent, ruleSet, 1, matchCt, ruleEvaluationMemo != null);
+        }
+    }
+
+    /**
+     * Execute the given rule set against a batch of staging posts (e.g., those of a single subscription import set).
+     * Each rule is evaluated against the entire batch before the next, so that its conditions are compiled once per
+     * batch rather than once per post; the actions of the matching rules are then invoked post by post, in rule order,
+     * exactly as {@link #execute(RuleSet, StagingPost, RuleEvaluationMemo)} would invoke them.
+     *
+     * @param ruleSet The rule set to execute.
+     * @param stagingPosts The staging posts upon which to evaluate the given rules.
+     * @param ruleEvaluationMemo The memo of rule match results for the current import run, or null for none.
+     */
+    public final void execute(RuleSet ruleSet, List<StagingPost> stagingPosts, RuleEvaluationMemo ruleEvaluationMemo) {
+        Set<Rule> rules = ruleSet.getRules();
+        if (isEmpty(rules)) {
+            log.warn("Skipping empty rule set: ruleSetId={}", ruleSet.getId());
+            return;
+        }
+        if (stagingPosts.isEmpty()) {
+            return;
+        }
+        log.debug("Executing ruleSetId={}, ruleSetName={} against batch, postCt={}", ruleSet.getId(), ruleSet.getName(), stagingPosts.size());
+        RuleSetExecutionEvent ruleSetExecutionEvent = new RuleSetExecutionEvent();
+        ruleSetExecutionEvent.begin();
+        //
+        // evaluate each rule against the entire batch
+        //
+        List<Rule> orderedRules = List.copyOf(rules);
+        List<BitSet> matchesByRule = new ArrayList<>(orderedRules.size());
+        for (Rule rule : orderedRules) {
+            matchesByRule.add(ruleEvaluationMemo == null ?
+                    ruleConditionMatcher.evaluateStagingPosts(rule, stagingPosts) :
+                    ruleEvaluationMemo.evaluate(rule, stagingPosts, ruleConditionMatcher::evaluateStagingPosts));
+        }
+        //
+        // perform the actions of the matching rules, post by post
+        //
+        int matchCt = 0;
+        for (int i = 0; i < stagingPosts.size(); i++) {
+            RuleActionHandler.PostPayload postPayload = null;
+            for (int r = 0; r < orderedRules.size(); r++) {
+                if (matchesByRule.get(r).get(i)) {
+                    Rule rule = orderedRules.get(r);
+                    StagingPost stagingPost = stagingPosts.get(i);
+                    log.debug("Rule match: ruleId={}, ruleName={}, postHash={}, username={}, queueId={}, subscriptionId={}",
+                            rule.getId(), rule.getName(), stagingPost.getPostHash(), stagingPost.getUsername(), stagingPost.getQueueId(),
+                            stagingPost.getSubscriptionId());
+                    if (postPayload == null) {
+                        postPayload = new RuleActionHandler.PostPayload(stagingPost);
+                    }
+                    ruleActionHandler.invokeActions(rule, postPayload);
+                    matchCt++;
+                }
+            }
+        }
+        commitEvent(ruleSetExecutionEvent, ruleSet, stagingPosts.size(), matchCt, ruleEvaluationMemo != null);
+    }
+
+    //
+    // records the execution to the flight recorder, if enabled; the match count is that of (rule, post) matches
+    //
+    private static void commitEvent(RuleSetExecutionEvent ruleSetExecutionEvent, RuleSet ruleSet, int postCt, int matchCt, boolean isMemoized) {
+        ruleSetExecutionEvent.end();
+        if (ruleSetExecutionEvent.shouldCommit()) {
+            ruleSetExecutionEvent.ruleSetId = ruleSet.getId() == null ? 0L : ruleSet.getId();
+            ruleSetExecutionEvent.ruleCt = ruleSet.getRules().size();
+            ruleSetExecutionEvent.postCt = postCt;
+            ruleSetExecutionEvent.matchCt = matchCt;
+            ruleSetExecutionEvent.isMemoized = isMemoized;
+            ruleSetExecutionEvent.commit();
         }
     }
 
-    private void execute(Rule rule, StagingPost stagingPost) {
+    //
+    // returns true if the rule matched (and its actions were performed)
+    //
+    private boolean execute(Rule rule, RuleActionHandler.PostPayload postPayload, RuleEvaluationMemo ruleEvaluationMemo) {
+        StagingPost stagingPost = postPayload.stagingPost;
         long ruleId = rule.getId();
         log.debug("Executing ruleId={}, ruleName={}, postHash={}, username={}, queueId={}, subscriptionid={}",
                 ruleId, rule.getName(), stagingPost.getPostHash(), stagingPost.getUsername(), stagingPost.getQueueId(),
@@ -59,7 +158,9 @@ public class RuleSetExecutor {
         //
         // evaluate the match
         //
-        boolean isMatch = ruleConditionMatcher.evaluateStagingPost(rule, stagingPost);
+        boolean isMatch = ruleEvaluationMemo == null ?
+                ruleConditionMatcher.evaluateStagingPost(rule, stagingPost) :
+                ruleEvaluationMemo.evaluate(rule, stagingPost, ruleConditionMatcher::evaluateStagingPost);
         //
         // if the rule is a match, perform the actions
         //
@@ -67,8 +168,9 @@ public class RuleSetExecutor {
             log.debug("Rule match: ruleId={}, ruleName={}, postHash={}, username={}, queueId={}, subscriptionId={}",
                     ruleId, rule.getName(), stagingPost.getPostHash(), stagingPost.getUsername(), stagingPost.getQueueId(),
                     stagingPost.getSubscriptionId());
-            ruleActionHandler.invokeActions(rule, stagingPost);
+            ruleActionHandler.invokeActions(rule, postPayload);
         }
+        return isMatch;
     }
 
     @Override
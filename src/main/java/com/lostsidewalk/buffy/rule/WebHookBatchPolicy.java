@@ -0,0 +1,39 @@
+package com.lostsidewalk.buffy.rule;
+
+import java.util.Optional;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.apache.commons.lang3.math.NumberUtils.toInt;
+import static org.apache.commons.lang3.math.NumberUtils.toLong;
+
+/**
+ * Batching policy for a web hook destination: requests are collected for up to {@code windowMs} milliseconds, or
+ * until {@code maxCt} requests or {@code maxBytes} bytes of payload have been collected, whichever comes first, and
+ * then sent as a single JSON array.
+ *
+ * @param windowMs The maximum time (in milliseconds) that a request is held before its batch is sent.
+ * @param maxCt    The maximum number of requests in a batch.
+ * @param maxBytes The maximum (approximate) payload size of a batch, in bytes.
+ */
+record WebHookBatchPolicy(long windowMs, int maxCt, long maxBytes) {
+
+    static final int DEFAULT_MAX_CT = 100;
+
+    static final long DEFAULT_MAX_BYTES = 1024L * 1024L;
+
+    //
+    // web hook action parameters are positional: url, username, password, batch window (ms), batch max count,
+    // batch max bytes; batching is enabled by a positive batch window (the username and password are then null or
+    // blank if the destination takes no credentials)
+    //
+    static Optional<WebHookBatchPolicy> fromParameters(Object... parameters) {
+        long windowMs = parameters.length > 3 ? toLong(String.valueOf(parameters[3])) : 0L;
+        if (windowMs <= 0L) {
+            return empty();
+        }
+        int maxCt = parameters.length > 4 ? toInt(String.valueOf(parameters[4]), DEFAULT_MAX_CT) : DEFAULT_MAX_CT;
+        long maxBytes = parameters.length > 5 ? toLong(String.valueOf(parameters[5]), DEFAULT_MAX_BYTES) : DEFAULT_MAX_BYTES;
+        return of(new WebHookBatchPolicy(windowMs, maxCt > 0 ? maxCt : DEFAULT_MAX_CT, maxBytes > 0L ? maxBytes : DEFAULT_MAX_BYTES));
+    }
+}
@@ -0,0 +1,154 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Component responsible for coalescing web hook requests of the same user bound for the same destination (URL and
+ * credentials) into a
+ * single request whose payload is a JSON array of the individual payloads.  A batch is handed to the dispatcher when
+ * its policy's window elapses, or as soon as it reaches its maximum count or size.
+ */
+@SuppressWarnings("WeakerAccess")
+@Slf4j
+@Component
+class WebHookBatcher {
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    WebHookBatcher() {
+    }
+
+    @Autowired
+    WebHookDispatcher webHookDispatcher;
+
+    // guarded by itself
+    private final Map<BatchKey, Batch> openBatches = new HashMap<>(16);
+
+    private final LongAdder batchedCt = new LongAdder();
+
+    private final LongAdder flushedCt = new LongAdder();
+
+    private ScheduledExecutorService flushScheduler;
+
+    @PostConstruct
+    final void postConstruct() {
+        log.info("Web hook batcher constructed");
+        flushScheduler = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("web-hook-batcher-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    final void preDestroy() {
+        List<Batch> remaining;
+        synchronized (openBatches) {
+            remaining = new ArrayList<>(openBatches.values());
+            openBatches.clear();
+        }
+        log.info("Flushing {} open web hook batches on shutdown", remaining.size());
+        remaining.forEach(this::dispatch);
+        flushScheduler.shutdownNow();
+    }
+
+    //
+    // adds the given request to the open batch for its destination, opening a new batch (and scheduling its flush)
+    // if there is none
+    //
+    final void add(WebHookRequest webHookRequest, WebHookBatchPolicy batchPolicy) {
+        BatchKey key = new BatchKey(webHookRequest.username, webHookRequest.url, webHookRequest.basicUsername, webHookRequest.basicPassword);
+        Batch fullBatch = null;
+        synchronized (openBatches) {
+            Batch batch = openBatches.get(key);
+            if (batch == null) {
+                Batch newBatch = new Batch(key, batchPolicy);
+                newBatch.flushFuture = flushScheduler.schedule(() -> flush(newBatch), batchPolicy.windowMs(), MILLISECONDS);
+                openBatches.put(key, newBatch);
+                batch = newBatch;
+            }
+            batch.add(webHookRequest.getPayload());
+            if (batch.isFull()) {
+                openBatches.remove(key);
+                batch.flushFuture.cancel(false);
+                fullBatch = batch;
+            }
+        }
+        batchedCt.increment();
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+    }
+
+    private void flush(Batch batch) {
+        synchronized (openBatches) {
+            if (!openBatches.remove(batch.key, batch)) {
+                // already flushed because it filled up
+                return;
+            }
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        log.debug("Dispatching web hook batch, url={}, payloadCt={}, payloadBytes={}", batch.key.url(), batch.payloads.size(), batch.payloadBytes);
+        flushedCt.increment();
+        webHookDispatcher.submit(new WebHookRequest(batch.key.username(), batch.key.url(), batch.toJsonArray(), batch.key.basicUsername(), batch.key.basicPassword()));
+    }
+
+    private record BatchKey(String username, String url, String basicUsername, String basicPassword) {
+    }
+
+    private static final class Batch {
+
+        final BatchKey key;
+
+        final WebHookBatchPolicy policy;
+
+        final List<WebHookPayload> payloads = new ArrayList<>(16);
+
+        long payloadBytes;
+
+        ScheduledFuture<?> flushFuture;
+
+        Batch(BatchKey key, WebHookBatchPolicy policy) {
+            this.key = key;
+            this.policy = policy;
+        }
+
+        void add(WebHookPayload payload) {
+            payloads.add(payload);
+            payloadBytes += payload.size();
+        }
+
+        boolean isFull() {
+            return payloads.size() >= policy.maxCt() || payloadBytes >= policy.maxBytes();
+        }
+
+        WebHookPayload toJsonArray() {
+            return WebHookPayload.ofJsonArray(payloads);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "WebHookBatcher{" +
+                "webHookDispatcher=" + webHookDispatcher +
+                ", batchedCt=" + batchedCt +
+                ", flushedCt=" + flushedCt +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package com.lostsidewalk.buffy.rule;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Circuit breaker for a single web hook destination host.  After {@code failureThreshold} consecutive endpoint
+ * failures the breaker opens, and requests to the host are parked for {@code cooldownNanos}; after that a single
+ * trial request is let through (half-open), whose outcome either closes the breaker or opens it again.
+ */
+class WebHookCircuitBreaker {
+
+    private final int failureThreshold;
+
+    private final long cooldownNanos;
+
+    private int consecutiveFailureCt;
+
+    private long openUntilNanos;
+
+    private boolean trialInFlight;
+
+    WebHookCircuitBreaker(int failureThreshold, long cooldownNanos) {
+        this.failureThreshold = failureThreshold;
+        this.cooldownNanos = cooldownNanos;
+    }
+
+    //
+    // returns true if a request may be sent to the host now; in the half-open state, only one (trial) request is allowed
+    //
+    final synchronized boolean allowRequest() {
+        if (consecutiveFailureCt < failureThreshold) {
+            return true;
+        }
+        if (trialInFlight || nanoTime() - openUntilNanos < 0L) {
+            return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+
+    final synchronized void onSuccess() {
+        consecutiveFailureCt = 0;
+        trialInFlight = false;
+    }
+
+    //
+    // the request neither reached a verdict on the endpoint (e.g., it was rejected by the endpoint, or was malformed):
+    // the breaker state is unchanged, but a trial request no longer blocks the next one
+    //
+    final synchronized void onInconclusive() {
+        trialInFlight = false;
+    }
+
+    final synchronized void onFailure() {
+        consecutiveFailureCt++;
+        trialInFlight = false;
+        if (consecutiveFailureCt >= failureThreshold) {
+            openUntilNanos = nanoTime() + cooldownNanos;
+        }
+    }
+
+    //
+    // the time remaining (in nanos) until the breaker half-opens, or zero if it is not open
+    //
+    final synchronized long getRemainingOpenNanos() {
+        return consecutiveFailureCt < failureThreshold ? 0L : Math.max(0L, openUntilNanos - nanoTime());
+    }
+
+    final synchronized boolean isOpen() {
+        return consecutiveFailureCt >= failureThreshold;
+    }
+
+    @Override
+    public final synchronized String toString() {
+        return "WebHookCircuitBreaker{" +
+                "consecutiveFailureCt=" + consecutiveFailureCt +
+                ", isOpen=" + isOpen() +
+                ", trialInFlight=" + trialInFlight +
+                '}';
+    }
+}
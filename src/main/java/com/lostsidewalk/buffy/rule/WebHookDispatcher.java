@@ -0,0 +1,563 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.lostsidewalk.buffy.rule.WebHookRequest.WebHookRequestException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.lostsidewalk.buffy.rule.WebHookUtils.newHttpClient;
+import static com.lostsidewalk.buffy.rule.WebHookUtils.postWebHook;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Component responsible for delivering web hook requests.  A single dispatcher thread drains the request queue into
+ * per-host lanes, and each lane sends its requests through a shared non-blocking HTTP client, never keeping more than
+ * the configured number of deliveries to the same host in flight so that one slow endpoint cannot starve the others.
+ * The request queue is bounded, and spills to a local journal (replayed on startup) when it overflows; the lanes are
+ * bounded by a fixed number of dispatch permits, and each lane by a per-host limit, past which the requests to that
+ * host are left in the request queue (behind which that user's later requests wait) while requests to other hosts go
+ * ahead, so that one slow host cannot take every permit.  Idle lanes are evicted periodically.
+ * <p>
+ * Requests that fail with a retryable {@link WebHookRequest.WebHookRequestExceptionType} are retried with exponential
+ * backoff and jitter, via a delay queue that hands them back to their lane once due.  Repeated endpoint failures open
+ * the circuit breaker of the destination host, and its requests are parked in its lane; a single parked request (the
+ * probe) is sent back through the delay queue to be tried once the breaker half-opens, and the rest are released
+ * (spread over the base retry delay) only once a request to the host succeeds.  Parked and retrying requests keep their
+ * dispatch permit, and count against the limit of their lane, so that while a host is down its later requests wait in
+ * the request queue (and its journal) rather than on the heap.
+ * <p>
+ * Queued requests are taken in turns across users (deficit round-robin over per-user sub-queues), and so are the
+ * pending requests of each host lane, so that one user's high-volume rules cannot delay the web hooks of everyone
+ * else; per-user backlog and delivery latency are reported in the health details.
+ */
+@SuppressWarnings({"WeakerAccess", "ClassWithMultipleLoggers"})
+@Slf4j
+@Component
+class WebHookDispatcher {
+
+    /**
+     * Default constructor; initializes the object.
+     */
+    WebHookDispatcher() {
+    }
+
+    private final Map<String, HostLane> lanesByHost = new ConcurrentHashMap<>(16);
+
+    private final LongAdder deliveredCt = new LongAdder();
+
+    private final LongAdder failedCt = new LongAdder();
+
+    private final LongAdder retriedCt = new LongAdder();
+
+    private final LongAdder parkedCt = new LongAdder();
+
+    private final DelayQueue<DelayedWebHookRequest> retryQueue = new DelayQueue<>();
+
+    private final WebHookUserMetrics userMetrics = new WebHookUserMetrics();
+
+    // the number of users listed in the per-user health details
+    private static final int HEALTH_USER_CT = 10;
+
+    // how often the dispatcher evicts idle host lanes
+    private static final long LANE_EVICTION_INTERVAL_NANOS = MINUTES.toNanos(1L);
+
+    @Value("${newsgears.userAgent}")
+    String newsgearsUserAgent;
+
+    @Value("${newsgears.webhook.workerThreadCt:4}")
+    int workerThreadCt;
+
+    @Value("${newsgears.webhook.maxConcurrencyPerHost:2}")
+    int maxConcurrencyPerHost;
+
+    @Value("${newsgears.webhook.connectTimeoutMs:5000}")
+    long connectTimeoutMs;
+
+    @Value("${newsgears.webhook.requestTimeoutMs:30000}")
+    long requestTimeoutMs;
+
+    @Value("${newsgears.webhook.queueCapacity:10000}")
+    int queueCapacity;
+
+    @Value("${newsgears.webhook.journalPath:}")
+    String journalPath;
+
+    @Value("${newsgears.webhook.journalMaxBytes:268435456}")
+    int journalMaxBytes;
+
+    @Value("${newsgears.webhook.maxPendingCt:1000}")
+    int maxPendingCt;
+
+    @Value("${newsgears.webhook.maxPendingPerHost:100}")
+    int maxPendingPerHost;
+
+    @Value("${newsgears.webhook.fairShareQuantumBytes:65536}")
+    int fairShareQuantumBytes;
+
+    @Value("${newsgears.webhook.gzipThresholdBytes:0}")
+    int gzipThresholdBytes;
+
+    @Value("${newsgears.webhook.httpsRequiredForCredentials:false}")
+    boolean isHttpsRequiredForCredentials;
+
+    @Value("${newsgears.webhook.maxAttempts:5}")
+    int maxAttempts;
+
+    @Value("${newsgears.webhook.retryBaseDelayMs:1000}")
+    long retryBaseDelayMs;
+
+    @Value("${newsgears.webhook.retryMaxDelayMs:300000}")
+    long retryMaxDelayMs;
+
+    @Value("${newsgears.webhook.circuitBreakerFailureThreshold:5}")
+    int circuitBreakerFailureThreshold;
+
+    @Value("${newsgears.webhook.circuitBreakerCooldownMs:60000}")
+    long circuitBreakerCooldownMs;
+
+    private WebHookRequestQueue webHookRequestQueue;
+
+    private Semaphore dispatchPermits;
+
+    private ExecutorService webHookWorkerPool;
+
+    private HttpClient webHookHttpClient;
+
+    private Thread webHookDispatcherThread;
+
+    private Thread webHookRetryThread;
+
+    @PostConstruct
+    final void postConstruct() {
+        log.info("Starting web hook dispatcher at {}, workerThreadCt={}, maxConcurrencyPerHost={}", Instant.now(), workerThreadCt, maxConcurrencyPerHost);
+        webHookWorkerPool = newFixedThreadPool(workerThreadCt, new ThreadFactoryBuilder().setNameFormat("web-hook-worker-%d").build());
+        webHookHttpClient = newHttpClient(Duration.ofMillis(connectTimeoutMs), webHookWorkerPool);
+        webHookRequestQueue = new WebHookRequestQueue(queueCapacity, fairShareQuantumBytes, openJournal());
+        dispatchPermits = new Semaphore(maxPendingCt);
+        webHookDispatcherThread = new ThreadFactoryBuilder()
+                .setNameFormat("web-hook-dispatcher")
+                .setDaemon(true)
+                .build()
+                .newThread(this::dispatchAll);
+        webHookDispatcherThread.start();
+        webHookRetryThread = new ThreadFactoryBuilder()
+                .setNameFormat("web-hook-retry")
+                .setDaemon(true)
+                .build()
+                .newThread(this::retryAll);
+        webHookRetryThread.start();
+    }
+
+    private WebHookRequestJournal openJournal() {
+        if (isBlank(journalPath)) {
+            log.warn("No web hook request journal configured, web hook requests will not spill to disk");
+            return null;
+        }
+        try {
+            // (the journal holds web hook credentials, so it must not land wherever the working directory happens to be)
+            Path path = Path.of(journalPath);
+            if (!path.isAbsolute()) {
+                log.error("Web hook request journal path must be absolute, path={}, web hook requests will not spill to disk", journalPath);
+                return null;
+            }
+            return new WebHookRequestJournal(path, journalMaxBytes);
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to open web hook request journal, path={}, web hook requests will not spill to disk: {}", journalPath, e.getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    final void preDestroy() {
+        log.info("Stopping web hook dispatcher at {}, queueDepth={}", Instant.now(), webHookRequestQueue.size());
+        webHookDispatcherThread.interrupt();
+        webHookRetryThread.interrupt();
+        webHookWorkerPool.shutdown();
+        List<WebHookRequest> undispatched = new ArrayList<>(maxPendingCt);
+        lanesByHost.values().forEach(lane -> {
+            lane.pending.drainTo(undispatched);
+            lane.parked.drainTo(undispatched);
+        });
+        retryQueue.forEach(d -> undispatched.add(d.webHookRequest()));
+        retryQueue.clear();
+        try {
+            webHookRequestQueue.close(undispatched);
+        } catch (IOException e) {
+            log.error("Unable to close web hook request journal due to: {}", e.getMessage());
+        }
+    }
+
+    //
+    // this is the point of entry from the action handler; blocks while the queue (and its journal) is full
+    //
+    final void submit(WebHookRequest webHookRequest) {
+        try {
+            webHookRequestQueue.put(webHookRequest);
+        } catch (InterruptedException e) {
+            log.error("Interrupted while queueing web hook request to URL={}, the request has been dropped", webHookRequest.url);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Check the health of the web hook dispatcher.
+     *
+     * @return A Health object indicating whether the dispatcher thread and worker pool are running.
+     */
+    public final Health health() {
+        boolean dispatcherIsRunning = webHookDispatcherThread.isAlive();
+        boolean workerPoolIsShutdown = webHookWorkerPool.isShutdown();
+
+        Health.Builder builder = (dispatcherIsRunning && !workerPoolIsShutdown) ? Health.up() : Health.down();
+        return builder
+                .withDetail("webHookDispatcherIsRunning", dispatcherIsRunning)
+                .withDetail("webHookWorkerPoolIsShutdown", workerPoolIsShutdown)
+                .withDetail("webHookQueueDepth", webHookRequestQueue.size())
+                .withDetail("webHookSpilledCt", webHookRequestQueue.getSpilledCt())
+                .withDetail("webHookSpillBytes", webHookRequestQueue.getSpillBytes())
+                .withDetail("webHookInFlightCt", lanesByHost.values().stream().mapToInt(l -> l.inFlightCt.get()).sum())
+                .withDetail("webHookDeliveredCt", deliveredCt.sum())
+                .withDetail("webHookFailedCt", failedCt.sum())
+                .withDetail("webHookRetriedCt", retriedCt.sum())
+                .withDetail("webHookParkedCt", parkedCt.sum())
+                .withDetail("webHookParkedDepth", lanesByHost.values().stream().mapToInt(l -> l.parked.size()).sum())
+                .withDetail("webHookRetryQueueDepth", retryQueue.size())
+                .withDetail("webHookOpenCircuitCt", lanesByHost.values().stream().filter(l -> l.circuitBreaker.isOpen()).count())
+                .withDetail("webHookBacklogByUser", largestBacklogs(webHookRequestQueue.getBacklogByUser()))
+                .withDetail("webHookSlowestUsers", userMetrics.getSlowestUsers(HEALTH_USER_CT))
+                .build();
+    }
+    private static Map<String, Integer> largestBacklogs(Map<String, Integer> backlogByUser) {
+        Map<String, Integer> largestBacklogs = new LinkedHashMap<>(HEALTH_USER_CT);
+        backlogByUser.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(HEALTH_USER_CT)
+                .forEach(e -> largestBacklogs.put(e.getKey(), e.getValue()));
+        return largestBacklogs;
+    }
+    //
+    // web hook request dispatching
+    //
+    private static final Logger webHookProcessorLog = LoggerFactory.getLogger("webHookProcessor");
+
+    private void dispatchAll() {
+        long nextEvictionNanos = nanoTime() + LANE_EVICTION_INTERVAL_NANOS;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // each request handed to a lane holds a dispatch permit until it is delivered, or fails for good
+                dispatchPermits.acquire();
+                WebHookRequest wh = webHookRequestQueue.take(this::hasRoomFor);
+                lanesByHost.computeIfAbsent(hostOf(wh.url), HostLane::new).offer(wh);
+                if (nanoTime() - nextEvictionNanos >= 0L) {
+                    evictIdleLanes();
+                    nextEvictionNanos = nanoTime() + LANE_EVICTION_INTERVAL_NANOS;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        webHookProcessorLog.info("Web hook dispatcher stopped, queueDepth={}", webHookRequestQueue.size());
+    }
+
+    //
+    // whether the lane of the given request's destination host is under its limit; called only on the dispatcher thread
+    //
+    private boolean hasRoomFor(WebHookRequest wh) {
+        HostLane lane = lanesByHost.get(hostOf(wh.url));
+        return lane == null || !lane.isFull();
+    }
+
+    //
+    // removes the lanes of hosts with no requests held (pending, in flight, parked or waiting to be retried), and a
+    // closed circuit breaker, so that the lanes do not accumulate across every host ever posted to; this runs on the
+    // dispatcher thread, which is the only thread that adds new requests to a lane, so an idle lane cannot be handed a
+    // request while it is being removed
+    //
+    private void evictIdleLanes() {
+        int laneCt = lanesByHost.size();
+        lanesByHost.values().removeIf(HostLane::isIdle);
+        webHookProcessorLog.debug("Evicted idle web hook host lanes, evictedCt={}, laneCt={}", laneCt - lanesByHost.size(), lanesByHost.size());
+    }
+
+    //
+    // hands retried and parked requests back to their lanes once they are due; a lane holding such a request is not
+    // idle, so it cannot have been evicted meanwhile
+    //
+    private void retryAll() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WebHookRequest wh = retryQueue.take().webHookRequest();
+                lanesByHost.get(hostOf(wh.url)).resume(wh);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        webHookProcessorLog.info("Web hook retry processor stopped, retryQueueDepth={}", retryQueue.size());
+    }
+
+    private CompletableFuture<Void> deliver(WebHookRequest wh) {
+        wh.attemptCt++;
+        return postWebHook(webHookHttpClient, wh, newsgearsUserAgent, Duration.ofMillis(requestTimeoutMs), gzipThresholdBytes, isHttpsRequiredForCredentials);
+    }
+
+    //
+    // exponential backoff with (equal) jitter: half of the delay is fixed, the other half is random
+    //
+    private long retryDelayNanos(int attemptCt) {
+        long delayMs = min(retryMaxDelayMs, retryBaseDelayMs << min(attemptCt - 1, 30));
+        long jitteredMs = delayMs / 2 + ThreadLocalRandom.current().nextLong(delayMs / 2 + 1);
+        return MILLISECONDS.toNanos(jitteredMs);
+    }
+
+    private void scheduleRetry(WebHookRequest wh, long delayNanos) {
+        retryQueue.add(new DelayedWebHookRequest(wh, nanoTime() + delayNanos));
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? EMPTY : host;
+        } catch (IllegalArgumentException e) {
+            // malformed URLs share a lane, and fail on delivery
+            return EMPTY;
+        }
+    }
+
+    //
+    // the pending requests for a single destination host (by user), and the number of them currently being delivered
+    //
+    private final class HostLane {
+
+        final String host;
+
+        // (taken in turns across users, as from the request queue, so that one user cannot monopolize a shared host;
+        // bounded by the dispatcher, which hands this lane no more than the per-host limit)
+        final WebHookFairQueue pending = new WebHookFairQueue(Integer.MAX_VALUE, fairShareQuantumBytes);
+
+        final AtomicInteger inFlightCt = new AtomicInteger();
+
+        // the number of requests that this lane is responsible for (pending, in flight, parked, or waiting to be retried)
+        final AtomicInteger heldCt = new AtomicInteger();
+
+        final WebHookCircuitBreaker circuitBreaker = new WebHookCircuitBreaker(circuitBreakerFailureThreshold, MILLISECONDS.toNanos(circuitBreakerCooldownMs));
+
+        // requests held back while the circuit breaker is open
+        final BlockingQueue<WebHookRequest> parked = new LinkedBlockingQueue<>();
+
+        // the parked request scheduled to come back when the breaker half-opens, if any; only set with this lane locked
+        private volatile WebHookRequest probe;
+
+        HostLane(String host) {
+            this.host = host;
+        }
+
+        void offer(WebHookRequest wh) {
+            heldCt.incrementAndGet();
+            pending.offer(wh);
+            drain();
+        }
+
+        //
+        // takes back a request of this lane that was waiting to be retried (or parked)
+        //
+        void resume(WebHookRequest wh) {
+            pending.offer(wh);
+            drain();
+        }
+
+        boolean isFull() {
+            return heldCt.get() >= maxPendingPerHost;
+        }
+
+        boolean isIdle() {
+            return heldCt.get() == 0 && !circuitBreaker.isOpen();
+        }
+
+        //
+        // sends pending requests while this host is under its concurrency limit; called whenever a request is added and
+        // whenever a delivery completes
+        //
+        void drain() {
+            while (!pending.isEmpty()) {
+                int n = inFlightCt.get();
+                if (n >= maxConcurrencyPerHost) {
+                    return;
+                }
+                if (inFlightCt.compareAndSet(n, n + 1)) {
+                    WebHookRequest wh = pending.poll();
+                    if (wh == null) {
+                        inFlightCt.decrementAndGet();
+                    } else if (circuitBreaker.allowRequest()) {
+                        // (completions are handled on the worker pool, so that a request failing synchronously cannot recurse)
+                        deliver(wh).whenCompleteAsync((v, t) -> onDeliveryComplete(wh, t), webHookWorkerPool);
+                    } else {
+                        inFlightCt.decrementAndGet();
+                        park(wh);
+                    }
+                }
+            }
+        }
+
+        //
+        // parks a request while the circuit breaker is open; a parked request keeps its dispatch permit, and stays in
+        // this lane until a request to the host succeeds, except for the one probe request that comes back through the
+        // delay queue once the breaker half-opens
+        //
+        private void park(WebHookRequest wh) {
+            parkedCt.increment();
+            webHookProcessorLog.debug("Circuit open for host={}, parking web hook request to URL={}", host, wh.url);
+            synchronized (this) {
+                if (wh == probe) {
+                    // (the probe came back before the breaker half-opened, or while another trial was in flight)
+                    probe = null;
+                }
+                parked.add(wh);
+                scheduleProbe();
+            }
+        }
+
+        //
+        // schedules a parked request to be tried once the breaker half-opens, unless one already is; must be called with
+        // this lane locked
+        //
+        private void scheduleProbe() {
+            if (probe == null) {
+                probe = parked.poll();
+                if (probe != null) {
+                    scheduleRetry(probe, max(circuitBreaker.getRemainingOpenNanos(), MILLISECONDS.toNanos(retryBaseDelayMs)));
+                }
+            }
+        }
+
+        //
+        // accounts for the given (completed) request if it is the probe: the probe is done with unless it is to be retried,
+        // in which case it stays the probe; once the host has accepted a request, every parked request is released (with
+        // jitter, so that they do not all arrive at once), otherwise another parked request becomes the probe
+        //
+        private synchronized void onProbeComplete(WebHookRequest wh, boolean isRetrying) {
+            if (wh == probe && !isRetrying) {
+                probe = null;
+            }
+            if (circuitBreaker.isOpen()) {
+                scheduleProbe();
+            } else {
+                long spreadNanos = MILLISECONDS.toNanos(retryBaseDelayMs);
+                for (WebHookRequest p = parked.poll(); p != null; p = parked.poll()) {
+                    scheduleRetry(p, ThreadLocalRandom.current().nextLong(spreadNanos + 1L));
+                }
+            }
+        }
+
+        private void onDeliveryComplete(WebHookRequest wh, Throwable t) {
+            Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+            boolean isRetryable = cause instanceof WebHookRequestException e && e.isRetryable();
+            if (t == null) {
+                circuitBreaker.onSuccess();
+            } else if (isRetryable) {
+                // endpoint failure
+                circuitBreaker.onFailure();
+            } else {
+                // the endpoint rejected the request, or the request itself is at fault; neither says whether the endpoint
+                // is healthy
+                circuitBreaker.onInconclusive();
+            }
+            inFlightCt.decrementAndGet();
+            boolean isRetrying = isRetryable && wh.attemptCt < maxAttempts;
+            if (!isRetrying) {
+                // (the breaker is updated before the held count, so that this lane is not evicted in between; a request
+                // that is to be retried keeps its dispatch permit while it waits)
+                heldCt.decrementAndGet();
+                dispatchPermits.release();
+            }
+            if (t == null) {
+                deliveredCt.increment();
+                userMetrics.recordDelivery(wh, nanoTime());
+            } else if (isRetrying) {
+                long delayNanos = retryDelayNanos(wh.attemptCt);
+                webHookProcessorLog.warn("Web hook to URL={} failed on attempt {} of {}, retrying in {}ms: {}",
+                        wh.url, wh.attemptCt, maxAttempts, NANOSECONDS.toMillis(delayNanos), cause.getMessage());
+                retriedCt.increment();
+                scheduleRetry(wh, delayNanos);
+            } else if (cause instanceof WebHookRequestException) {
+                failedCt.increment();
+                webHookProcessorLog.error("Something horrible happened while posting a web hook to URL={}: {}", wh.url, cause.getMessage());
+            } else {
+                failedCt.increment();
+                webHookProcessorLog.error("Something horrible happened while posting a web hook to URL={}: {}", wh.url, cause.getMessage(), cause);
+            }
+            if (probe != null || !parked.isEmpty()) {
+                onProbeComplete(wh, isRetrying);
+            }
+            webHookProcessorLog.debug("Web hook processor metrics: delivered={}, failed={}, retried={}, parked={}", deliveredCt, failedCt, retriedCt, parkedCt);
+            drain();
+        }
+
+        @Override
+        public String toString() {
+            return "HostLane{" +
+                    "host='" + host + '\'' +
+                    ", pendingCt=" + pending.size() +
+                    ", inFlightCt=" + inFlightCt +
+                    ", heldCt=" + heldCt +
+                    ", parkedCt=" + parked.size() +
+                    ", circuitBreaker=" + circuitBreaker +
+                    '}';
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "WebHookDispatcher{" +
+                "webHookRequestQueue=" + webHookRequestQueue +
+                ", newsgearsUserAgent='" + newsgearsUserAgent + '\'' +
+                ", workerThreadCt=" + workerThreadCt +
+                ", maxConcurrencyPerHost=" + maxConcurrencyPerHost +
+                ", connectTimeoutMs=" + connectTimeoutMs +
+                ", requestTimeoutMs=" + requestTimeoutMs +
+                ", queueCapacity=" + queueCapacity +
+                ", journalPath='" + journalPath + '\'' +
+                ", journalMaxBytes=" + journalMaxBytes +
+                ", maxPendingCt=" + maxPendingCt +
+                ", maxPendingPerHost=" + maxPendingPerHost +
+                ", fairShareQuantumBytes=" + fairShareQuantumBytes +
+                ", gzipThresholdBytes=" + gzipThresholdBytes +
+                ", isHttpsRequiredForCredentials=" + isHttpsRequiredForCredentials +
+                ", maxAttempts=" + maxAttempts +
+                ", retryBaseDelayMs=" + retryBaseDelayMs +
+                ", retryMaxDelayMs=" + retryMaxDelayMs +
+                ", circuitBreakerFailureThreshold=" + circuitBreakerFailureThreshold +
+                ", circuitBreakerCooldownMs=" + circuitBreakerCooldownMs +
+                ", retryQueueDepth=" + retryQueue.size() +
+                ", lanesByHost=" + lanesByHost.values() +
+                ", webHookDispatcherThread=" + webHookDispatcherThread +
+                '}';
+    }
+}
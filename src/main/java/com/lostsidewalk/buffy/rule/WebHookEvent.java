@@ -0,0 +1,38 @@
+package com.lostsidewalk.buffy.rule;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the delivery of a single web hook, from sending the request to receiving the
+ * response (or failure).  Disabled unless the recording enables it (see {@code newsgears.jfc}).
+ */
+@Name("com.lostsidewalk.buffy.WebHook")
+@Label("Web Hook")
+@Category({"NewsGears", "Rules"})
+@Description("The delivery of a web hook")
+@Enabled(false)
+@StackTrace(false)
+class WebHookEvent extends jdk.jfr.Event {
+
+    @Label("Username")
+    String username;
+
+    @Label("Host")
+    String host;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Failed")
+    boolean isFailed;
+}
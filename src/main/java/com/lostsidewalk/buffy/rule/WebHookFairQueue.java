@@ -0,0 +1,254 @@
+package com.lostsidewalk.buffy.rule;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+
+/**
+ * Bounded, in-memory queue of web hook requests that is fair across users.  Each user has a FIFO sub-queue, and the
+ * sub-queues are served by deficit round-robin: on each turn a user is credited with {@code quantumBytes}, and may
+ * take requests until their payloads exceed that credit, so that a user with a large backlog (or large payloads)
+ * cannot hold back the requests of every other user.
+ */
+class WebHookFairQueue {
+
+    private final int capacity;
+
+    private final int quantumBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    // guarded by lock
+    private final Map<String, UserQueue> queuesByUser = new HashMap<>(64);
+
+    // users with pending requests, in round-robin order; guarded by lock
+    private final Deque<UserQueue> activeUsers = new ArrayDeque<>(64);
+
+    // guarded by lock
+    private int size;
+
+    WebHookFairQueue(int capacity, int quantumBytes) {
+        this.capacity = capacity;
+        this.quantumBytes = Math.max(1, quantumBytes);
+    }
+
+    final boolean offer(WebHookRequest webHookRequest) {
+        lock.lock();
+        try {
+            if (size >= capacity) {
+                return false;
+            }
+            enqueue(webHookRequest);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //
+    // adds the request even if the queue is at capacity (for requests already accounted for elsewhere, that must not be
+    // lost or block)
+    //
+    final void add(WebHookRequest webHookRequest) {
+        lock.lock();
+        try {
+            enqueue(webHookRequest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    final void put(WebHookRequest webHookRequest) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size >= capacity) {
+                notFull.await();
+            }
+            enqueue(webHookRequest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    final WebHookRequest poll() {
+        lock.lock();
+        try {
+            return size == 0 ? null : dequeue(webHookRequest -> true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    final WebHookRequest poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return poll(timeout, unit, webHookRequest -> true);
+    }
+
+    //
+    // takes the next request that is ready, per the given predicate, waiting up to the given time for one; a user whose
+    // next request is not ready is passed over (keeping its credit), and their later requests wait behind it, so that
+    // each user's requests are still taken in order
+    //
+    final WebHookRequest poll(long timeout, TimeUnit unit, Predicate<? super WebHookRequest> isReady) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                WebHookRequest webHookRequest = size == 0 ? null : dequeue(isReady);
+                if (webHookRequest != null) {
+                    return webHookRequest;
+                }
+                if (remainingNanos <= 0L) {
+                    return null;
+                }
+                remainingNanos = notEmpty.awaitNanos(remainingNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //
+    // removes every request, in fair order
+    //
+    final int drainTo(Collection<? super WebHookRequest> c) {
+        lock.lock();
+        try {
+            int ct = size;
+            while (size > 0) {
+                c.add(dequeue(webHookRequest -> true));
+            }
+            return ct;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    final boolean isEmpty() {
+        return size() == 0;
+    }
+
+    final int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //
+    // the number of requests pending for the given user
+    //
+    final int sizeOf(String username) {
+        lock.lock();
+        try {
+            UserQueue userQueue = queuesByUser.get(username == null ? EMPTY : username);
+            return userQueue == null ? 0 : userQueue.pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //
+    // the number of requests pending for each user that has any
+    //
+    final Map<String, Integer> getBacklogByUser() {
+        lock.lock();
+        try {
+            Map<String, Integer> backlogByUser = new HashMap<>(queuesByUser.size());
+            queuesByUser.forEach((u, q) -> backlogByUser.put(u, q.pending.size()));
+            return backlogByUser;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(WebHookRequest webHookRequest) {
+        String username = webHookRequest.username == null ? EMPTY : webHookRequest.username;
+        UserQueue userQueue = queuesByUser.get(username);
+        if (userQueue == null) {
+            userQueue = new UserQueue(username);
+            queuesByUser.put(username, userQueue);
+            activeUsers.addLast(userQueue);
+        }
+        userQueue.pending.addLast(webHookRequest);
+        size++;
+        notEmpty.signal();
+    }
+
+    //
+    // deficit round-robin over the users whose next request is ready; must be called with the lock held, and only when
+    // the queue is not empty; returns null when no user's next request is ready
+    //
+    private WebHookRequest dequeue(Predicate<? super WebHookRequest> isReady) {
+        int passedOverCt = 0;
+        while (passedOverCt < activeUsers.size()) {
+            UserQueue userQueue = activeUsers.peekFirst();
+            WebHookRequest head = userQueue.pending.peekFirst();
+            if (!isReady.test(head)) {
+                activeUsers.addLast(activeUsers.pollFirst());
+                passedOverCt++;
+                continue;
+            }
+            passedOverCt = 0;
+            int cost = costOf(head);
+            if (userQueue.deficit >= cost) {
+                userQueue.pending.pollFirst();
+                userQueue.deficit -= cost;
+                if (userQueue.pending.isEmpty()) {
+                    // an idle user does not bank credit
+                    activeUsers.pollFirst();
+                    queuesByUser.remove(userQueue.username);
+                }
+                size--;
+                notFull.signal();
+                return head;
+            }
+            // this user's turn is over; credit it for the next one
+            userQueue.deficit += quantumBytes;
+            activeUsers.addLast(activeUsers.pollFirst());
+        }
+        return null;
+    }
+
+    private static int costOf(WebHookRequest webHookRequest) {
+        WebHookPayload payload = webHookRequest.getPayload();
+        return payload == null ? 1 : Math.max(1, payload.size());
+    }
+
+    private static final class UserQueue {
+
+        final String username;
+
+        final Deque<WebHookRequest> pending = new ArrayDeque<>(16);
+
+        long deficit;
+
+        UserQueue(String username) {
+            this.username = username;
+        }
+    }
+
+    @Override
+    public final String toString() {
+        lock.lock();
+        try {
+            return "WebHookFairQueue{" +
+                    "capacity=" + capacity +
+                    ", quantumBytes=" + quantumBytes +
+                    ", size=" + size +
+                    ", activeUserCt=" + activeUsers.size() +
+                    '}';
+        } finally {
+            lock.unlock();
+        }
+    }
+}
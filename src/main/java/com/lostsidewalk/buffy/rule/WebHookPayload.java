@@ -0,0 +1,121 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Immutable, UTF-8 encoded JSON web hook payload.  A payload is encoded once, and its bytes are shared by every request
+ * that carries it (e.g., when a post fans out to several web hooks, or a request is retried), and handed to the HTTP
+ * client as-is at send time.  The gzip-compressed form is computed on first use, at most once.
+ */
+final class WebHookPayload {
+
+    private final byte[] json;
+
+    private volatile byte[] gzipped;
+
+    private WebHookPayload(byte[] json) {
+        this.json = json;
+    }
+
+    //
+    // encodes the given object as JSON, streaming it straight into the payload bytes
+    //
+    static WebHookPayload toJson(Gson gson, Object src) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (Writer writer = new OutputStreamWriter(bytes, UTF_8)) {
+            gson.toJson(src, writer);
+        } catch (IOException | JsonIOException e) {
+            // not expected, since nothing here does I/O
+            throw new UncheckedIOException(e instanceof IOException ioe ? ioe : new IOException(e));
+        }
+        return new WebHookPayload(bytes.toByteArray());
+    }
+
+    //
+    // wraps the given JSON bytes, which the caller must not modify afterward
+    //
+    static WebHookPayload ofJson(byte[] json) {
+        return new WebHookPayload(json);
+    }
+
+    //
+    // builds the JSON array of the given payloads, without decoding them
+    //
+    static WebHookPayload ofJsonArray(Collection<WebHookPayload> elements) {
+        int size = 2 + Math.max(0, elements.size() - 1);
+        for (WebHookPayload e : elements) {
+            size += e.json.length;
+        }
+        byte[] array = new byte[size];
+        int pos = 0;
+        array[pos++] = '[';
+        for (WebHookPayload e : elements) {
+            if (pos > 1) {
+                array[pos++] = ',';
+            }
+            System.arraycopy(e.json, 0, array, pos, e.json.length);
+            pos += e.json.length;
+        }
+        array[pos] = ']';
+        return new WebHookPayload(array);
+    }
+
+    final int size() {
+        return json.length;
+    }
+
+    final BodyPublisher bodyPublisher() {
+        return BodyPublishers.ofByteArray(json);
+    }
+
+    final BodyPublisher gzipBodyPublisher() {
+        return BodyPublishers.ofByteArray(gzipped());
+    }
+
+    //
+    // copies the payload bytes into the given buffer, at the given index
+    //
+    final void writeTo(ByteBuffer buffer, int index) {
+        buffer.put(index, json);
+    }
+
+    private byte[] gzipped() {
+        byte[] g = gzipped;
+        if (g == null) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(json);
+            } catch (IOException e) {
+                // not expected, since nothing here does I/O
+                throw new UncheckedIOException(e);
+            }
+            g = bytes.toByteArray();
+            // (a race here only means the payload is compressed more than once)
+            gzipped = g;
+        }
+        return g;
+    }
+
+    @Override
+    public String toString() {
+        byte[] g = gzipped;
+        return "WebHookPayload{" +
+                "size=" + json.length +
+                ", gzippedSize=" + (g == null ? null : g.length) +
+                '}';
+    }
+}
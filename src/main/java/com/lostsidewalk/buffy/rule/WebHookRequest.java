@@ -1,6 +1,5 @@
 package com.lostsidewalk.buffy.rule;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
@@ -8,42 +7,76 @@ import javax.net.ssl.SSLHandshakeException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Serial;
-import java.io.Serializable;
 import java.net.ConnectException;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+
+import static java.lang.System.nanoTime;
 
 @Slf4j
 @Data
-@AllArgsConstructor
 class WebHookRequest {
 
     String url;
 
-    Serializable payload;
+    WebHookPayload payload;
 
     String basicUsername;
 
     String basicPassword;
 
+    // the user on whose behalf the request is made (used to schedule deliveries fairly across users)
+    String username;
+
+    // the number of delivery attempts made so far
+    int attemptCt;
+
+    // when the request was made (per System.nanoTime()), used to measure delivery latency
+    long submittedNanos;
+
+    WebHookRequest(String url, WebHookPayload payload, String basicUsername, String basicPassword) {
+        this(null, url, payload, basicUsername, basicPassword);
+    }
+
+    WebHookRequest(String username, String url, WebHookPayload payload, String basicUsername, String basicPassword) {
+        this.username = username;
+        this.url = url;
+        this.payload = payload;
+        this.basicUsername = basicUsername;
+        this.basicPassword = basicPassword;
+        this.submittedNanos = nanoTime();
+    }
+
+    //
+    // retryable failures are those that indicate a (possibly transient) problem with the destination endpoint, rather
+    // than with the request itself; these also count against the destination's circuit breaker
+    //
     public enum WebHookRequestExceptionType {
-        FILE_NOT_FOUND_EXCEPTION,
-        SSL_HANDSHAKE_EXCEPTION,
-        IO_EXCEPTION,
-        UNKNOWN_HOST_EXCEPTION,
-        SOCKET_TIMEOUT_EXCEPTION,
-        SOCKET_EXCEPTION,
-        CONNECT_EXCEPTION,
-        ILLEGAL_ARGUMENT_EXCEPTION,
-        HTTP_CLIENT_ERROR,
-        HTTP_SERVER_ERROR,
-        OTHER
+        FILE_NOT_FOUND_EXCEPTION(false),
+        SSL_HANDSHAKE_EXCEPTION(false),
+        IO_EXCEPTION(true),
+        UNKNOWN_HOST_EXCEPTION(true),
+        SOCKET_TIMEOUT_EXCEPTION(true),
+        SOCKET_EXCEPTION(true),
+        CONNECT_EXCEPTION(true),
+        ILLEGAL_ARGUMENT_EXCEPTION(false),
+        HTTP_CLIENT_ERROR(false),
+        HTTP_SERVER_ERROR(true),
+        OTHER(false);
+
+        final boolean retryable;
+
+        WebHookRequestExceptionType(boolean retryable) {
+            this.retryable = retryable;
+        }
     }
 
     static class WebHookRequestException extends Exception {
         @Serial
         private static final long serialVersionUID = 98509623048523L;
+        static final int HTTP_TOO_MANY_REQUESTS = 429;
         final String feedUrl;
         final Integer httpStatusCode;
         final String httpStatusMessage;
@@ -69,7 +102,7 @@ class WebHookRequest {
                 exceptionType = WebHookRequestExceptionType.SSL_HANDSHAKE_EXCEPTION;
             } else if (exception instanceof UnknownHostException) {
                 exceptionType = WebHookRequestExceptionType.UNKNOWN_HOST_EXCEPTION;
-            } else if (exception instanceof SocketTimeoutException) {
+            } else if (exception instanceof SocketTimeoutException || exception instanceof HttpTimeoutException) {
                 exceptionType = WebHookRequestExceptionType.SOCKET_TIMEOUT_EXCEPTION;
             } else if (exception instanceof ConnectException) {
                 exceptionType = WebHookRequestExceptionType.CONNECT_EXCEPTION;
@@ -83,5 +116,12 @@ class WebHookRequest {
                 exceptionType = WebHookRequestExceptionType.OTHER;
             }
         }
+
+        //
+        // 429 (too many requests) is the one client error worth retrying
+        //
+        boolean isRetryable() {
+            return exceptionType.retryable || (httpStatusCode != null && httpStatusCode == HTTP_TOO_MANY_REQUESTS);
+        }
     }
 }
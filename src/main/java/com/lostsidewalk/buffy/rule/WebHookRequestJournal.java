@@ -0,0 +1,334 @@
+package com.lostsidewalk.buffy.rule;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_READ;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_WRITE;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+
+/**
+ * Memory-mapped ring journal of web hook requests, used to hold requests that overflow the in-memory web hook queue.
+ * The file begins with a header holding the read and write offsets, so that unread requests survive a restart and are
+ * replayed when the journal is reopened.  Records are appended at the write offset until they no longer fit before
+ * the end of the file, and then wrap around to the start of the data region (behind a wrap marker), so that space is
+ * reclaimed as records are read, rather than only once the journal has drained; once every record has been read, both
+ * offsets are rewound to the start of the data region.  Records are not forced to the storage device individually;
+ * the mapping is forced when the journal is closed.
+ * <p>
+ * Since records hold the Basic credentials of their web hooks, the file is created readable and writable by its owner
+ * only (where the file system supports POSIX permissions), and the permissions of an existing file are reset likewise.
+ */
+@Slf4j
+class WebHookRequestJournal implements Closeable {
+
+    private static final int HEADER_BYTES = 2 * Long.BYTES;
+
+    // written in place of a record length where the next record did not fit before the end of the file
+    private static final int WRAP_MARKER = -1;
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = EnumSet.of(OWNER_READ, OWNER_WRITE);
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private long readOffset;
+
+    private long writeOffset;
+
+    private long recordCt;
+
+    // the number of unread records of each user that has any
+    private final Map<String, Integer> pendingCtByUser = new HashMap<>(64);
+
+    WebHookRequestJournal(Path path, int maxBytes) throws IOException {
+        this.path = path;
+        this.channel = openChannel(path);
+        this.buffer = channel.map(READ_WRITE, 0L, maxBytes);
+        long r = buffer.getLong(0);
+        long w = buffer.getLong(Long.BYTES);
+        if (r < HEADER_BYTES || r > maxBytes || w < HEADER_BYTES || w > maxBytes) {
+            // new (or unreadable) journal
+            rewind();
+        } else {
+            readOffset = r;
+            writeOffset = w;
+            recordCt = countRecords();
+            if (recordCt < 0L) {
+                log.warn("Discarding corrupt web hook request journal, path={}", path);
+                rewind();
+            }
+        }
+        log.info("Web hook request journal opened, path={}, pendingCt={}, pendingBytes={}", path, recordCt, getPendingBytes());
+    }
+
+    private static FileChannel openChannel(Path path) throws IOException {
+        Set<StandardOpenOption> options = EnumSet.of(CREATE, READ, WRITE);
+        if (!path.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            log.warn("Web hook request journal permissions cannot be restricted on this file system, path={}", path);
+            return FileChannel.open(path, options);
+        }
+        FileAttribute<Set<PosixFilePermission>> ownerOnly = PosixFilePermissions.asFileAttribute(OWNER_ONLY);
+        FileChannel channel = FileChannel.open(path, options, ownerOnly);
+        // (the attribute only applies to a new file)
+        Files.setPosixFilePermissions(path, OWNER_ONLY);
+        return channel;
+    }
+
+    //
+    // appends the request to the journal; returns false if the journal is full
+    //
+    final synchronized boolean append(WebHookRequest webHookRequest) {
+        byte[] url = bytesOf(webHookRequest.url);
+        WebHookPayload payload = webHookRequest.getPayload();
+        byte[] basicUsername = bytesOf(webHookRequest.basicUsername);
+        byte[] basicPassword = bytesOf(webHookRequest.basicPassword);
+        byte[] username = bytesOf(webHookRequest.username);
+        int recordBytes = Integer.BYTES
+                + fieldBytes(url)
+                + Integer.BYTES + (payload == null ? 0 : payload.size())
+                + fieldBytes(basicUsername)
+                + fieldBytes(basicPassword)
+                + fieldBytes(username);
+        int pos = reserve(recordBytes);
+        if (pos < 0) {
+            return false;
+        }
+        buffer.putInt(pos, recordBytes);
+        pos += Integer.BYTES;
+        pos = putField(pos, url);
+        // (the payload is stored as its JSON bytes, as-is)
+        buffer.putInt(pos, payload == null ? -1 : payload.size());
+        pos += Integer.BYTES;
+        if (payload != null) {
+            payload.writeTo(buffer, pos);
+            pos += payload.size();
+        }
+        pos = putField(pos, basicUsername);
+        pos = putField(pos, basicPassword);
+        pos = putField(pos, username);
+        writeOffset = pos;
+        recordCt++;
+        pendingCtByUser.merge(userKeyOf(webHookRequest.username), 1, Integer::sum);
+        writeHeader();
+        return true;
+    }
+
+    //
+    // reads the oldest unread request from the journal, or returns null if there is none
+    //
+    final synchronized WebHookRequest poll() {
+        if (recordCt == 0L) {
+            return null;
+        }
+        if (isWrapAt(readOffset)) {
+            readOffset = HEADER_BYTES;
+        }
+        int pos = (int) readOffset;
+        int recordBytes = buffer.getInt(pos);
+        int recordEnd = pos + recordBytes;
+        pos += Integer.BYTES;
+        // (records written before the username field was added have only the first four fields)
+        byte[][] fields = new byte[5][];
+        for (int i = 0; i < fields.length && pos < recordEnd; i++) {
+            int len = buffer.getInt(pos);
+            pos += Integer.BYTES;
+            if (len >= 0) {
+                fields[i] = new byte[len];
+                buffer.get(pos, fields[i]);
+                pos += len;
+            }
+        }
+        readOffset += recordBytes;
+        recordCt--;
+        pendingCtByUser.computeIfPresent(userKeyOf(stringOf(fields[4])), (u, ct) -> ct > 1 ? ct - 1 : null);
+        if (recordCt == 0L) {
+            rewind();
+        } else {
+            writeHeader();
+        }
+        return new WebHookRequest(
+                stringOf(fields[4]),
+                stringOf(fields[0]),
+                fields[1] == null ? null : WebHookPayload.ofJson(fields[1]),
+                stringOf(fields[2]),
+                stringOf(fields[3])
+        );
+    }
+
+    final synchronized boolean isEmpty() {
+        return recordCt == 0L;
+    }
+
+    //
+    // true if the journal holds unread requests of the given user
+    //
+    final synchronized boolean hasPending(String username) {
+        return pendingCtByUser.containsKey(userKeyOf(username));
+    }
+
+    final synchronized long getPendingCt() {
+        return recordCt;
+    }
+
+    final synchronized long getPendingBytes() {
+        return writeOffset >= readOffset ? writeOffset - readOffset : (buffer.capacity() - readOffset) + (writeOffset - HEADER_BYTES);
+    }
+
+    @Override
+    public final synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+        log.info("Web hook request journal closed, path={}, pendingCt={}, pendingBytes={}", path, recordCt, getPendingBytes());
+    }
+
+    //
+    // returns the offset at which a record of the given size is to be written (wrapping around to the start of the
+    // data region if it does not fit before the end of the file), or -1 if the journal is full; the write offset never
+    // catches up with the read offset from behind, so that equal offsets always mean an empty journal
+    //
+    private int reserve(int recordBytes) {
+        int capacity = buffer.capacity();
+        if (writeOffset < readOffset) {
+            // (already wrapped)
+            return writeOffset + recordBytes < readOffset ? (int) writeOffset : -1;
+        }
+        if (writeOffset + recordBytes <= capacity) {
+            return (int) writeOffset;
+        }
+        if (HEADER_BYTES + recordBytes >= readOffset) {
+            return -1;
+        }
+        if (capacity - writeOffset >= Integer.BYTES) {
+            buffer.putInt((int) writeOffset, WRAP_MARKER);
+        }
+        return HEADER_BYTES;
+    }
+
+    //
+    // true if the next record is at the start of the data region, rather than at the given offset
+    //
+    private boolean isWrapAt(long pos) {
+        return buffer.capacity() - pos < Integer.BYTES || buffer.getInt((int) pos) == WRAP_MARKER;
+    }
+
+    private void rewind() {
+        readOffset = HEADER_BYTES;
+        writeOffset = HEADER_BYTES;
+        recordCt = 0L;
+        pendingCtByUser.clear();
+        writeHeader();
+    }
+
+    private void writeHeader() {
+        buffer.putLong(0, readOffset);
+        buffer.putLong(Long.BYTES, writeOffset);
+    }
+
+    //
+    // counts the unread records (in total, and by user), returning -1 if the record lengths do not add up to the write
+    // offset
+    //
+    private long countRecords() {
+        long ct = 0L;
+        long pos = readOffset;
+        boolean isWrapped = false;
+        while (pos != writeOffset) {
+            if (isWrapAt(pos)) {
+                if (isWrapped || writeOffset > readOffset) {
+                    return -1L;
+                }
+                pos = HEADER_BYTES;
+                isWrapped = true;
+                continue;
+            }
+            int recordBytes = buffer.getInt((int) pos);
+            if (recordBytes < Integer.BYTES || pos + recordBytes > buffer.capacity()) {
+                return -1L;
+            }
+            pendingCtByUser.merge(userKeyOf(usernameAt((int) pos, recordBytes)), 1, Integer::sum);
+            pos += recordBytes;
+            ct++;
+            if (isWrapped && pos > writeOffset) {
+                return -1L;
+            }
+        }
+        return ct;
+    }
+
+    //
+    // reads the username (the fifth field) of the record at the given offset, skipping the others
+    //
+    private String usernameAt(int pos, int recordBytes) {
+        int recordEnd = pos + recordBytes;
+        pos += Integer.BYTES;
+        for (int i = 0; i < 4 && pos < recordEnd; i++) {
+            pos += Integer.BYTES + Math.max(0, buffer.getInt(pos));
+        }
+        if (pos >= recordEnd) {
+            return null;
+        }
+        int len = buffer.getInt(pos);
+        if (len < 0 || pos + Integer.BYTES + len > recordEnd) {
+            return null;
+        }
+        byte[] username = new byte[len];
+        buffer.get(pos + Integer.BYTES, username);
+        return stringOf(username);
+    }
+
+    private static String userKeyOf(String username) {
+        return username == null ? EMPTY : username;
+    }
+
+    private int putField(int pos, byte[] f) {
+        buffer.putInt(pos, f == null ? -1 : f.length);
+        if (f != null) {
+            buffer.put(pos + Integer.BYTES, f);
+        }
+        return pos + fieldBytes(f);
+    }
+
+    private static int fieldBytes(byte[] f) {
+        return Integer.BYTES + (f == null ? 0 : f.length);
+    }
+
+    private static byte[] bytesOf(String s) {
+        return s == null ? null : s.getBytes(UTF_8);
+    }
+
+    private static String stringOf(byte[] b) {
+        return b == null ? null : new String(b, UTF_8);
+    }
+
+    @Override
+    public final String toString() {
+        return "WebHookRequestJournal{" +
+                "path=" + path +
+                ", capacity=" + buffer.capacity() +
+                ", readOffset=" + readOffset +
+                ", writeOffset=" + writeOffset +
+                ", recordCt=" + recordCt +
+                '}';
+    }
+}
@@ -0,0 +1,146 @@
+package com.lostsidewalk.buffy.rule;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Bounded queue of web hook requests awaiting dispatch.  Requests are held in memory, in a {@link WebHookFairQueue}
+ * that takes turns across users, up to the configured capacity; beyond that they spill to a
+ * {@link WebHookRequestJournal} (when one is configured).  No single user may hold more than half of the in-memory
+ * capacity while the journal is in use, and a user's later requests follow their spilled ones into the journal, which
+ * preserves each user's order; the requests of other users still go to memory when there is room.  The consumer moves
+ * spilled requests back into memory, up to half of its capacity, so that they take their turns with everyone else's,
+ * and the other half is left for requests that go around the spill.
+ * When the journal is also full (or there is none), producers block until the dispatcher makes room.
+ */
+@Slf4j
+class WebHookRequestQueue {
+
+    // how long the consumer waits on the in-memory queue before checking the journal again
+    private static final long JOURNAL_POLL_INTERVAL_MS = 100L;
+
+    private final WebHookFairQueue memoryQueue;
+
+    // the number of requests that a single user may hold in memory, and the number held in memory below which the
+    // consumer moves spilled requests back from the journal
+    private final int shareCapacity;
+
+    private final WebHookRequestJournal journal;
+
+    private final LongAdder spilledCt = new LongAdder();
+
+    WebHookRequestQueue(int capacity, int fairShareQuantumBytes, WebHookRequestJournal journal) {
+        this.memoryQueue = new WebHookFairQueue(capacity, fairShareQuantumBytes);
+        this.shareCapacity = Math.max(1, capacity / 2);
+        this.journal = journal;
+    }
+
+    final void put(WebHookRequest webHookRequest) throws InterruptedException {
+        if (journal != null) {
+            synchronized (this) {
+                String username = webHookRequest.username;
+                if (!journal.hasPending(username) && memoryQueue.sizeOf(username) < shareCapacity && memoryQueue.offer(webHookRequest)) {
+                    return;
+                }
+                if (journal.append(webHookRequest)) {
+                    spilledCt.increment();
+                    return;
+                }
+            }
+            log.warn("Web hook request journal is full, blocking until the dispatcher catches up");
+        }
+        memoryQueue.put(webHookRequest);
+    }
+
+    //
+    // takes the next request that is ready, per the given predicate; requests that are not ready stay queued (and
+    // readiness is checked again at least every poll interval)
+    //
+    final WebHookRequest take(Predicate<? super WebHookRequest> isReady) throws InterruptedException {
+        while (true) {
+            if (journal != null) {
+                refill();
+            }
+            WebHookRequest webHookRequest = memoryQueue.poll(JOURNAL_POLL_INTERVAL_MS, MILLISECONDS, isReady);
+            if (webHookRequest != null) {
+                return webHookRequest;
+            }
+        }
+    }
+
+    //
+    // moves spilled requests back into memory, oldest first, while memory is under half of its capacity; each lands
+    // behind the earlier requests of the same user, which are older (and no request of that user can have gone to
+    // memory since, while it was in the journal)
+    //
+    private synchronized void refill() {
+        while (memoryQueue.size() < shareCapacity) {
+            WebHookRequest webHookRequest = journal.poll();
+            if (webHookRequest == null) {
+                return;
+            }
+            // (a producer blocked on a full journal may have filled memory meanwhile; the request must not be lost)
+            memoryQueue.add(webHookRequest);
+        }
+    }
+
+    //
+    // moves the given undispatched requests (which were taken from this queue earlier), and then anything still held
+    // in memory, to the journal so that they are replayed on the next startup; then closes the journal
+    //
+    final void close(Collection<WebHookRequest> undispatched) throws IOException {
+        if (journal != null) {
+            List<WebHookRequest> remaining = new ArrayList<>(undispatched.size() + memoryQueue.size());
+            remaining.addAll(undispatched);
+            memoryQueue.drainTo(remaining);
+            int lostCt = 0;
+            for (WebHookRequest wh : remaining) {
+                if (!journal.append(wh)) {
+                    lostCt++;
+                }
+            }
+            if (lostCt > 0) {
+                log.error("Web hook request journal is full, dropping {} requests on shutdown", lostCt);
+            }
+            journal.close();
+        }
+    }
+
+    final int size() {
+        return memoryQueue.size() + (journal == null ? 0 : (int) journal.getPendingCt());
+    }
+
+    //
+    // the number of requests held in memory for each user that has any
+    //
+    final Map<String, Integer> getBacklogByUser() {
+        return memoryQueue.getBacklogByUser();
+    }
+
+    final long getSpilledCt() {
+        return spilledCt.sum();
+    }
+
+    final long getSpillBytes() {
+        return journal == null ? 0L : journal.getPendingBytes();
+    }
+
+    @Override
+    public final String toString() {
+        return "WebHookRequestQueue{" +
+                "memoryQueue=" + memoryQueue +
+                ", shareCapacity=" + shareCapacity +
+                ", journal=" + journal +
+                ", spilledCt=" + spilledCt +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package com.lostsidewalk.buffy.rule;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+
+/**
+ * Per-user web hook delivery metrics, i.e., the number of deliveries and the latency from submission to the completed
+ * delivery (including time spent queued, and any retries).
+ */
+class WebHookUserMetrics {
+
+    private final Map<String, UserMetrics> metricsByUser = new ConcurrentHashMap<>(64);
+
+    final void recordDelivery(WebHookRequest webHookRequest, long completedNanos) {
+        String username = webHookRequest.username == null ? EMPTY : webHookRequest.username;
+        long latencyMs = NANOSECONDS.toMillis(completedNanos - webHookRequest.submittedNanos);
+        metricsByUser.computeIfAbsent(username, u -> new UserMetrics()).record(latencyMs);
+    }
+
+    //
+    // the delivery metrics of (at most) the given number of users, slowest first
+    //
+    final Map<String, Map<String, Long>> getSlowestUsers(int limit) {
+        Map<String, Map<String, Long>> slowestUsers = new LinkedHashMap<>(limit);
+        // (snapshot first, since the metrics keep changing while they are sorted)
+        metricsByUser.entrySet().stream()
+                .map(e -> new UserSnapshot(e.getKey(), e.getValue().deliveredCt.sum(), e.getValue().getAvgLatencyMs(), e.getValue().maxLatencyMs.get()))
+                .toList().stream()
+                .sorted(Comparator.comparingLong(UserSnapshot::avgLatencyMs).reversed())
+                .limit(limit)
+                .forEach(s -> slowestUsers.put(s.username(), Map.of(
+                        "deliveredCt", s.deliveredCt(),
+                        "avgLatencyMs", s.avgLatencyMs(),
+                        "maxLatencyMs", s.maxLatencyMs()
+                )));
+        return slowestUsers;
+    }
+
+    private static final class UserMetrics {
+
+        final LongAdder deliveredCt = new LongAdder();
+
+        final LongAdder totalLatencyMs = new LongAdder();
+
+        final LongAccumulator maxLatencyMs = new LongAccumulator(Math::max, 0L);
+
+        void record(long latencyMs) {
+            deliveredCt.increment();
+            totalLatencyMs.add(latencyMs);
+            maxLatencyMs.accumulate(latencyMs);
+        }
+
+        long getAvgLatencyMs() {
+            long ct = deliveredCt.sum();
+            return ct == 0L ? 0L : totalLatencyMs.sum() / ct;
+        }
+    }
+
+    private record UserSnapshot(String username, long deliveredCt, long avgLatencyMs, long maxLatencyMs) {
+    }
+
+    @Override
+    public final String toString() {
+        return "WebHookUserMetrics{" +
+                "userCt=" + metricsByUser.size() +
+                '}';
+    }
+}
@@ -3,80 +3,142 @@ package com.lostsidewalk.buffy.rule;
 import com.lostsidewalk.buffy.rule.WebHookRequest.WebHookRequestException;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.*;
-import java.net.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static com.lostsidewalk.buffy.rule.WebHookRequest.WebHookRequestExceptionType.HTTP_CLIENT_ERROR;
 import static com.lostsidewalk.buffy.rule.WebHookRequest.WebHookRequestExceptionType.HTTP_SERVER_ERROR;
 import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
 import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.http.HttpClient.Redirect.NORMAL;
+import static java.net.http.HttpClient.Version.HTTP_2;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.CompletableFuture.failedFuture;
 
 @Slf4j
 class WebHookUtils {
 
-    static void postWebHook(WebHookRequest webHookRequest, String userAgent) throws WebHookRequestException {
+    //
+    // builds the client shared by all web hook deliveries; the client pools (keep-alive) connections per destination,
+    // and negotiates HTTP/2 where the destination supports it
+    //
+    static HttpClient newHttpClient(Duration connectTimeout, Executor executor) {
+        return HttpClient.newBuilder()
+                .version(HTTP_2)
+                .followRedirects(NORMAL)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    //
+    // sends the web hook without blocking; the returned future completes exceptionally with a
+    // (CompletionException-wrapped) WebHookRequestException if the request cannot be made or the response is an error;
+    // payloads of at least gzipThresholdBytes are sent gzip-compressed (zero disables compression); Basic credentials
+    // for a URL that is not https are refused if isHttpsRequiredForCredentials is set, and otherwise sent with a warning
+    //
+    static CompletableFuture<Void> postWebHook(HttpClient httpClient, WebHookRequest webHookRequest, String userAgent, Duration requestTimeout, int gzipThresholdBytes, boolean isHttpsRequiredForCredentials) {
         String url = webHookRequest.url;
         log.debug("Performing webhook to URL={}", url);
-        Integer statusCode = null;
-        String statusMessage = null;
+        HttpRequest request;
         try {
-            // setup the initial connection
-            HttpURLConnection feedConnection = openFeedConnection(url);
-            // add authentication, if any
-            addAuthenticator(feedConnection, webHookRequest.basicUsername, webHookRequest.basicPassword);
-            // add the UA header
-            feedConnection.setRequestProperty("User-Agent", userAgent);
-            // add the CE header
-            feedConnection.setRequestProperty("Content-Encoding", "application/json");
-            // set the request method
-            feedConnection.setRequestMethod("POST");
-            // set doOutput
-            feedConnection.setDoOutput(true);
-            // send the payload
-            Serializable payload = webHookRequest.getPayload();
-            try (ObjectOutput objectOutputStream = new ObjectOutputStream(feedConnection.getOutputStream())) {
-                objectOutputStream.writeObject(payload);
-            }
-            // get the status response
-            statusCode = getStatusCode(feedConnection);
-            // get the status message
-            statusMessage = getStatusMessage(feedConnection);
-            if (isClientError(statusCode)) { // otherwise, if this is a client error (4xx)
-                // CLIENT_ERROR
-                throw new WebHookRequestException(url, statusCode, statusMessage, HTTP_CLIENT_ERROR);
-            } else if (isServerError(statusCode)) { // otherwise, if this is a server error (5xx)
-                // SERVER_ERROR
-                throw new WebHookRequestException(url, statusCode, statusMessage, HTTP_SERVER_ERROR);
-            } // otherwise (this is a success response)
-        } catch (@SuppressWarnings("OverlyBroadCatchBlock") IOException e) {
-            throw new WebHookRequestException(url, statusCode, statusMessage, e);
+            request = buildRequest(webHookRequest, userAgent, requestTimeout, gzipThresholdBytes, isHttpsRequiredForCredentials);
+        } catch (@SuppressWarnings("OverlyBroadCatchBlock") IOException | IllegalArgumentException e) {
+            return failedFuture(new WebHookRequestException(url, null, null, e));
         }
+        WebHookEvent webHookEvent = new WebHookEvent();
+        webHookEvent.begin();
+        return httpClient.sendAsync(request, BodyHandlers.discarding())
+                .handle((response, t) -> {
+                    commitEvent(webHookEvent, webHookRequest, response, t);
+                    return checkResponse(url, response, t);
+                });
     }
 
-    @SuppressWarnings("OverlyBroadThrowsClause") // MalformedURLException extends IOException
-    private static HttpURLConnection openFeedConnection(String url) throws IOException {
-        URL feedUrl = new URL(url);
-        return (HttpURLConnection) feedUrl.openConnection();
+    //
+    // records the delivery to the flight recorder, if enabled (the response handler runs on a client thread)
+    //
+    private static void commitEvent(WebHookEvent webHookEvent, WebHookRequest webHookRequest, HttpResponse<Void> response, Throwable t) {
+        webHookEvent.end();
+        if (webHookEvent.shouldCommit()) {
+            webHookEvent.username = webHookRequest.username;
+            webHookEvent.host = URI.create(webHookRequest.url).getHost();
+            webHookEvent.payloadSize = webHookRequest.getPayload().size();
+            webHookEvent.statusCode = response == null ? 0 : response.statusCode();
+            webHookEvent.isFailed = t != null || isClientError(webHookEvent.statusCode) || isServerError(webHookEvent.statusCode);
+            webHookEvent.commit();
+        }
     }
 
-    private static void addAuthenticator(HttpURLConnection feedConnection, String username, String password) {
-        if (username != null && password != null) {
-            feedConnection.setAuthenticator(new Authenticator() {
-                @Override
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(username, password.toCharArray());
-                }
-            });
+    private static HttpRequest buildRequest(WebHookRequest webHookRequest, String userAgent, Duration requestTimeout, int gzipThresholdBytes, boolean isHttpsRequiredForCredentials) throws IOException {
+        WebHookPayload payload = webHookRequest.getPayload();
+        if (payload == null) {
+            throw new IOException("Web hook request has no payload");
+        }
+        URI uri = URI.create(webHookRequest.url);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                // add the UA header
+                .header("User-Agent", userAgent)
+                // add the CT header
+                .header("Content-Type", "application/json; charset=utf-8");
+        // send the payload (the encoded bytes are shared, not copied)
+        if (gzipThresholdBytes > 0 && payload.size() >= gzipThresholdBytes) {
+            builder.header("Content-Encoding", "gzip")
+                    .POST(payload.gzipBodyPublisher());
+        } else {
+            builder.POST(payload.bodyPublisher());
         }
+        // add authentication, if any
+        addAuthorization(builder, uri, webHookRequest.basicUsername, webHookRequest.basicPassword, isHttpsRequiredForCredentials);
+        return builder.build();
     }
 
-    private static int getStatusCode(HttpURLConnection feedConnection) throws IOException {
-        feedConnection.setInstanceFollowRedirects(true);
-        return feedConnection.getResponseCode();
+    //
+    // credentials are sent preemptively, rather than building an Authenticator per request; since Basic credentials are
+    // only encoded, not encrypted, sending them over plain HTTP is logged, or refused if https is required (in which
+    // case the request fails, and is not retried)
+    //
+    private static void addAuthorization(HttpRequest.Builder builder, URI uri, String username, String password, boolean isHttpsRequired) {
+        if (username != null && password != null) {
+            if (!"https".equalsIgnoreCase(uri.getScheme())) {
+                if (isHttpsRequired) {
+                    throw new IllegalArgumentException("Refusing to send Basic credentials to a non-TLS web hook URL, host=" + uri.getHost());
+                }
+                log.warn("Sending Basic credentials to a non-TLS web hook URL, host={}", uri.getHost());
+            }
+            String credentials = Base64.getEncoder().encodeToString((username + ':' + password).getBytes(UTF_8));
+            builder.header("Authorization", "Basic " + credentials);
+        }
     }
 
-    private static String getStatusMessage(HttpURLConnection feedConnection) throws IOException {
-        return feedConnection.getResponseMessage();
+    private static Void checkResponse(String url, HttpResponse<Void> response, Throwable t) {
+        if (t != null) {
+            Throwable cause = (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+            if (cause instanceof Exception e) {
+                throw new CompletionException(new WebHookRequestException(url, null, null, e));
+            }
+            throw new CompletionException(cause);
+        }
+        // get the status response
+        int statusCode = response.statusCode();
+        if (isClientError(statusCode)) { // otherwise, if this is a client error (4xx)
+            // CLIENT_ERROR
+            throw new CompletionException(new WebHookRequestException(url, statusCode, null, HTTP_CLIENT_ERROR));
+        } else if (isServerError(statusCode)) { // otherwise, if this is a server error (5xx)
+            // SERVER_ERROR
+            throw new CompletionException(new WebHookRequestException(url, statusCode, null, HTTP_SERVER_ERROR));
+        } // otherwise (this is a success response)
+        return null;
     }
 
     private static boolean isClientError(int statusCode) {
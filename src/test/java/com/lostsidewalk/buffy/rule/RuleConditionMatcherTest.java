@@ -0,0 +1,171 @@
+package com.lostsidewalk.buffy.rule;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.rule.Rule.MatchType;
+import com.lostsidewalk.buffy.rule.RuleCondition.ComparisonType;
+import com.lostsidewalk.buffy.rule.RuleCondition.FieldName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks that the batch evaluator of {@link RuleConditionMatcher} (used on import, and by the backtester) matches
+ * exactly the posts that the single-post evaluator matches, for either match type, for rules without conditions, and
+ * for every comparison type against every field.
+ */
+class RuleConditionMatcherTest {
+
+    private static final Gson GSON = new Gson();
+
+    // the values compared against; each matches some of the posts below, by some comparisons, and not others
+    private static final List<String> FIELD_VALUES = List.of("news", "Breaking", "breaking news", "Breaking news today", ".*news.*", "^Breaking", "");
+
+    private RuleConditionMatcher ruleConditionMatcher;
+
+    private List<StagingPost> stagingPosts;
+
+    @BeforeEach
+    void setUp() {
+        ruleConditionMatcher = new RuleConditionMatcher();
+        ruleConditionMatcher.ruleComparator = new RuleComparator();
+        ruleConditionMatcher.ruleConditionPlanner = new RuleConditionPlanner();
+        stagingPosts = List.of(
+                stagingPost("Breaking news today", "All the news", "Breaking news, in full"),
+                stagingPost("  breaking news  ", "news", "nothing to see"),
+                stagingPost("Sports", "Breaking", "news"),
+                stagingPost("", "", ""),
+                stagingPost(null, null, null)
+        );
+    }
+
+    @Test
+    void testEmptyConditions() {
+        for (MatchType matchType : MatchType.values()) {
+            assertAgree(rule(1L, matchType, List.of()));
+        }
+    }
+
+    @Test
+    void testRuleWithoutId() {
+        // (e.g., a candidate rule being backtested, before it is saved)
+        List<JsonObject> conditions = allConditions();
+        for (MatchType matchType : MatchType.values()) {
+            assertAgree(rule(null, matchType, List.of(conditions.get(0), conditions.get(conditions.size() - 1))));
+        }
+    }
+
+    @Test
+    void testUnrecordedEvaluationKeepsPlan() {
+        // (e.g., a saved rule being backtested with edited conditions)
+        List<JsonObject> conditions = allConditions();
+        Rule savedRule = rule(1L, MatchType.ALL, List.of(conditions.get(0), conditions.get(1)));
+        Rule editedRule = rule(1L, MatchType.ALL, List.of(conditions.get(2), conditions.get(3)));
+        RuleConditionPlanner.RulePlan plan = ruleConditionMatcher.ruleConditionPlanner.plan(savedRule);
+        ruleConditionMatcher.evaluateStagingPosts(editedRule, stagingPosts, false);
+        assertSame(plan, ruleConditionMatcher.ruleConditionPlanner.plan(savedRule));
+    }
+
+    @Test
+    void testSingleConditions() {
+        long ruleId = 1L;
+        for (MatchType matchType : MatchType.values()) {
+            for (JsonObject condition : allConditions()) {
+                assertAgree(rule(ruleId++, matchType, List.of(condition)));
+            }
+        }
+    }
+
+    @Test
+    void testMultipleConditions() {
+        List<JsonObject> conditions = allConditions();
+        long ruleId = 1L;
+        for (MatchType matchType : MatchType.values()) {
+            // (every condition paired with a handful of others, both ways round)
+            for (int i = 0; i < conditions.size(); i++) {
+                for (int j = i + 1; j < conditions.size(); j += 7) {
+                    assertAgree(rule(ruleId++, matchType, List.of(conditions.get(i), conditions.get(j))));
+                    assertAgree(rule(ruleId++, matchType, List.of(conditions.get(j), conditions.get(i), conditions.get((i + j) % conditions.size()))));
+                }
+            }
+        }
+    }
+
+    //
+    // evaluates the rule in both ways, twice (so that the second run follows the order planned by the first)
+    //
+    private void assertAgree(Rule rule) {
+        for (int run = 0; run < 2; run++) {
+            BitSet batchMatches = ruleConditionMatcher.evaluateStagingPosts(rule, stagingPosts);
+            for (int i = 0; i < stagingPosts.size(); i++) {
+                boolean isMatch = ruleConditionMatcher.evaluateStagingPost(rule, stagingPosts.get(i));
+                int postIdx = i;
+                int r = run;
+                assertEquals(isMatch, batchMatches.get(i), () -> "run=" + r + ", postIdx=" + postIdx + ", rule=" + GSON.toJson(rule));
+            }
+        }
+    }
+
+    private static List<JsonObject> allConditions() {
+        List<JsonObject> conditions = new ArrayList<>();
+        for (FieldName fieldName : FieldName.values()) {
+            for (ComparisonType comparisonType : ComparisonType.values()) {
+                for (String fieldValue : FIELD_VALUES) {
+                    JsonObject condition = new JsonObject();
+                    condition.addProperty("fieldName", fieldName.name());
+                    condition.addProperty("comparisonType", comparisonType.name());
+                    condition.addProperty("fieldValue", fieldValue);
+                    conditions.add(condition);
+                }
+            }
+        }
+        return conditions;
+    }
+
+    private static Rule rule(Long ruleId, MatchType matchType, List<JsonObject> conditions) {
+        JsonArray conditionArray = new JsonArray();
+        conditions.forEach(conditionArray::add);
+        JsonObject rule = new JsonObject();
+        rule.addProperty("id", ruleId);
+        rule.addProperty("name", "rule" + ruleId);
+        rule.addProperty("matchType", matchType.name());
+        rule.add("conditions", conditionArray);
+        rule.add("actions", new JsonArray());
+        return GSON.fromJson(rule, Rule.class);
+    }
+
+    private static StagingPost stagingPost(String title, String desc, String contents) {
+        JsonObject post = new JsonObject();
+        post.addProperty("postHash", title + '/' + desc + '/' + contents);
+        post.addProperty("username", "me");
+        post.addProperty("subscriptionId", 1L);
+        post.addProperty("queueId", 1L);
+        if (title != null) {
+            post.add("postTitle", contentObject(title));
+        }
+        if (desc != null) {
+            post.add("postDesc", contentObject(desc));
+        }
+        if (contents != null) {
+            JsonArray postContents = new JsonArray();
+            postContents.add(contentObject(contents));
+            post.add("postContents", postContents);
+        }
+        return GSON.fromJson(post, StagingPost.class);
+    }
+
+    private static JsonObject contentObject(String value) {
+        JsonObject contentObject = new JsonObject();
+        contentObject.addProperty("type", "text");
+        contentObject.addProperty("value", value);
+        return contentObject;
+    }
+}